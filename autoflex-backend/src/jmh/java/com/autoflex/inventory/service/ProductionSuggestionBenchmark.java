@@ -0,0 +1,155 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH do cálculo de sugestões de produção
+ *
+ * Catálogos gerados (semente fixa) com 100, 10 mil e 100 mil produtos:
+ * - Matérias-primas: 10% da quantidade de produtos (mínimo 50)
+ * - BOM de 3 a 12 linhas por produto; metade das linhas vem de um grupo
+ *   pequeno de materiais COMUNS (parafusos, tinta...), o resto é espalhado
+ * - ~10% dos materiais com estoque zerado
+ *
+ * Cada benchmark mede UMA etapa do caminho quente:
+ * - rebuildEngine: compilação da matriz + quantidade máxima de todos os produtos
+ * - maxQuantityPass: só a passada MIN(estoque / necessário) sobre a matriz
+ * - streamSuggestions: requisitos por material, totalizadores e avisos, sem lista
+ * - fullResponse: resposta completa (cache invalidado a cada chamada)
+ * - topPage: primeira página (20) ordenada por valor total
+ *
+ * Paralelismo SEQUENCIAL: vazão e alocação por operação comparáveis entre
+ * máquinas. Rodar com o perfil "benchmark" (ver pom.xml), que já liga o
+ * -prof gc e grava target/jmh-result.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductionSuggestionBenchmark {
+
+    private static final InventoryChangedEvent NO_OP_CHANGE =
+            new InventoryChangedEvent(InventoryChangedEvent.Kind.STOCK_CHANGED, List.of());
+
+    @Param({"100", "10000", "100000"})
+    private int productCount;
+
+    private CatalogSnapshotLoader loader;
+    private ProductionParallelism parallelism;
+    private ProductionEngine engine;
+    private ProductionSuggestionService service;
+    private ProductionState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CatalogSnapshot snapshot = generateCatalog(new Random(42), productCount);
+        loader = new CatalogSnapshotLoader(null, null, null, null, null, null, null) {
+            @Override
+            public CatalogSnapshot load() {
+                return snapshot;
+            }
+        };
+        parallelism = ProductionParallelism.sequential();
+        engine = new ProductionEngine(loader, parallelism);
+        service = new ProductionSuggestionService(engine, parallelism);
+        state = engine.current();
+    }
+
+    @Benchmark
+    public ProductionState rebuildEngine() {
+        return new ProductionEngine(loader, parallelism).current();
+    }
+
+    @Benchmark
+    public long maxQuantityPass() {
+        BomMatrix matrix = state.matrix();
+        long[] stock = state.stock();
+        long units = 0;
+        for (int p = 0; p < matrix.productCount(); p++) {
+            units += matrix.maxQuantity(p, m -> stock[m]);
+        }
+        return units;
+    }
+
+    @Benchmark
+    public Object streamSuggestions(Blackhole blackhole) {
+        return service.streamProductionSuggestions(ProductionMode.INDEPENDENT, 0, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object fullResponse() {
+        // Nova versão sem alterações pendentes: força o recálculo da resposta
+        engine.onInventoryChanged(NO_OP_CHANGE);
+        return service.calculateProductionSuggestions(ProductionMode.INDEPENDENT, null);
+    }
+
+    @Benchmark
+    public Object topPage() {
+        return service.calculateProductionSuggestions(ProductionMode.INDEPENDENT, null, ProductionSort.TOTAL_VALUE, 0, 20);
+    }
+
+    static CatalogSnapshot generateCatalog(Random random, int productCount) {
+        int materialCount = Math.max(50, productCount / 10);
+        int commonCount = Math.max(5, materialCount / 20);
+
+        List<MaterialEntry> materials = new ArrayList<>(materialCount);
+        for (int m = 0; m < materialCount; m++) {
+            BigDecimal stock = random.nextInt(10) == 0
+                    ? new BigDecimal("0.000")
+                    : BigDecimal.valueOf(1_000_000L + random.nextInt(50_000_000), 3);
+            materials.add(new MaterialEntry((long) m + 1, "MP" + m, "Material " + m, "kg", stock));
+        }
+
+        List<ProductEntry> products = new ArrayList<>(productCount);
+        boolean[] used = new boolean[materialCount];
+        for (int p = 0; p < productCount; p++) {
+            int fanOut = 3 + random.nextInt(10);
+            List<BomLine> lines = new ArrayList<>(fanOut);
+            List<Integer> picked = new ArrayList<>(fanOut);
+            while (lines.size() < fanOut) {
+                int m = random.nextBoolean()
+                        ? random.nextInt(commonCount)
+                        : commonCount + random.nextInt(materialCount - commonCount);
+                // Materiais distintos por produto (unique product_id + raw_material_id)
+                if (used[m]) {
+                    continue;
+                }
+                used[m] = true;
+                picked.add(m);
+                lines.add(new BomLine(materials.get(m), BigDecimal.valueOf(1 + random.nextInt(5_000), 3)));
+            }
+            for (int m : picked) {
+                used[m] = false;
+            }
+            BigDecimal value = BigDecimal.valueOf(100 + random.nextInt(500_000), 2);
+            products.add(new ProductEntry((long) p + 1, "PROD" + p, "Product " + p, value, lines));
+        }
+        // Mesma ordem da consulta do CatalogSnapshotLoader (maior valor primeiro)
+        products.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        return new CatalogSnapshot(products, materials);
+    }
+}
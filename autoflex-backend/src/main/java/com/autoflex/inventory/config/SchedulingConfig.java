@@ -0,0 +1,12 @@
+package com.autoflex.inventory.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tarefas agendadas (snapshots do razão de estoque)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
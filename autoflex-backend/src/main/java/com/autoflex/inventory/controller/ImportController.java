@@ -0,0 +1,113 @@
+package com.autoflex.inventory.controller;
+
+import com.autoflex.inventory.dto.ImportProgressDTO;
+import com.autoflex.inventory.dto.ImportRecordDTO;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.service.CsvImportService;
+import com.autoflex.inventory.service.ImportType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Controller para importação em massa por CSV
+ * 
+ * Base URL: /api/import
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+@Tag(name = "Bulk Import", description = "Streaming CSV import of raw materials, products and BOMs")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class ImportController {
+    
+    private final CsvImportService importService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * POST /api/import/{type}   (type = materials | products | bom)
+     * 
+     * Upload multipart (campo "file") de um CSV com cabeçalho:
+     * - materials: code,name,unit,stock_quantity
+     * - products:  code,name,value
+     * - bom:       product_code,material_code,required_quantity
+     * 
+     * Códigos existentes são ATUALIZADOS (upsert). O arquivo é processado em
+     * blocos, cada um em sua transação; a resposta é NDJSON, escrita durante
+     * a importação:
+     * {"type":"error","error":{"line":17,"message":"stock_quantity must be zero or positive"}}
+     * {"type":"progress","progress":{"importType":"MATERIALS","chunks":1,"rowsRead":1000,...}}
+     * {"type":"summary","progress":{"rowsRead":2500,"created":2400,"updated":99,"failed":1,"completed":true,...}}
+     */
+    @PostMapping(value = "/{type}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+        summary = "Import CSV in bulk",
+        description = "Stream an uploaded CSV (materials, products or bom) into the database with chunked upserts. "
+                + "Responds with newline-delimited JSON: per-row errors, progress after each chunk and a final summary"
+    )
+    public ResponseEntity<StreamingResponseBody> importCsv(
+            @PathVariable String type,
+            @RequestParam("file") MultipartFile file) {
+        log.info("POST /api/import/{} - Importing CSV '{}' ({} bytes)", type, file.getOriginalFilename(), file.getSize());
+        
+        // Validação antes do primeiro byte: erros ainda viram resposta 400 normal
+        ImportType importType = ImportType.from(type);
+        if (file.isEmpty()) {
+            throw new BusinessException("CSV file is required");
+        }
+        ObjectWriter writer = objectMapper.writerFor(ImportRecordDTO.class);
+        
+        StreamingResponseBody body = output -> {
+            try (InputStream input = file.getInputStream()) {
+                ImportProgressDTO summary = importService.importCsv(importType, input,
+                        record -> writeLine(writer, output, record));
+                writeLine(writer, output, ImportRecordDTO.builder()
+                        .type(ImportRecordDTO.SUMMARY)
+                        .progress(summary)
+                        .build());
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            output.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    /**
+     * Escreve um registro e já envia ao cliente (progresso em tempo real)
+     */
+    private static void writeLine(ObjectWriter writer, OutputStream output, ImportRecordDTO record) {
+        try {
+            output.write(writer.writeValueAsBytes(record));
+            output.write('\n');
+            if (!ImportRecordDTO.ERROR.equals(record.getType())) {
+                output.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
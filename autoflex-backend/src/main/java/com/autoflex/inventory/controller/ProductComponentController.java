@@ -0,0 +1,91 @@
+package com.autoflex.inventory.controller;
+
+import com.autoflex.inventory.dto.ProductComponentDTO;
+import com.autoflex.inventory.service.ProductComponentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller da BOM multinível (produtos como componentes de outros produtos)
+ * 
+ * Base URL: /api/products/{productId}/components
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/products/{productId}/components")
+@RequiredArgsConstructor
+@Tag(name = "Product Components", description = "Endpoints to manage sub-assemblies (multi-level BOM)")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class ProductComponentController {
+    
+    private final ProductComponentService service;
+    
+    /**
+     * GET /api/products/{productId}/components
+     * Lista sub-montagens de um produto
+     */
+    @GetMapping
+    @Operation(summary = "List components of a product")
+    public ResponseEntity<List<ProductComponentDTO>> getProductComponents(@PathVariable Long productId) {
+        log.info("GET /api/products/{}/components - Listing components", productId);
+        List<ProductComponentDTO> components = service.findByProductId(productId);
+        return ResponseEntity.ok(components);
+    }
+    
+    /**
+     * POST /api/products/{productId}/components
+     * Adiciona outro produto como componente (rejeita ciclos)
+     * 
+     * Request Body:
+     * {
+     *   "componentId": 7,
+     *   "requiredQuantity": 1
+     * }
+     */
+    @PostMapping
+    @Operation(summary = "Add component to product", description = "Rejects components that would create a cycle")
+    public ResponseEntity<ProductComponentDTO> addComponentToProduct(
+            @PathVariable Long productId,
+            @Valid @RequestBody ProductComponentDTO dto) {
+        log.info("POST /api/products/{}/components - Adding component {}", productId, dto.getComponentId());
+        ProductComponentDTO created = service.addComponentToProduct(productId, dto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+    
+    /**
+     * PUT /api/products/{productId}/components/{componentId}
+     * Atualiza quantidade necessária
+     */
+    @PutMapping("/{componentId}")
+    @Operation(summary = "Update component quantity")
+    public ResponseEntity<ProductComponentDTO> updateComponentQuantity(
+            @PathVariable Long productId,
+            @PathVariable Long componentId,
+            @Valid @RequestBody ProductComponentDTO dto) {
+        log.info("PUT /api/products/{}/components/{} - Updating quantity", productId, componentId);
+        ProductComponentDTO updated = service.updateComponentQuantity(productId, componentId, dto);
+        return ResponseEntity.ok(updated);
+    }
+    
+    /**
+     * DELETE /api/products/{productId}/components/{componentId}
+     * Remove componente do produto
+     */
+    @DeleteMapping("/{componentId}")
+    @Operation(summary = "Remove component from product")
+    public ResponseEntity<Void> removeComponentFromProduct(
+            @PathVariable Long productId,
+            @PathVariable Long componentId) {
+        log.info("DELETE /api/products/{}/components/{} - Removing component", productId, componentId);
+        service.removeComponentFromProduct(productId, componentId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.autoflex.inventory.controller;
 
+import com.autoflex.inventory.dto.CursorPageDTO;
 import com.autoflex.inventory.dto.ProductDTO;
 import com.autoflex.inventory.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,6 +12,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -42,6 +44,31 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    /**
+     * GET /api/products?limit=50&cursor=...&code=PRD&name=mesa&minValue=10&maxValue=500&sortBy=value
+     * Lista paginada por cursor (keyset), com filtros no servidor.
+     * Presença de "limit" seleciona esta variante; sem ela, a lista completa acima.
+     * 
+     * @return Página com nextCursor (null na última página)
+     */
+    @GetMapping(params = "limit")
+    @Operation(
+        summary = "List products page",
+        description = "Cursor-paginated product listing filtered by code/name prefix and value range, "
+                + "sorted by code, name or value (descending). Pass nextCursor back as cursor for the next page"
+    )
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) String sortBy) {
+        log.info("GET /api/products - Listing products page (limit {}, sortBy {})", limit, sortBy);
+        return ResponseEntity.ok(productService.findPage(code, name, minValue, maxValue, sortBy, cursor, limit));
+    }
+    
     /**
      * GET /api/products/{id}
      * Busca produto por ID
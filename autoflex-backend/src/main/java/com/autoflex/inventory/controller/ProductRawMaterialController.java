@@ -1,5 +1,6 @@
 package com.autoflex.inventory.controller;
 
+import com.autoflex.inventory.dto.BomBulkRequestDTO;
 import com.autoflex.inventory.dto.ProductRawMaterialDTO;
 import com.autoflex.inventory.service.ProductRawMaterialService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -60,6 +61,29 @@ public class ProductRawMaterialController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    /**
+     * POST /api/products/{productId}/materials/bulk
+     * Adiciona várias matérias-primas ao produto em uma única operação
+     * (INSERTs em lote; tudo ou nada)
+     * 
+     * Request Body:
+     * {
+     *   "materials": [
+     *     { "productId": 1, "rawMaterialId": 1, "requiredQuantity": 2.5 },
+     *     { "productId": 1, "rawMaterialId": 4, "requiredQuantity": 0.3 }
+     *   ]
+     * }
+     */
+    @PostMapping("/bulk")
+    @Operation(summary = "Add several materials to product in one batch")
+    public ResponseEntity<List<ProductRawMaterialDTO>> addMaterialsToProduct(
+            @PathVariable Long productId,
+            @Valid @RequestBody BomBulkRequestDTO request) {
+        log.info("POST /api/products/{}/materials/bulk - Adding {} materials", productId, request.getMaterials().size());
+        List<ProductRawMaterialDTO> created = service.addMaterialsToProduct(productId, request.getMaterials());
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+    
     /**
      * PUT /api/products/{productId}/materials/{materialId}
      * Atualiza quantidade necessária
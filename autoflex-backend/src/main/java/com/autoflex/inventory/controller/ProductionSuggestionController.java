@@ -1,16 +1,46 @@
 package com.autoflex.inventory.controller;
 
+import com.autoflex.inventory.dto.BottleneckResponseDTO;
+import com.autoflex.inventory.dto.DemandRequestDTO;
+import com.autoflex.inventory.dto.MaterialRequirementDTO;
+import com.autoflex.inventory.dto.NetRequirementsResponseDTO;
+import com.autoflex.inventory.dto.ProductionOrderRequestDTO;
+import com.autoflex.inventory.dto.ProductionOrderResponseDTO;
 import com.autoflex.inventory.dto.ProductionResponseDTO;
+import com.autoflex.inventory.dto.ScenarioRequestDTO;
+import com.autoflex.inventory.dto.ScenarioResponseDTO;
+import com.autoflex.inventory.dto.WhereUsedDTO;
+import com.autoflex.inventory.dto.ProductionStreamRecordDTO;
+import com.autoflex.inventory.service.BottleneckService;
+import com.autoflex.inventory.service.NetRequirementsService;
+import com.autoflex.inventory.service.ProductionMode;
+import com.autoflex.inventory.service.ProductionOrderService;
+import com.autoflex.inventory.service.ProductionSort;
 import com.autoflex.inventory.service.ProductionSuggestionService;
+import com.autoflex.inventory.service.ScenarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * Controller para cálculo de sugestão de produção
@@ -26,6 +56,11 @@ import org.springframework.web.bind.annotation.RestController;
 public class ProductionSuggestionController {
     
     private final ProductionSuggestionService productionService;
+    private final ScenarioService scenarioService;
+    private final NetRequirementsService netRequirementsService;
+    private final BottleneckService bottleneckService;
+    private final ProductionOrderService productionOrderService;
+    private final ObjectMapper objectMapper;
     
     /**
      * GET /api/production/suggestions
@@ -33,6 +68,17 @@ public class ProductionSuggestionController {
      * Calcula quais produtos podem ser produzidos com estoque atual
      * Retorna lista ordenada por valor (maior primeiro)
      * 
+     * Query params:
+     * - mode=independent (padrão): cada produto contra o estoque completo
+     * - mode=allocate: produtos em ordem de valor consomem um estoque
+     *   compartilhado; a resposta inclui o estoque restante por material
+     * - mode=optimize: mix que maximiza o valor total com o estoque
+     *   compartilhado; budgetMs limita o tempo do otimizador e a resposta
+     *   traz o limite superior e o gap de otimalidade
+     * - sortBy=value (padrão) | totalValue | maxQuantity: ordenação decrescente
+     * - offset, limit: paginação; só os produtos da página são detalhados,
+     *   os totalizadores continuam cobrindo o catálogo inteiro
+     * 
      * Response:
      * {
      *   "suggestions": [
@@ -52,13 +98,225 @@ public class ProductionSuggestionController {
     @GetMapping("/suggestions")
     @Operation(
         summary = "Calculate production suggestions",
-        description = "Calculate which products can be produced with current stock, ordered by value (highest first)"
+        description = "Calculate which products can be produced with current stock, ordered by value (highest first). "
+                + "Use mode=allocate to deduct shared materials in value order and get the remaining stock per material. "
+                + "Use mode=optimize (optional budgetMs) to maximize total value; the response reports the optimality gap. "
+                + "Use sortBy (value, totalValue, maxQuantity), offset and limit to page through suggestions; "
+                + "totals always cover the whole catalog"
     )
-    public ResponseEntity<ProductionResponseDTO> getProductionSuggestions() {
-        log.info("GET /api/production/suggestions - Calculating production suggestions");
-        ProductionResponseDTO suggestions = productionService.calculateProductionSuggestions();
+    public ResponseEntity<ProductionResponseDTO> getProductionSuggestions(
+            @RequestParam(defaultValue = "independent") String mode,
+            @RequestParam(required = false) Long budgetMs,
+            @RequestParam(defaultValue = "value") String sortBy,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/production/suggestions?mode={}&sortBy={}&offset={}&limit={} - Calculating production suggestions",
+                mode, sortBy, offset, limit);
+        ProductionResponseDTO suggestions = productionService.calculateProductionSuggestions(
+                ProductionMode.from(mode), budgetMs, ProductionSort.from(sortBy), offset, limit);
         return ResponseEntity.ok(suggestions);
     }
+    
+    /**
+     * GET /api/production/suggestions/stream
+     * 
+     * Mesmo cálculo (e mesmos modos) de /suggestions, em NDJSON: uma linha
+     * por sugestão, escrita assim que é montada, e uma linha final de resumo
+     * com totalizadores e avisos. A memória fica limitada a UM produto por
+     * vez, independente do tamanho do catálogo.
+     * 
+     * Response (application/x-ndjson):
+     * {"type":"suggestion","suggestion":{"product":{...},"maxQuantity":10,...}}
+     * {"type":"suggestion","suggestion":{...}}
+     * {"type":"summary","summary":{"totalProductionValue":5000.00,"totalProductTypes":3,...}}
+     */
+    @GetMapping(value = "/suggestions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+        summary = "Stream production suggestions",
+        description = "Same calculation and modes as /suggestions, as newline-delimited JSON: one record per "
+                + "suggestion as soon as it is computed, followed by a summary record with totals and warnings"
+    )
+    public ResponseEntity<StreamingResponseBody> streamProductionSuggestions(
+            @RequestParam(defaultValue = "independent") String mode,
+            @RequestParam(required = false) Long budgetMs) {
+        log.info("GET /api/production/suggestions/stream?mode={} - Streaming production suggestions", mode);
+        
+        // Validação antes do primeiro byte: erros ainda viram resposta 400 normal
+        ProductionMode productionMode = ProductionMode.from(mode);
+        long budgetMillis = productionService.resolveOptimizeBudget(budgetMs);
+        ObjectWriter writer = objectMapper.writerFor(ProductionStreamRecordDTO.class);
+        
+        StreamingResponseBody body = output -> {
+            try {
+                ProductionResponseDTO summary = productionService.streamProductionSuggestions(
+                        productionMode, budgetMillis,
+                        suggestion -> writeLine(writer, output, ProductionStreamRecordDTO.builder()
+                                .type(ProductionStreamRecordDTO.SUGGESTION)
+                                .suggestion(suggestion)
+                                .build()));
+                writeLine(writer, output, ProductionStreamRecordDTO.builder()
+                        .type(ProductionStreamRecordDTO.SUMMARY)
+                        .summary(summary)
+                        .build());
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            output.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    /**
+     * POST /api/production/scenarios
+     * 
+     * Simulação what-if em lote: cada cenário aplica deltas de estoque e/ou
+     * valores alternativos de produtos sobre o estado atual, SEM gravar nada
+     * no banco, e devolve os totalizadores de produção resultantes
+     * 
+     * Body:
+     * {
+     *   "scenarios": [
+     *     { "name": "Chegada de alumínio",
+     *       "stockDeltas": [ { "materialId": 3, "delta": 200.000 } ] },
+     *     { "name": "Reajuste",
+     *       "valueOverrides": [ { "productId": 1, "value": 180.00 } ] }
+     *   ]
+     * }
+     */
+    @PostMapping("/scenarios")
+    @Operation(
+        summary = "Evaluate what-if scenarios",
+        description = "Evaluate many scenarios (stock deltas and/or product value overrides) against the current "
+                + "inventory in parallel, without writing to the database. Returns production totals per scenario"
+    )
+    public ResponseEntity<ScenarioResponseDTO> evaluateScenarios(@Valid @RequestBody ScenarioRequestDTO request) {
+        log.info("POST /api/production/scenarios - Evaluating {} scenario(s)", request.getScenarios().size());
+        return ResponseEntity.ok(scenarioService.evaluate(request));
+    }
+    
+    /**
+     * POST /api/production/requirements
+     * 
+     * MRP: necessidades brutas e líquidas de matéria-prima para uma lista de
+     * pedidos inteira, com as faltas por material (maior falta primeiro)
+     * 
+     * Body:
+     * {
+     *   "lines": [
+     *     { "productCode": "PROD001", "quantity": 120 },
+     *     { "productCode": "PROD002", "quantity": 15 }
+     *   ]
+     * }
+     */
+    @PostMapping("/requirements")
+    @Operation(
+        summary = "Calculate net material requirements",
+        description = "Aggregate gross raw material requirements for a list of demand lines (product code, quantity), "
+                + "net them against current stock and report shortfalls per material"
+    )
+    public ResponseEntity<NetRequirementsResponseDTO> calculateNetRequirements(
+            @Valid @RequestBody DemandRequestDTO request) {
+        log.info("POST /api/production/requirements - Calculating net requirements for {} line(s)",
+                request.getLines().size());
+        return ResponseEntity.ok(netRequirementsService.calculate(request));
+    }
+    
+    /**
+     * POST /api/production/orders
+     * 
+     * EXECUTA uma ordem de produção: consome do estoque a BOM (achatada) dos
+     * produtos, de forma atômica. Falha sem alterar nada se faltar estoque.
+     * 
+     * Body:
+     * {
+     *   "reference": "OP-2026-0042",      // opcional, gravado no razão de estoque
+     *   "lines": [
+     *     { "productCode": "PROD001", "quantity": 10 },
+     *     { "productCode": "PROD002", "quantity": 3 }
+     *   ]
+     * }
+     */
+    @PostMapping("/orders")
+    @Operation(
+        summary = "Execute a production order",
+        description = "Consume the raw materials of the ordered products atomically. Material rows are locked in ID "
+                + "order; the whole order is rejected if any stock is insufficient"
+    )
+    public ResponseEntity<ProductionOrderResponseDTO> executeProductionOrder(
+            @Valid @RequestBody ProductionOrderRequestDTO request) {
+        log.info("POST /api/production/orders - Executing production order with {} line(s)",
+                request.getLines().size());
+        return ResponseEntity.ok(productionOrderService.execute(request));
+    }
+    
+    /**
+     * GET /api/production/bottlenecks?limit=20
+     * 
+     * Matérias-primas que limitam a produção, ordenadas pelo valor que
+     * bloqueiam, com valor marginal (shadow price) e a menor compra que
+     * libera mais uma unidade de algum produto
+     */
+    @GetMapping("/bottlenecks")
+    @Operation(
+        summary = "Analyze raw material bottlenecks",
+        description = "Rank limiting raw materials by blocked production value, with the marginal value of one more "
+                + "unit and the units needed to unlock the next product unit"
+    )
+    public ResponseEntity<BottleneckResponseDTO> analyzeBottlenecks(@RequestParam(required = false) Integer limit) {
+        log.info("GET /api/production/bottlenecks?limit={} - Analyzing bottlenecks", limit);
+        return ResponseEntity.ok(bottleneckService.analyze(limit));
+    }
+    
+    /**
+     * GET /api/production/explosion/{productId}?quantity=1
+     * 
+     * Explosão da BOM: matérias-primas de todos os níveis (sub-montagens
+     * achatadas) para produzir a quantidade informada, contra o estoque atual
+     */
+    @GetMapping("/explosion/{productId}")
+    @Operation(
+        summary = "Explode product BOM",
+        description = "Flattened raw material requirements across all sub-assembly levels for the given quantity"
+    )
+    public ResponseEntity<List<MaterialRequirementDTO>> explodeProduct(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "1") int quantity) {
+        log.info("GET /api/production/explosion/{}?quantity={} - Exploding BOM", productId, quantity);
+        return ResponseEntity.ok(productionService.explodeProduct(productId, quantity));
+    }
+    
+    /**
+     * GET /api/production/where-used/{materialId}
+     * 
+     * Produtos que usam a matéria-prima, diretamente ou via sub-montagens
+     */
+    @GetMapping("/where-used/{materialId}")
+    @Operation(
+        summary = "Where-used of a raw material",
+        description = "Products that consume the raw material directly or through sub-assemblies, with the flattened quantity per unit"
+    )
+    public ResponseEntity<List<WhereUsedDTO>> findWhereUsed(@PathVariable Long materialId) {
+        log.info("GET /api/production/where-used/{} - Finding products using material", materialId);
+        return ResponseEntity.ok(productionService.findWhereUsed(materialId));
+    }
+    
+    /**
+     * Escreve um registro por linha e envia ao cliente na hora (flush): sem
+     * ele, as sugestões ficariam no buffer da resposta até encher, e o
+     * cliente não veria nada enquanto o cálculo anda
+     */
+    private static void writeLine(ObjectWriter writer, OutputStream output, ProductionStreamRecordDTO record) {
+        try {
+            output.write(writer.writeValueAsBytes(record));
+            output.write('\n');
+            output.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
 
 // ============================================================================
@@ -68,6 +326,7 @@ public class ProductionSuggestionController {
 /**
  * PRODUCTS:
  * GET    /api/products                          - Lista todos
+ * GET    /api/products?limit=N                  - Página por cursor (filtros: code, name, minValue, maxValue)
  * GET    /api/products/{id}                     - Busca por ID
  * GET    /api/products/{id}/with-materials      - Busca com materiais
  * POST   /api/products                          - Cria novo
@@ -76,17 +335,50 @@ public class ProductionSuggestionController {
  * 
  * RAW MATERIALS:
  * GET    /api/raw-materials                     - Lista todos
+ * GET    /api/raw-materials?limit=N             - Página por cursor (filtros: code, name, unit, lowStock)
  * GET    /api/raw-materials/{id}                - Busca por ID
  * POST   /api/raw-materials                     - Cria novo
  * PUT    /api/raw-materials/{id}                - Atualiza
  * DELETE /api/raw-materials/{id}                - Deleta
+ * POST   /api/raw-materials/stock/adjustments   - Ajuste de estoque em lote (deltas, atômico)
+ * POST   /api/raw-materials/stock/consumptions  - Baixas em write-behind (journal + flush em lote)
+ * GET    /api/raw-materials/stock/buffer        - Status do write-behind
+ * POST   /api/raw-materials/stock/buffer/flush  - Flush do write-behind agora
+ * GET    /api/raw-materials/stock/as-of         - Saldo em um instante (razão + snapshots)
+ * POST   /api/raw-materials/stock/snapshots     - Consolida snapshots do razão agora
+ * GET    /api/raw-materials/{id}/movements      - Movimentações do razão de estoque
+ * GET    /api/raw-materials/{id}/stock/stripes  - Estoque fatiado (material quente)
+ * PUT    /api/raw-materials/{id}/stock/stripes  - Liga/desliga stripes (?count=N, 0 = desliga)
  * 
  * ASSOCIATIONS:
  * GET    /api/products/{id}/materials           - Lista materiais do produto
  * POST   /api/products/{id}/materials           - Adiciona material
+ * POST   /api/products/{id}/materials/bulk      - Adiciona vários materiais (INSERT em lote)
  * PUT    /api/products/{id}/materials/{matId}   - Atualiza quantidade
  * DELETE /api/products/{id}/materials/{matId}   - Remove associação
  * 
+ * COMPONENTS (BOM multinível):
+ * GET    /api/products/{id}/components          - Lista sub-montagens
+ * POST   /api/products/{id}/components          - Adiciona sub-montagem (rejeita ciclos)
+ * PUT    /api/products/{id}/components/{compId} - Atualiza quantidade
+ * DELETE /api/products/{id}/components/{compId} - Remove sub-montagem
+ * 
  * PRODUCTION:
  * GET    /api/production/suggestions            - Calcula sugestões
+ * GET    /api/production/suggestions?mode=allocate - Sugestões com estoque compartilhado
+ * GET    /api/production/suggestions?mode=optimize - Mix ótimo (maior valor total)
+ * GET    /api/production/suggestions?sortBy=totalValue&limit=20 - Top 20 por valor total
+ * GET    /api/production/suggestions/stream     - Sugestões em NDJSON (streaming)
+ * POST   /api/production/scenarios              - Simulação what-if em lote
+ * POST   /api/production/requirements           - MRP: faltas para uma lista de pedidos
+ * POST   /api/production/orders                 - Executa ordem (baixa atômica da BOM)
+ * GET    /api/production/bottlenecks            - Gargalos e shadow price por material
+ * GET    /api/production/explosion/{id}         - Explosão da BOM (todos os níveis)
+ * GET    /api/production/where-used/{matId}     - Produtos que usam a matéria-prima
+ * 
+ * IMPORT:
+ * POST   /api/import/{type}                     - CSV em massa (materials, products, bom), NDJSON
+ * 
+ * SEARCH:
+ * GET    /api/search?q=alum&type=material       - Autocomplete em memória (código/nome, sem acentos)
  */
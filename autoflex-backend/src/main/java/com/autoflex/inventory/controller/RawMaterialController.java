@@ -1,16 +1,29 @@
 package com.autoflex.inventory.controller;
 
+import com.autoflex.inventory.dto.CursorPageDTO;
 import com.autoflex.inventory.dto.RawMaterialDTO;
+import com.autoflex.inventory.dto.StockAdjustmentRequestDTO;
+import com.autoflex.inventory.dto.StockAdjustmentResponseDTO;
+import com.autoflex.inventory.dto.StockAsOfDTO;
+import com.autoflex.inventory.dto.StockMovementDTO;
+import com.autoflex.inventory.dto.StockStripesDTO;
+import com.autoflex.inventory.dto.WriteBehindStatusDTO;
 import com.autoflex.inventory.service.RawMaterialService;
+import com.autoflex.inventory.service.StockAdjustmentService;
+import com.autoflex.inventory.service.StockLedgerService;
+import com.autoflex.inventory.service.StockStripingService;
+import com.autoflex.inventory.service.StockWriteBehindService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,6 +40,10 @@ import java.util.List;
 public class RawMaterialController {
     
     private final RawMaterialService rawMaterialService;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final StockLedgerService stockLedgerService;
+    private final StockStripingService stockStripingService;
+    private final StockWriteBehindService stockWriteBehindService;
     
     @GetMapping
     @Operation(summary = "List all raw materials")
@@ -36,6 +53,29 @@ public class RawMaterialController {
         return ResponseEntity.ok(materials);
     }
     
+    /**
+     * GET /api/raw-materials?limit=50&cursor=...&code=MP&name=aco&unit=kg&lowStock=true&sortBy=name
+     * Lista paginada por cursor (keyset), com filtros no servidor.
+     * Presença de "limit" seleciona esta variante; sem ela, a lista completa acima.
+     */
+    @GetMapping(params = "limit")
+    @Operation(
+        summary = "List raw materials page",
+        description = "Cursor-paginated raw material listing filtered by code/name prefix, unit and low-stock flag, "
+                + "sorted by code or name. Pass nextCursor back as cursor for the next page"
+    )
+    public ResponseEntity<CursorPageDTO<RawMaterialDTO>> getRawMaterialsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String code,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String unit,
+            @RequestParam(required = false) Boolean lowStock,
+            @RequestParam(required = false) String sortBy) {
+        log.info("GET /api/raw-materials - Listing raw materials page (limit {}, sortBy {})", limit, sortBy);
+        return ResponseEntity.ok(rawMaterialService.findPage(code, name, unit, lowStock, sortBy, cursor, limit));
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get raw material by ID")
     public ResponseEntity<RawMaterialDTO> getRawMaterialById(@PathVariable Long id) {
@@ -80,4 +120,134 @@ public class RawMaterialController {
         rawMaterialService.delete(id);
         return ResponseEntity.noContent().build();
     }
+    
+    /**
+     * POST /api/raw-materials/stock/adjustments
+     * Aplica deltas de estoque (positivos = entrada, negativos = saída) em lote,
+     * em uma transação. Rejeita o lote inteiro se algum saldo ficar negativo.
+     * 
+     * Request Body:
+     * {
+     *   "type": "RECEIPT",                // opcional: RECEIPT, CONSUMPTION, ADJUSTMENT (padrão)
+     *   "reference": "NF-12345",          // opcional, gravado no razão de estoque
+     *   "adjustments": [
+     *     { "materialId": 1, "delta": 250.000 },
+     *     { "materialId": 5, "delta": 120.000 }
+     *   ]
+     * }
+     */
+    @PostMapping("/stock/adjustments")
+    @Operation(
+        summary = "Apply stock adjustments in batch",
+        description = "Apply signed stock deltas atomically with set-based updates. Returns previous and new "
+                + "quantities; rejects the whole batch if any stock would become negative"
+    )
+    public ResponseEntity<StockAdjustmentResponseDTO> adjustStock(@Valid @RequestBody StockAdjustmentRequestDTO request) {
+        log.info("POST /api/raw-materials/stock/adjustments - Applying {} adjustment(s)", request.getAdjustments().size());
+        StockAdjustmentResponseDTO response = stockAdjustmentService.adjust(request);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * POST /api/raw-materials/stock/consumptions
+     * Baixas de estoque em WRITE-BEHIND (terminais de chão de fábrica):
+     * gravadas no journal local e aceitas na hora (202); o banco recebe os
+     * deltas somados por material no próximo flush. Delta que deixaria o
+     * saldo negativo no flush é descartado (ver rejectedDeltas no status).
+     * 
+     * Request Body: mesmo formato de /stock/adjustments ("type" padrão CONSUMPTION)
+     */
+    @PostMapping("/stock/consumptions")
+    @Operation(
+        summary = "Post stock consumptions through the write-behind buffer",
+        description = "Journal the deltas locally and accept them immediately; they are coalesced per material "
+                + "and written to the database in batched flushes. Stock reads include accepted deltas"
+    )
+    public ResponseEntity<WriteBehindStatusDTO> postStockConsumptions(@Valid @RequestBody StockAdjustmentRequestDTO request) {
+        log.debug("POST /api/raw-materials/stock/consumptions - Accepting {} movement(s)", request.getAdjustments().size());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(stockWriteBehindService.enqueue(request));
+    }
+    
+    @GetMapping("/stock/buffer")
+    @Operation(summary = "Get write-behind buffer status")
+    public ResponseEntity<WriteBehindStatusDTO> getStockBuffer() {
+        return ResponseEntity.ok(stockWriteBehindService.status());
+    }
+    
+    @PostMapping("/stock/buffer/flush")
+    @Operation(summary = "Flush the write-behind buffer now")
+    public ResponseEntity<WriteBehindStatusDTO> flushStockBuffer() {
+        log.info("POST /api/raw-materials/stock/buffer/flush - Flushing write-behind buffer");
+        return ResponseEntity.ok(stockWriteBehindService.flushNow());
+    }
+    
+    /**
+     * GET /api/raw-materials/stock/as-of?at=2026-03-01T18:00:00&materialId=5
+     * Saldo no instante informado, calculado pelo razão de estoque
+     * (snapshot mais recente + movimentações até o instante).
+     * Sem "at": agora. Sem "materialId": todas as matérias-primas.
+     */
+    @GetMapping("/stock/as-of")
+    @Operation(
+        summary = "Get stock as of a point in time",
+        description = "Compute stock from the movement ledger: latest snapshot before the instant plus the "
+                + "movements recorded after it"
+    )
+    public ResponseEntity<List<StockAsOfDTO>> getStockAsOf(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) Long materialId) {
+        log.info("GET /api/raw-materials/stock/as-of - at: {}, materialId: {}", at, materialId);
+        List<StockAsOfDTO> stock = stockLedgerService.stockAsOf(at, materialId);
+        return ResponseEntity.ok(stock);
+    }
+    
+    /**
+     * POST /api/raw-materials/stock/snapshots
+     * Consolida o razão em snapshots agora (normalmente feito pelo agendamento)
+     */
+    @PostMapping("/stock/snapshots")
+    @Operation(summary = "Take stock snapshots from the movement ledger now")
+    public ResponseEntity<Integer> takeStockSnapshots() {
+        log.info("POST /api/raw-materials/stock/snapshots - Taking stock snapshots");
+        return ResponseEntity.ok(stockLedgerService.takeSnapshots());
+    }
+    
+    /**
+     * GET /api/raw-materials/{id}/movements?from=...&to=...&limit=100
+     * Movimentações do razão de estoque, da mais recente para a mais antiga
+     */
+    @GetMapping("/{id}/movements")
+    @Operation(summary = "List stock movements of a raw material")
+    public ResponseEntity<List<StockMovementDTO>> getStockMovements(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("GET /api/raw-materials/{}/movements - from: {}, to: {}, limit: {}", id, from, to, limit);
+        List<StockMovementDTO> movements = stockLedgerService.findMovements(id, from, to, limit);
+        return ResponseEntity.ok(movements);
+    }
+    
+    @GetMapping("/{id}/stock/stripes")
+    @Operation(summary = "Get stock striping of a raw material")
+    public ResponseEntity<StockStripesDTO> getStockStripes(@PathVariable Long id) {
+        log.info("GET /api/raw-materials/{}/stock/stripes - Getting stock stripes", id);
+        return ResponseEntity.ok(stockStripingService.describe(id));
+    }
+    
+    /**
+     * PUT /api/raw-materials/{id}/stock/stripes?count=8
+     * Divide o estoque de um material QUENTE em N stripes (count = 0 desliga).
+     * O saldo total não muda.
+     */
+    @PutMapping("/{id}/stock/stripes")
+    @Operation(
+        summary = "Configure stock striping of a raw material",
+        description = "Split the stock of a hot raw material across N stripe rows so concurrent consumption does not "
+                + "contend on a single row lock (count = 0 merges the stripes back). Total stock is unchanged"
+    )
+    public ResponseEntity<StockStripesDTO> configureStockStripes(@PathVariable Long id, @RequestParam int count) {
+        log.info("PUT /api/raw-materials/{}/stock/stripes - Setting {} stripe(s)", id, count);
+        return ResponseEntity.ok(stockStripingService.configure(id, count));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.autoflex.inventory.controller;
+
+import com.autoflex.inventory.dto.SearchResponseDTO;
+import com.autoflex.inventory.service.CatalogSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller da busca do catálogo (autocomplete)
+ * 
+ * Base URL: /api/search
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "In-memory catalog search endpoints")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class SearchController {
+    
+    private final CatalogSearchService catalogSearchService;
+    
+    /**
+     * GET /api/search?q=alum&type=material&limit=10
+     * Busca produtos e matérias-primas por código e nome, sem acentos e sem
+     * diferenciar maiúsculas ("alum" acha "Alumínio", "capo" acha "Capô").
+     * 
+     * @param q Termos da busca (todos precisam casar)
+     * @param type product, material ou vazio (todos)
+     * @param limit Máximo de resultados (padrão 10, até 50)
+     */
+    @GetMapping
+    @Operation(
+        summary = "Search products and raw materials",
+        description = "Accent- and case-insensitive search over code and name served from an in-memory n-gram "
+                + "index, ranked for autocomplete (exact code, code prefix, name prefix, word prefix, substring)"
+    )
+    public ResponseEntity<SearchResponseDTO> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer limit) {
+        log.debug("GET /api/search - q: '{}', type: {}, limit: {}", q, type, limit);
+        return ResponseEntity.ok(catalogSearchService.search(q, type, limit));
+    }
+}
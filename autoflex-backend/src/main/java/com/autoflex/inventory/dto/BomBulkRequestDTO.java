@@ -0,0 +1,19 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BomBulkRequestDTO {
+    @NotEmpty(message = "At least one material is required")
+    @Valid
+    private List<ProductRawMaterialDTO> materials;
+}
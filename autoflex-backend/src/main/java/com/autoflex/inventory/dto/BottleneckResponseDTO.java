@@ -0,0 +1,20 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BottleneckResponseDTO {
+    private List<MaterialBottleneckDTO> bottlenecks;
+    private Integer bottleneckCount;
+    private BigDecimal totalBlockedValue;
+    private Long inventoryVersion;
+    private String generatedAt;
+}
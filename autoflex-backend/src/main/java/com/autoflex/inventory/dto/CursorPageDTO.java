@@ -0,0 +1,20 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private Integer limit;
+    private String sortBy;
+    // Passar em ?cursor= para a próxima página (null = última página)
+    private String nextCursor;
+    private Boolean hasMore;
+}
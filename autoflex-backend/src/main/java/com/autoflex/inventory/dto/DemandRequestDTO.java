@@ -0,0 +1,19 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DemandRequestDTO {
+    @NotEmpty(message = "At least one demand line is required")
+    @Valid
+    private List<DemandLineDTO> lines;
+}
@@ -0,0 +1,21 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressDTO {
+    private String importType;
+    private Integer chunks;
+    private Long rowsRead;
+    private Long created;
+    private Long updated;
+    private Long failed;
+    private Boolean completed;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,29 @@
+package com.autoflex.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uma linha do stream NDJSON de importação CSV
+ * 
+ * type = "error" traz o erro de uma linha do arquivo em error;
+ * type = "progress" traz os contadores após cada bloco gravado em progress;
+ * a última linha, type = "summary", traz os contadores finais em progress
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRecordDTO {
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+    
+    private String type;
+    private ImportRowErrorDTO error;
+    private ImportProgressDTO progress;
+}
@@ -0,0 +1,15 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowErrorDTO {
+    private Integer line;
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterialBottleneckDTO {
+    private Long materialId;
+    private String materialCode;
+    private String materialName;
+    private String unit;
+    private BigDecimal stockQuantity;
+    private Integer limitedProducts;
+    private BigDecimal blockedValue;
+    private BigDecimal shadowPrice;
+    private BigDecimal unitsToUnlockNext;
+    private String unlocksProductCode;
+    private BigDecimal unlocksValue;
+}
@@ -0,0 +1,21 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterialStockDTO {
+    private Long materialId;
+    private String materialCode;
+    private String materialName;
+    private String unit;
+    private BigDecimal initialStock;
+    private BigDecimal consumed;
+    private BigDecimal remainingStock;
+}
@@ -0,0 +1,22 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetRequirementDTO {
+    private Long materialId;
+    private String materialCode;
+    private String materialName;
+    private String unit;
+    private BigDecimal grossRequirement;
+    private BigDecimal availableStock;
+    private BigDecimal shortfall;
+    private Boolean sufficient;
+}
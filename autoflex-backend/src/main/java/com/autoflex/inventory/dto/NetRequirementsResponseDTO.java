@@ -0,0 +1,23 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetRequirementsResponseDTO {
+    private List<NetRequirementDTO> requirements;
+    private Boolean feasible;
+    private Integer shortfallCount;
+    private Integer demandLines;
+    private Long totalUnits;
+    private BigDecimal demandValue;
+    private Long inventoryVersion;
+    private String generatedAt;
+}
@@ -0,0 +1,20 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OptimizationSummaryDTO {
+    private BigDecimal upperBound;
+    private Double optimalityGap;
+    private Boolean optimal;
+    private Integer iterations;
+    private Long elapsedMillis;
+    private Long budgetMillis;
+}
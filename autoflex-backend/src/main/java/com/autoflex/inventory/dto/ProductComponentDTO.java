@@ -0,0 +1,29 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductComponentDTO {
+    private Long id;
+    
+    private Long productId;
+    
+    @NotNull(message = "Component ID is required")
+    private Long componentId;
+    
+    private String componentCode;
+    private String componentName;
+    
+    @NotNull(message = "Required quantity is required")
+    @Positive(message = "Required quantity must be positive")
+    private BigDecimal requiredQuantity;
+}
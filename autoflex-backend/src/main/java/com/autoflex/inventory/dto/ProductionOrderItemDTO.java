@@ -0,0 +1,20 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionOrderItemDTO {
+    private Long productId;
+    private String productCode;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal unitValue;
+    private BigDecimal totalValue;
+}
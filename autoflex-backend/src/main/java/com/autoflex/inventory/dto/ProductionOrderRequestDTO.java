@@ -0,0 +1,23 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionOrderRequestDTO {
+    @NotEmpty(message = "At least one order line is required")
+    @Valid
+    private List<DemandLineDTO> lines;
+    
+    @Size(max = 100, message = "Reference must have at most 100 characters")
+    private String reference;
+}
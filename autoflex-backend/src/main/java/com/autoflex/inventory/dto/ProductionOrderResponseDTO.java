@@ -0,0 +1,22 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionOrderResponseDTO {
+    private String reference;
+    private List<ProductionOrderItemDTO> items;
+    private List<StockLevelDTO> materials;
+    private Long totalUnits;
+    private BigDecimal totalValue;
+    private Long inventoryVersion;
+    private String executedAt;
+}
@@ -19,6 +19,12 @@ public class ProductionResponseDTO {
     private List<String> warnings;
     private Integer totalProductTypes;
     private String generatedAt;
+    private String mode;
+    private List<MaterialStockDTO> remainingStock;
+    private OptimizationSummaryDTO optimization;
+    private String sortBy;
+    private Integer offset;
+    private Integer limit;
 
 
 }
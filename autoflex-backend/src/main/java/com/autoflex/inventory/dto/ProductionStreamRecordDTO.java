@@ -0,0 +1,27 @@
+package com.autoflex.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uma linha do stream NDJSON de sugestões
+ * 
+ * type = "suggestion" traz suggestion; a última linha, type = "summary",
+ * traz os totalizadores e avisos em summary (sem a lista de sugestões)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductionStreamRecordDTO {
+    public static final String SUGGESTION = "suggestion";
+    public static final String SUMMARY = "summary";
+    
+    private String type;
+    private ProductionSuggestionDTO suggestion;
+    private ProductionResponseDTO summary;
+}
@@ -25,8 +25,15 @@ public class RawMaterialDTO {
     private Integer usedInProductsCount;
 
     
+    // Saldo gravado (linha + stripes): é o valor editável
     @PositiveOrZero(message = "Stock quantity must be zero or positive")
     private BigDecimal stockQuantity;
+
+    // Somente leitura: baixas aceitas pelo write-behind e ainda não gravadas (null = nenhuma)
+    private BigDecimal pendingStockDelta;
+
+    // Somente leitura: stockQuantity + pendingStockDelta
+    private BigDecimal availableStock;
     
     @NotBlank(message = "Unit is required")
     private String unit;
@@ -0,0 +1,22 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioDTO {
+    private String name;
+    
+    @Valid
+    private List<StockDeltaDTO> stockDeltas;
+    
+    @Valid
+    private List<ValueOverrideDTO> valueOverrides;
+}
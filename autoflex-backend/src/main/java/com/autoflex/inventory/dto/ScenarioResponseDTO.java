@@ -0,0 +1,18 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioResponseDTO {
+    private ScenarioResultDTO baseline;
+    private List<ScenarioResultDTO> scenarios;
+    private Long inventoryVersion;
+    private String generatedAt;
+}
@@ -0,0 +1,22 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioResultDTO {
+    private String name;
+    private BigDecimal totalProductionValue;
+    private BigDecimal valueChange;
+    private Integer totalUnits;
+    private Integer totalProductTypes;
+    private Integer affectedProducts;
+    private List<String> warnings;
+}
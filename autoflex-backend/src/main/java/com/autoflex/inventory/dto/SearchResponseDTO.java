@@ -0,0 +1,19 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponseDTO {
+    private String query;
+    private String type;
+    private List<SearchResultDTO> results;
+    private Integer indexedDocuments;
+    private Long elapsedMicros;
+}
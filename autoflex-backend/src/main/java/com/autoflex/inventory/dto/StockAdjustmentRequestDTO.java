@@ -0,0 +1,27 @@
+package com.autoflex.inventory.dto;
+
+import com.autoflex.inventory.entity.StockMovementType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentRequestDTO {
+    @NotEmpty(message = "At least one adjustment is required")
+    @Valid
+    private List<StockDeltaDTO> adjustments;
+    
+    // RECEIPT, CONSUMPTION ou ADJUSTMENT (padrão) no razão de estoque
+    private StockMovementType type;
+    
+    @Size(max = 100, message = "Reference must have at most 100 characters")
+    private String reference;
+}
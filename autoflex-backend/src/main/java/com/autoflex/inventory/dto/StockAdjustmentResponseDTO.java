@@ -0,0 +1,17 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResponseDTO {
+    private List<StockLevelDTO> materials;
+    private Integer adjustedCount;
+    private String appliedAt;
+}
@@ -0,0 +1,22 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfDTO {
+    private Long materialId;
+    private String materialCode;
+    private String materialName;
+    private String unit;
+    private BigDecimal stockQuantity;
+    private LocalDateTime asOf;
+    private LocalDateTime snapshotAt;
+}
@@ -0,0 +1,20 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDeltaDTO {
+    @NotNull(message = "Raw material ID is required")
+    private Long materialId;
+    
+    @NotNull(message = "Delta is required")
+    private BigDecimal delta;
+}
@@ -0,0 +1,21 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDTO {
+    private Long id;
+    private Long materialId;
+    private String type;
+    private BigDecimal quantity;
+    private String reference;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,21 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockStripesDTO {
+    private Long materialId;
+    private String materialCode;
+    private Integer stripes;
+    private BigDecimal rowQuantity;
+    private List<BigDecimal> stripeQuantities;
+    private BigDecimal stockQuantity;
+}
@@ -0,0 +1,22 @@
+package com.autoflex.inventory.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValueOverrideDTO {
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+    
+    @NotNull(message = "Value is required")
+    @PositiveOrZero(message = "Value must be zero or positive")
+    private BigDecimal value;
+}
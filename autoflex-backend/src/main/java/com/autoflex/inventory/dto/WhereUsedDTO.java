@@ -0,0 +1,19 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhereUsedDTO {
+    private Long productId;
+    private String productCode;
+    private String productName;
+    private BigDecimal requiredPerUnit;
+    private String unit;
+}
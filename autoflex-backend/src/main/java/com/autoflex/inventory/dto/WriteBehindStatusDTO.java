@@ -0,0 +1,20 @@
+package com.autoflex.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WriteBehindStatusDTO {
+    private Integer accepted;
+    private Integer pendingEvents;
+    private Integer pendingMaterials;
+    private Integer queuedSegments;
+    private Long flushedBatches;
+    private Long rejectedDeltas;
+    private String lastFlushAt;
+}
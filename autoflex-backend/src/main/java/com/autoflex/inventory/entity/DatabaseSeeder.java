@@ -43,16 +43,16 @@ public class DatabaseSeeder implements CommandLineRunner {
         // Seed raw materials
         em.createNativeQuery("""
             INSERT INTO raw_materials
-                (code, name, unit, stock_quantity, minimum_stock, unit_cost, created_at, updated_at)
+                (id, code, name, unit, stock_quantity, minimum_stock, unit_cost, created_at, updated_at)
             VALUES
-                ('MP001', 'Aço Inoxidável', 'kg', 500.00, 100.00, 25.50, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP002', 'Alumínio 6061', 'kg', 300.00, 50.00, 18.75, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP003', 'Borracha EPDM', 'kg', 150.00, 30.00, 12.30, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP004', 'Plástico ABS', 'kg', 200.00, 40.00, 8.90, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP005', 'Parafuso M8', 'unidade', 5000.00, 1000.00, 0.25, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP006', 'Tinta Automotiva Preta', 'litro', 80.00, 20.00, 45.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP007', 'Vidro Temperado', 'm²', 50.00, 10.00, 85.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('MP008', 'Espuma Poliuretano', 'kg', 100.00, 25.00, 15.60, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                (nextval('raw_materials_id_seq'), 'MP001', 'Aço Inoxidável', 'kg', 500.00, 100.00, 25.50, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP002', 'Alumínio 6061', 'kg', 300.00, 50.00, 18.75, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP003', 'Borracha EPDM', 'kg', 150.00, 30.00, 12.30, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP004', 'Plástico ABS', 'kg', 200.00, 40.00, 8.90, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP005', 'Parafuso M8', 'unidade', 5000.00, 1000.00, 0.25, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP006', 'Tinta Automotiva Preta', 'litro', 80.00, 20.00, 45.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP007', 'Vidro Temperado', 'm²', 50.00, 10.00, 85.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('raw_materials_id_seq'), 'MP008', 'Espuma Poliuretano', 'kg', 100.00, 25.00, 15.60, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
             ON CONFLICT (code) DO NOTHING
         """).executeUpdate();
 
@@ -61,13 +61,13 @@ public class DatabaseSeeder implements CommandLineRunner {
         // Seed products
         em.createNativeQuery("""
             INSERT INTO products
-                (code, name, value, created_at, updated_at)
+                (id, code, name, value, created_at, updated_at)
             VALUES
-                ('PROD001', 'Retrovisor Externo Direito', 285.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('PROD002', 'Para-choque Dianteiro', 450.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('PROD003', 'Capô do Motor', 680.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('PROD004', 'Banco Dianteiro Motorista', 1250.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-                ('PROD005', 'Painel de Instrumentos', 890.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                (nextval('products_id_seq'), 'PROD001', 'Retrovisor Externo Direito', 285.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('products_id_seq'), 'PROD002', 'Para-choque Dianteiro', 450.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('products_id_seq'), 'PROD003', 'Capô do Motor', 680.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('products_id_seq'), 'PROD004', 'Banco Dianteiro Motorista', 1250.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+                (nextval('products_id_seq'), 'PROD005', 'Painel de Instrumentos', 890.00, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
             ON CONFLICT (code) DO NOTHING
         """).executeUpdate();
 
@@ -92,22 +92,22 @@ public class DatabaseSeeder implements CommandLineRunner {
         // Insert product_raw_materials
         em.createNativeQuery(String.format("""
             INSERT INTO product_raw_materials
-                (product_id, raw_material_id, required_quantity)
+                (id, product_id, raw_material_id, required_quantity)
             VALUES
-                (%d, %d, 0.800),
-                (%d, %d, 0.150),
-                (%d, %d, 3.000),
-                (%d, %d, 4.500),
-                (%d, %d, 0.300),
-                (%d, %d, 8.000),
-                (%d, %d, 12.000),
-                (%d, %d, 0.500),
-                (%d, %d, 0.200),
-                (%d, %d, 3.500),
-                (%d, %d, 2.200),
-                (%d, %d, 12.000),
-                (%d, %d, 1.800),
-                (%d, %d, 0.250)
+                (nextval('product_raw_materials_id_seq'), %d, %d, 0.800),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 0.150),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 3.000),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 4.500),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 0.300),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 8.000),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 12.000),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 0.500),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 0.200),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 3.500),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 2.200),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 12.000),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 1.800),
+                (nextval('product_raw_materials_id_seq'), %d, %d, 0.250)
         """,
                 p1, rmMap.get("MP004"),
                 p1, rmMap.get("MP007"),
@@ -0,0 +1,278 @@
+package com.autoflex.inventory.entity;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gerador de massa de dados SINTÉTICA para testes de carga e benchmarks
+ *
+ * Ativado com o profile "generate":
+ *   java -jar autoflex.jar --spring.profiles.active=generate \
+ *        --inventory.generator.products=1000000 --inventory.generator.seed=7
+ *
+ * Parâmetros (inventory.generator.*, ver application.properties):
+ * - products / materials: volumes do catálogo
+ * - min-fan-out / max-fan-out: linhas de BOM por produto (uniforme no intervalo)
+ * - common-material-ratio: fração das linhas que usa o grupo de materiais
+ *   COMUNS (5% dos materiais: parafusos, tinta...), o resto é espalhado
+ * - component-ratio: fração dos produtos que usa 1 ou 2 sub-montagens
+ *   (sempre produtos gerados ANTES, então o grafo nunca tem ciclo)
+ * - zero-stock-ratio / max-stock: distribuição do estoque
+ * - seed: mesma semente + mesmos parâmetros = mesmo catálogo
+ *
+ * Velocidade: JDBC batch (JdbcTemplate.batchUpdate) em blocos de batch-size
+ * linhas, um commit por bloco. Com reWriteBatchedInserts=true na URL do
+ * PostgreSQL, cada bloco vira poucos INSERT multi-linha.
+ *
+ * IDs via nextval das mesmas sequences das entidades (pooled-lo: cada valor
+ * tirado aqui nunca cai em um bloco reservado pela aplicação).
+ *
+ * Os códigos gerados usam o prefixo GEN- e não colidem com o DatabaseSeeder.
+ * Se já houver produtos GEN- no banco, nada é gerado.
+ */
+@Slf4j
+@Component
+@Profile("generate")
+@RequiredArgsConstructor
+public class DatasetGenerator implements CommandLineRunner {
+
+    private static final String MATERIAL_PREFIX = "GEN-MP";
+    private static final String PRODUCT_PREFIX = "GEN-P";
+    private static final String[] UNITS = {"kg", "unidade", "litro", "m²", "m"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationContext applicationContext;
+
+    @Value("${inventory.generator.products:10000}")
+    private int productCount;
+
+    @Value("${inventory.generator.materials:1000}")
+    private int materialCount;
+
+    @Value("${inventory.generator.min-fan-out:3}")
+    private int minFanOut;
+
+    @Value("${inventory.generator.max-fan-out:12}")
+    private int maxFanOut;
+
+    @Value("${inventory.generator.common-material-ratio:0.5}")
+    private double commonMaterialRatio;
+
+    @Value("${inventory.generator.component-ratio:0.0}")
+    private double componentRatio;
+
+    @Value("${inventory.generator.zero-stock-ratio:0.1}")
+    private double zeroStockRatio;
+
+    @Value("${inventory.generator.max-stock:50000}")
+    private int maxStock;
+
+    @Value("${inventory.generator.seed:42}")
+    private long seed;
+
+    @Value("${inventory.generator.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${inventory.generator.exit-on-finish:false}")
+    private boolean exitOnFinish;
+
+    @Override
+    public void run(String... args) {
+        validate();
+
+        Long existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE code LIKE '" + PRODUCT_PREFIX + "%'", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Generated dataset already present ({} products); skipping generation", existing);
+            finish();
+            return;
+        }
+
+        log.info("Generating dataset: {} products, {} materials, fan-out {}-{}, seed {}",
+                productCount, materialCount, minFanOut, maxFanOut, seed);
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Cada etapa tem o próprio Random: o resultado não depende do batch-size
+        insertMaterials(new Random(seed), now);
+        long[] materialIds = loadIds("raw_materials", MATERIAL_PREFIX, materialCount);
+
+        insertProducts(new Random(seed + 1), now);
+        long[] productIds = loadIds("products", PRODUCT_PREFIX, productCount);
+
+        long bomLines = insertBomLines(new Random(seed + 2), productIds, materialIds);
+        long componentLines = insertComponentLines(new Random(seed + 3), productIds);
+
+        log.info("Dataset generated in {} ms: {} materials, {} products, {} BOM lines, {} component lines",
+                (System.nanoTime() - start) / 1_000_000, materialCount, productCount, bomLines, componentLines);
+        finish();
+    }
+
+    private void validate() {
+        if (productCount <= 0 || materialCount <= 0 || batchSize <= 0) {
+            throw new IllegalStateException("inventory.generator products, materials and batch-size must be positive");
+        }
+        if (maxStock <= 0 || maxStock >= 10_000_000) {
+            throw new IllegalStateException("inventory.generator.max-stock must be between 1 and 9999999");
+        }
+        if (minFanOut < 0 || maxFanOut < minFanOut || maxFanOut > materialCount) {
+            throw new IllegalStateException(
+                    "inventory.generator fan-out must satisfy 0 <= min-fan-out <= max-fan-out <= materials");
+        }
+    }
+
+    private void insertMaterials(Random random, Timestamp now) {
+        String sql = "INSERT INTO raw_materials (id, code, name, unit, stock_quantity, created_at, updated_at) "
+                + "VALUES (nextval('raw_materials_id_seq'), ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int m = 0; m < materialCount; m++) {
+            BigDecimal stock = random.nextDouble() < zeroStockRatio
+                    ? BigDecimal.ZERO.setScale(3)
+                    : BigDecimal.valueOf(random.nextLong(maxStock * 1000L) + 1, 3);
+            batch.add(new Object[] {
+                    code(MATERIAL_PREFIX, m), "Material " + m, UNITS[random.nextInt(UNITS.length)], stock, now, now});
+            flushIfFull(sql, batch, false);
+        }
+        flushIfFull(sql, batch, true);
+    }
+
+    private void insertProducts(Random random, Timestamp now) {
+        String sql = "INSERT INTO products (id, code, name, value, created_at, updated_at) "
+                + "VALUES (nextval('products_id_seq'), ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int p = 0; p < productCount; p++) {
+            // Poucos produtos caros, muitos baratos (cauda longa)
+            double factor = Math.exp(random.nextGaussian() * 1.2);
+            long cents = Math.min(99_999_999L, Math.max(100L, Math.round(15_000 * factor)));
+            batch.add(new Object[] {code(PRODUCT_PREFIX, p), "Product " + p, BigDecimal.valueOf(cents, 2), now, now});
+            flushIfFull(sql, batch, false);
+        }
+        flushIfFull(sql, batch, true);
+    }
+
+    private long insertBomLines(Random random, long[] productIds, long[] materialIds) {
+        String sql = "INSERT INTO product_raw_materials (id, product_id, raw_material_id, required_quantity) "
+                + "VALUES (nextval('product_raw_materials_id_seq'), ?, ?, ?)";
+        int commonCount = Math.max(1, materialCount / 20);
+        boolean[] used = new boolean[materialCount];
+        int[] picked = new int[maxFanOut];
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long lines = 0;
+
+        for (int p = 0; p < productCount; p++) {
+            int fanOut = minFanOut + random.nextInt(maxFanOut - minFanOut + 1);
+            int count = 0;
+            while (count < fanOut) {
+                int m = random.nextDouble() < commonMaterialRatio || commonCount == materialCount
+                        ? random.nextInt(commonCount)
+                        : commonCount + random.nextInt(materialCount - commonCount);
+                // Materiais distintos por produto (unique product_id + raw_material_id)
+                if (used[m]) {
+                    m = nextUnused(used, m);
+                }
+                used[m] = true;
+                picked[count++] = m;
+                batch.add(new Object[] {
+                        productIds[p], materialIds[m], BigDecimal.valueOf(1 + random.nextInt(5_000), 3)});
+                flushIfFull(sql, batch, false);
+            }
+            for (int i = 0; i < count; i++) {
+                used[picked[i]] = false;
+            }
+            lines += count;
+        }
+        flushIfFull(sql, batch, true);
+        return lines;
+    }
+
+    private long insertComponentLines(Random random, long[] productIds) {
+        if (componentRatio <= 0 || productCount < 2) {
+            return 0;
+        }
+        String sql = "INSERT INTO product_components (id, product_id, component_id, required_quantity) "
+                + "VALUES (nextval('product_components_id_seq'), ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long lines = 0;
+
+        for (int p = 1; p < productCount; p++) {
+            if (random.nextDouble() >= componentRatio) {
+                continue;
+            }
+            // Só produtos anteriores: grafo acíclico por construção
+            int first = random.nextInt(p);
+            batch.add(new Object[] {productIds[p], productIds[first], BigDecimal.valueOf(1 + random.nextInt(4), 0)});
+            lines++;
+            if (p > 1 && random.nextBoolean()) {
+                int second = random.nextInt(p);
+                if (second != first) {
+                    batch.add(new Object[] {productIds[p], productIds[second], BigDecimal.ONE});
+                    lines++;
+                }
+            }
+            flushIfFull(sql, batch, false);
+        }
+        flushIfFull(sql, batch, true);
+        return lines;
+    }
+
+    private static int nextUnused(boolean[] used, int from) {
+        int m = from;
+        do {
+            m = (m + 1) % used.length;
+        } while (used[m]);
+        return m;
+    }
+
+    /**
+     * Grava o bloco em UMA transação quando ele atinge batch-size (ou sempre, se force)
+     */
+    private void flushIfFull(String sql, List<Object[]> batch, boolean force) {
+        if (batch.isEmpty() || (!force && batch.size() < batchSize)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        batch.clear();
+    }
+
+    /**
+     * IDs gerados pelo banco, na ordem de geração (códigos com zeros à esquerda)
+     */
+    private long[] loadIds(String table, String prefix, int count) {
+        long[] ids = new long[count];
+        int[] index = {0};
+        jdbcTemplate.query("SELECT id FROM " + table + " WHERE code LIKE '" + prefix + "%' ORDER BY code",
+                rs -> {
+                    ids[index[0]++] = rs.getLong(1);
+                });
+        if (index[0] != count) {
+            throw new IllegalStateException("Expected " + count + " generated rows in " + table + " but found " + index[0]);
+        }
+        return ids;
+    }
+
+    private static String code(String prefix, int ordinal) {
+        return String.format("%s%08d", prefix, ordinal);
+    }
+
+    private void finish() {
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+}
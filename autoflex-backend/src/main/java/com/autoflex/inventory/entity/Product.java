@@ -10,14 +10,20 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+       indexes = {
+           // Listagem paginada (keyset) por nome e por valor; prefixos em db/migration/002_listing_indexes.sql
+           @Index(name = "idx_products_name_id", columnList = "name, id"),
+           @Index(name = "idx_products_value_id", columnList = "value, id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false, length = 50)
@@ -32,6 +38,9 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ProductRawMaterial> rawMaterials = new HashSet<>();
     
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    private Set<ProductComponent> components = new HashSet<>();
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
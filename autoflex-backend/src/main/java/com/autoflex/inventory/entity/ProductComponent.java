@@ -0,0 +1,35 @@
+package com.autoflex.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * Linha de BOM multinível: um produto (sub-montagem) usado como componente de outro
+ */
+@Entity
+@Table(name = "product_components",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "component_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductComponent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_components_seq")
+    @SequenceGenerator(name = "product_components_seq", sequenceName = "product_components_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "component_id", nullable = false)
+    private Product component;
+    
+    @Column(name = "required_quantity", nullable = false, precision = 10, scale = 3)
+    private BigDecimal requiredQuantity;
+}
@@ -8,14 +8,17 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "product_raw_materials",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "raw_material_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "raw_material_id"}),
+       // Contagem de uso por matéria-prima (a unique começa por product_id)
+       indexes = @Index(name = "idx_product_raw_materials_material", columnList = "raw_material_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductRawMaterial {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_raw_materials_seq")
+    @SequenceGenerator(name = "product_raw_materials_seq", sequenceName = "product_raw_materials_id_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -10,14 +10,21 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "raw_materials")
+@Table(name = "raw_materials",
+       indexes = {
+           // Listagem paginada (keyset) por nome e filtro por unidade; prefixos e estoque baixo em
+           // db/migration/002_listing_indexes.sql
+           @Index(name = "idx_raw_materials_name_id", columnList = "name, id"),
+           @Index(name = "idx_raw_materials_unit_code", columnList = "unit, code")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class RawMaterial {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "raw_materials_seq")
+    @SequenceGenerator(name = "raw_materials_seq", sequenceName = "raw_materials_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false, length = 50)
@@ -0,0 +1,36 @@
+package com.autoflex.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Gravação do write-behind já confirmada no banco (uma linha por referência)
+ *
+ * Gravada na MESMA transação que aplica os deltas de um segmento do journal;
+ * no replay de um segmento com resultado incerto, basta buscar pelo
+ * segment_id para saber o que não pode ser gravado de novo (sem varrer
+ * stock_movements). As linhas saem quando o arquivo do segmento é apagado,
+ * então a tabela fica pequena.
+ */
+@Entity
+@Table(name = "stock_journal_applied",
+       indexes = @Index(name = "idx_stock_journal_applied_segment", columnList = "segment_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockJournalApplied {
+
+    // "write-behind <segmento>" ou "write-behind <segmento>:<TYPE>:<materialId>"
+    @Id
+    @Column(length = 120)
+    private String reference;
+
+    @Column(name = "segment_id", nullable = false, updatable = false, length = 40)
+    private String segmentId;
+
+    @Column(name = "applied_at", nullable = false, updatable = false)
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,46 @@
+package com.autoflex.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimentação IMUTÁVEL de estoque (razão append-only)
+ * 
+ * Só recebe INSERT. raw_material_id não tem chave estrangeira de propósito:
+ * gravar no razão não trava a linha (quente) da matéria-prima, e o
+ * histórico sobrevive à exclusão do material.
+ */
+@Entity
+@Table(name = "stock_movements",
+       indexes = @Index(name = "idx_stock_movements_material_time", columnList = "raw_material_id, occurred_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "raw_material_id", nullable = false, updatable = false)
+    private Long rawMaterialId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 20)
+    private StockMovementType type;
+    
+    // Com sinal: positivo = entrada, negativo = saída
+    @Column(nullable = false, updatable = false, precision = 12, scale = 3)
+    private BigDecimal quantity;
+    
+    @Column(updatable = false, length = 100)
+    private String reference;
+    
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,16 @@
+package com.autoflex.inventory.entity;
+
+/**
+ * Tipos de movimentação do razão de estoque
+ * 
+ * OPENING     => saldo inicial (criação do material ou início do razão)
+ * RECEIPT     => entrada de mercadoria (quantidade positiva)
+ * CONSUMPTION => consumo na produção (quantidade negativa)
+ * ADJUSTMENT  => correção manual, inventário, perdas (qualquer sinal)
+ */
+public enum StockMovementType {
+    OPENING,
+    RECEIPT,
+    CONSUMPTION,
+    ADJUSTMENT
+}
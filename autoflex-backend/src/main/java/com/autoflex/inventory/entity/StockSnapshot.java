@@ -0,0 +1,36 @@
+package com.autoflex.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de uma matéria-prima em um instante, consolidado a partir do razão
+ * 
+ * saldo(T) = snapshot mais recente <= T + SOMA(movimentações até T)
+ */
+@Entity
+@Table(name = "stock_snapshots",
+       indexes = @Index(name = "idx_stock_snapshots_material_time", columnList = "raw_material_id, taken_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshots_seq")
+    @SequenceGenerator(name = "stock_snapshots_seq", sequenceName = "stock_snapshots_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "raw_material_id", nullable = false, updatable = false)
+    private Long rawMaterialId;
+    
+    @Column(name = "stock_quantity", nullable = false, updatable = false, precision = 12, scale = 3)
+    private BigDecimal stockQuantity;
+    
+    @Column(name = "taken_at", nullable = false, updatable = false)
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,39 @@
+package com.autoflex.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * Fatia (stripe) do estoque de uma matéria-prima QUENTE
+ * 
+ * Saldo do material = raw_materials.stock_quantity + SOMA(stripes). Consumos
+ * concorrentes atualizam stripes diferentes em vez de disputar a mesma linha.
+ * Sem chave estrangeira, como o razão: a linha do material não é travada
+ * por quem escreve nas stripes.
+ */
+@Entity
+@Table(name = "stock_stripes",
+       uniqueConstraints = @UniqueConstraint(name = "uk_stock_stripes_material_stripe",
+                                             columnNames = {"raw_material_id", "stripe"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockStripe {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_stripes_seq")
+    @SequenceGenerator(name = "stock_stripes_seq", sequenceName = "stock_stripes_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "raw_material_id", nullable = false, updatable = false)
+    private Long rawMaterialId;
+    
+    @Column(nullable = false, updatable = false)
+    private Integer stripe;
+    
+    @Column(nullable = false, precision = 10, scale = 3)
+    private BigDecimal quantity;
+}
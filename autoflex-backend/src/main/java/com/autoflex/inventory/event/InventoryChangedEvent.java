@@ -0,0 +1,41 @@
+package com.autoflex.inventory.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Evento publicado pelos services a cada escrita no inventário
+ *
+ * Os ouvintes (motor de sugestão, caches) reagem após o COMMIT da transação
+ * usando @TransactionalEventListener.
+ *
+ * ids:
+ * - PRODUCT_* e BOM_CHANGED => IDs de produtos
+ * - MATERIAL_* e STOCK_CHANGED => IDs de matérias-primas
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class InventoryChangedEvent {
+
+    public enum Kind {
+        PRODUCT_CREATED,
+        PRODUCT_UPDATED,
+        PRODUCT_DELETED,
+        MATERIAL_CREATED,
+        MATERIAL_UPDATED,
+        MATERIAL_DELETED,
+        STOCK_CHANGED,
+        BOM_CHANGED
+    }
+
+    private final Kind kind;
+    private final List<Long> ids;
+
+    public static InventoryChangedEvent of(Kind kind, Long id) {
+        return new InventoryChangedEvent(kind, List.of(id));
+    }
+}
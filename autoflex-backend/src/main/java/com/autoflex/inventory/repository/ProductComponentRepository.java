@@ -0,0 +1,45 @@
+package com.autoflex.inventory.repository;
+
+import com.autoflex.inventory.entity.ProductComponent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductComponentRepository extends JpaRepository<ProductComponent, Long> {
+    List<ProductComponent> findByProductId(Long productId);
+    @Query("SELECT pc FROM ProductComponent pc WHERE pc.product.id = :productId AND pc.component.id = :componentId")
+    Optional<ProductComponent> findByProductIdAndComponentId(Long productId, Long componentId);
+    void deleteByProductIdAndComponentId(Long productId, Long componentId);
+    boolean existsByComponentId(Long componentId);
+    @Query("SELECT pc.product.id AS productId, pc.component.id AS componentId, pc.requiredQuantity AS requiredQuantity FROM ProductComponent pc ORDER BY pc.id")
+    List<ComponentLineView> findAllComponentLines();
+    @Query("SELECT pc.product.id AS productId, pc.component.id AS componentId, pc.requiredQuantity AS requiredQuantity FROM ProductComponent pc WHERE pc.product.id IN :productIds ORDER BY pc.id")
+    List<ComponentLineView> findComponentLinesByProductIds(Collection<Long> productIds);
+    /**
+     * true se targetId é o próprio componentId ou um descendente dele (CTE recursiva
+     * pelo índice de product_id; só percorre a sub-árvore do componente)
+     */
+    @Query(value = """
+            WITH RECURSIVE descendants(id) AS (
+                SELECT CAST(:componentId AS bigint)
+                UNION
+                SELECT pc.component_id FROM product_components pc JOIN descendants d ON pc.product_id = d.id
+            )
+            SELECT EXISTS (SELECT 1 FROM descendants WHERE id = :targetId)
+            """, nativeQuery = true)
+    boolean isDescendantOrSelf(Long componentId, Long targetId);
+
+    /**
+     * Projeção plana de uma linha de componente (sem carregar entidades associadas)
+     */
+    interface ComponentLineView {
+        Long getProductId();
+        Long getComponentId();
+        BigDecimal getRequiredQuantity();
+    }
+}
@@ -4,6 +4,8 @@ import com.autoflex.inventory.entity.ProductRawMaterial;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +16,27 @@ public interface ProductRawMaterialRepository extends JpaRepository<ProductRawMa
     @Query("SELECT prm FROM ProductRawMaterial prm WHERE prm.product.id = :productId AND prm.rawMaterial.id = :rawMaterialId")
     Optional<ProductRawMaterial> findByProductIdAndRawMaterialId(Long productId, Long rawMaterialId);
     void deleteByProductIdAndRawMaterialId(Long productId, Long rawMaterialId);
+    @Query("SELECT prm.product.id AS productId, prm.rawMaterial.id AS rawMaterialId, prm.requiredQuantity AS requiredQuantity FROM ProductRawMaterial prm ORDER BY prm.id")
+    List<BomLineView> findAllBomLines();
+    @Query("SELECT prm.product.id AS productId, prm.rawMaterial.id AS rawMaterialId, prm.requiredQuantity AS requiredQuantity FROM ProductRawMaterial prm WHERE prm.product.id IN :productIds ORDER BY prm.id")
+    List<BomLineView> findBomLinesByProductIds(Collection<Long> productIds);
+    @Query("SELECT prm.rawMaterial.id AS rawMaterialId, COUNT(prm) AS products FROM ProductRawMaterial prm WHERE prm.rawMaterial.id IN :rawMaterialIds GROUP BY prm.rawMaterial.id")
+    List<MaterialUsageView> countProductsByRawMaterialIds(Collection<Long> rawMaterialIds);
+
+    /**
+     * Projeção plana de uma linha de BOM (sem carregar entidades associadas)
+     */
+    interface BomLineView {
+        Long getProductId();
+        Long getRawMaterialId();
+        BigDecimal getRequiredQuantity();
+    }
+
+    /**
+     * Quantidade de produtos que usam a matéria-prima (GROUP BY, sem carregar a coleção)
+     */
+    interface MaterialUsageView {
+        Long getRawMaterialId();
+        Long getProducts();
+    }
 }
@@ -11,7 +11,7 @@ import java.util.Optional;
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByCode(String code);
     List<Product> findAllByOrderByValueDesc();
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.rawMaterials WHERE p.id = :id")
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.rawMaterials prm LEFT JOIN FETCH prm.rawMaterial WHERE p.id = :id")
     Optional<Product> findByIdWithMaterials(Long id);
     boolean existsByCode(String code);
 }
@@ -1,7 +1,11 @@
 package com.autoflex.inventory.repository;
 
 import com.autoflex.inventory.entity.RawMaterial;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -9,4 +13,13 @@ import java.util.Optional;
 public interface RawMaterialRepository extends JpaRepository<RawMaterial, Long> {
     Optional<RawMaterial> findByCode(String code);
     boolean existsByCode(String code);
+    
+    /**
+     * Carrega a matéria-prima com SELECT ... FOR UPDATE
+     * Usado antes de gravar um saldo absoluto: o delta registrado no razão
+     * parte de um saldo que nenhuma outra transação pode alterar até o commit
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM RawMaterial m WHERE m.id = :id")
+    Optional<RawMaterial> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,14 @@
+package com.autoflex.inventory.repository;
+
+import com.autoflex.inventory.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    List<StockMovement> findByRawMaterialIdAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+            Long rawMaterialId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+}
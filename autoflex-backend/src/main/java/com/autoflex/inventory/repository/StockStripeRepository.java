@@ -0,0 +1,25 @@
+package com.autoflex.inventory.repository;
+
+import com.autoflex.inventory.entity.StockStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockStripeRepository extends JpaRepository<StockStripe, Long> {
+    @Query("SELECT s.rawMaterialId AS rawMaterialId, SUM(s.quantity) AS quantity FROM StockStripe s GROUP BY s.rawMaterialId")
+    List<StripedTotalView> sumQuantityByRawMaterial();
+    @Query("SELECT s.rawMaterialId AS rawMaterialId, SUM(s.quantity) AS quantity FROM StockStripe s WHERE s.rawMaterialId IN :rawMaterialIds GROUP BY s.rawMaterialId")
+    List<StripedTotalView> sumQuantityByRawMaterialIds(Collection<Long> rawMaterialIds);
+
+    /**
+     * Saldo de um material fatiado nas stripes (GROUP BY, materiais sem stripes não aparecem)
+     */
+    interface StripedTotalView {
+        Long getRawMaterialId();
+        BigDecimal getQuantity();
+    }
+}
@@ -0,0 +1,194 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.ComponentLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Explosão de BOM multinível (sub-montagens) com MEMOIZAÇÃO
+ *
+ * Cada produto tem matérias-primas diretas e componentes (outros produtos).
+ * O vetor ACHATADO de um produto é:
+ *
+ *   achatado(p) = diretas(p) + SOMA(qtd_c * achatado(c))  para cada componente c
+ *
+ * - Cada vetor é calculado uma única vez (busca em profundidade em pós-ordem,
+ *   ou seja, componentes antes de quem os usa = ordem topológica) e guardado
+ * - Alterar a BOM de um produto invalida apenas ele e seus ancestrais
+ *   (grafo reverso "usado em"); o resto do catálogo mantém os vetores
+ * - Quantidades multiplicadas são arredondadas PARA CIMA na escala 3, para
+ *   nunca subestimar o consumo de material
+ *
+ * Ciclos são barrados na escrita (ProductComponentService); se mesmo assim
+ * existir um, a aresta que fecha o ciclo é ignorada e registrada em log.
+ *
+ * NÃO é thread-safe: pertence ao ProductionEngine e é usada sob o monitor dele.
+ */
+@Slf4j
+final class BomExplosion {
+
+    private static final long QUANTITY_ONE = 1000;
+
+    private final Map<Long, List<BomLine>> direct = new HashMap<>();
+    private final Map<Long, List<ComponentLine>> components = new HashMap<>();
+    private final Map<Long, Set<Long>> parents = new HashMap<>();
+    private final Map<Long, List<BomLine>> flattened = new HashMap<>();
+
+    static BomExplosion of(CatalogSnapshot snapshot) {
+        BomExplosion explosion = new BomExplosion();
+        for (ProductEntry product : snapshot.getProducts()) {
+            explosion.direct.put(product.getId(), product.getLines());
+            explosion.components.put(product.getId(), product.getComponents());
+            for (ComponentLine component : product.getComponents()) {
+                explosion.parents.computeIfAbsent(component.getComponentId(), id -> new HashSet<>())
+                        .add(product.getId());
+            }
+        }
+        return explosion;
+    }
+
+    /**
+     * Fotografia com as linhas de cada produto substituídas pelo vetor achatado
+     *
+     * Sem nenhum componente no catálogo, devolve a própria fotografia.
+     */
+    CatalogSnapshot explode(CatalogSnapshot snapshot) {
+        if (parents.isEmpty()) {
+            return snapshot;
+        }
+        List<ProductEntry> products = new ArrayList<>(snapshot.getProducts().size());
+        for (ProductEntry product : snapshot.getProducts()) {
+            products.add(new ProductEntry(product.getId(), product.getCode(), product.getName(),
+                    product.getValue(), flatten(product.getId())));
+        }
+        return new CatalogSnapshot(products, snapshot.getMaterials());
+    }
+
+    /**
+     * Substitui a BOM (diretas + componentes) dos produtos informados
+     *
+     * @return os próprios produtos e todos os seus ancestrais, cujos vetores
+     *         achatados foram invalidados
+     */
+    Set<Long> replace(Map<Long, List<BomLine>> newDirect, Map<Long, List<ComponentLine>> newComponents) {
+        Set<Long> changed = new HashSet<>(newDirect.keySet());
+        changed.addAll(newComponents.keySet());
+
+        for (Long productId : changed) {
+            for (ComponentLine old : components.getOrDefault(productId, List.of())) {
+                Set<Long> users = parents.get(old.getComponentId());
+                if (users != null) {
+                    users.remove(productId);
+                    if (users.isEmpty()) {
+                        parents.remove(old.getComponentId());
+                    }
+                }
+            }
+            List<ComponentLine> replacement = newComponents.getOrDefault(productId, List.of());
+            direct.put(productId, newDirect.getOrDefault(productId, List.of()));
+            components.put(productId, replacement);
+            for (ComponentLine component : replacement) {
+                parents.computeIfAbsent(component.getComponentId(), id -> new HashSet<>()).add(productId);
+            }
+        }
+
+        Set<Long> affected = ancestors(changed);
+        for (Long productId : affected) {
+            flattened.remove(productId);
+        }
+        return affected;
+    }
+
+    /**
+     * Vetor achatado de matérias-primas por unidade do produto (memoizado)
+     */
+    List<BomLine> flatten(Long productId) {
+        return flatten(productId, new HashSet<>());
+    }
+
+    private List<BomLine> flatten(Long productId, Set<Long> path) {
+        List<BomLine> cached = flattened.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<BomLine> own = direct.getOrDefault(productId, List.of());
+        List<ComponentLine> parts = components.getOrDefault(productId, List.of());
+        if (parts.isEmpty()) {
+            flattened.put(productId, own);
+            return own;
+        }
+
+        // Materiais diretos primeiro (mesma ordem do cadastro), depois os dos componentes
+        Map<Long, long[]> units = new LinkedHashMap<>();
+        Map<Long, MaterialEntry> materials = new HashMap<>();
+        for (BomLine line : own) {
+            accumulate(units, materials, line, BomMatrix.toUnits(line.getRequiredQuantity(), BomMatrix.QUANTITY_SCALE));
+        }
+
+        path.add(productId);
+        for (ComponentLine part : parts) {
+            Long componentId = part.getComponentId();
+            if (path.contains(componentId)) {
+                log.warn("BOM cycle detected: product {} uses {} which is already in its explosion path; ignoring",
+                        productId, componentId);
+                continue;
+            }
+            if (!direct.containsKey(componentId)) {
+                log.warn("Product {} uses unknown component {}; ignoring", productId, componentId);
+                continue;
+            }
+            long quantity = BomMatrix.toUnits(part.getRequiredQuantity(), BomMatrix.QUANTITY_SCALE);
+            for (BomLine line : flatten(componentId, path)) {
+                long perUnit = BomMatrix.toUnits(line.getRequiredQuantity(), BomMatrix.QUANTITY_SCALE);
+                long scaled = Math.multiplyExact(quantity, perUnit);
+                accumulate(units, materials, line, (scaled + QUANTITY_ONE - 1) / QUANTITY_ONE);
+            }
+        }
+        path.remove(productId);
+
+        List<BomLine> result = new ArrayList<>(units.size());
+        for (Map.Entry<Long, long[]> entry : units.entrySet()) {
+            result.add(new BomLine(materials.get(entry.getKey()),
+                    BomMatrix.toDecimal(entry.getValue()[0], BomMatrix.QUANTITY_SCALE)));
+        }
+        flattened.put(productId, result);
+        return result;
+    }
+
+    private static void accumulate(Map<Long, long[]> units, Map<Long, MaterialEntry> materials,
+                                   BomLine line, long required) {
+        Long materialId = line.getMaterial().getId();
+        materials.putIfAbsent(materialId, line.getMaterial());
+        long[] total = units.computeIfAbsent(materialId, id -> new long[1]);
+        total[0] = Math.addExact(total[0], required);
+    }
+
+    /**
+     * Produtos informados + todos que os usam direta ou indiretamente
+     */
+    private Set<Long> ancestors(Set<Long> productIds) {
+        Set<Long> result = new HashSet<>(productIds);
+        Deque<Long> queue = new ArrayDeque<>(productIds);
+        while (!queue.isEmpty()) {
+            for (Long parent : parents.getOrDefault(queue.poll(), Set.of())) {
+                if (result.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,415 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Matriz de BOM compilada em formato CSR (compressed sparse row)
+ *
+ * Todos os valores são inteiros de ponto fixo (long):
+ * - stock_quantity e required_quantity na escala 3 (milésimos)
+ * - value na escala 2 (centavos)
+ *
+ * Linhas = produtos (ordinal = posição na ordem por valor, maior primeiro)
+ * Colunas = matérias-primas (ordinal = posição na fotografia)
+ *
+ * As linhas de BOM do produto p ocupam as posições
+ * rowStart[p] até rowStart[p + 1] - 1 de materialIndex/required.
+ *
+ * O cálculo não aloca nada por linha de BOM; a conversão para BigDecimal
+ * acontece apenas na montagem dos DTOs.
+ *
+ * Também mantém o índice reverso (CSC): para cada matéria-prima, os produtos
+ * que a utilizam (mesma relação de findByRawMaterialId).
+ *
+ * A matriz é IMUTÁVEL: alterações de BOM ou de cadastro geram uma nova instância.
+ */
+public final class BomMatrix {
+
+    public static final int QUANTITY_SCALE = 3;
+    public static final int VALUE_SCALE = 2;
+
+    // Produtos
+    private final long[] productIds;
+    private final String[] productCodes;
+    private final String[] productNames;
+    private final long[] productValues;
+
+    // Matérias-primas
+    private final long[] materialIds;
+    private final String[] materialCodes;
+    private final String[] materialNames;
+    private final String[] materialUnits;
+    private final long[] materialStock;
+
+    // CSR
+    private final int[] rowStart;
+    private final int[] materialIndex;
+    private final long[] required;
+
+    // Índice reverso: material -> produtos
+    private final int[] usageStart;
+    private final int[] usageProducts;
+
+    // ID -> ordinal
+    private final Map<Long, Integer> productOrdinals;
+    private final Map<String, Integer> productCodeOrdinals;
+    private final Map<Long, Integer> materialOrdinals;
+
+    private BomMatrix(long[] productIds, String[] productCodes, String[] productNames, long[] productValues,
+                      long[] materialIds, String[] materialCodes, String[] materialNames, String[] materialUnits,
+                      long[] materialStock, int[] rowStart, int[] materialIndex, long[] required,
+                      Map<Long, Integer> productOrdinals, Map<String, Integer> productCodeOrdinals,
+                      Map<Long, Integer> materialOrdinals) {
+        this.productIds = productIds;
+        this.productCodes = productCodes;
+        this.productNames = productNames;
+        this.productValues = productValues;
+        this.materialIds = materialIds;
+        this.materialCodes = materialCodes;
+        this.materialNames = materialNames;
+        this.materialUnits = materialUnits;
+        this.materialStock = materialStock;
+        this.rowStart = rowStart;
+        this.materialIndex = materialIndex;
+        this.required = required;
+        this.productOrdinals = productOrdinals;
+        this.productCodeOrdinals = productCodeOrdinals;
+        this.materialOrdinals = materialOrdinals;
+
+        // Montar índice reverso por contagem (duas passadas sobre a CSR)
+        this.usageStart = new int[materialIds.length + 1];
+        this.usageProducts = new int[required.length];
+        for (int k = 0; k < required.length; k++) {
+            usageStart[materialIndex[k] + 1]++;
+        }
+        for (int m = 0; m < materialIds.length; m++) {
+            usageStart[m + 1] += usageStart[m];
+        }
+        int[] next = Arrays.copyOf(usageStart, materialIds.length);
+        for (int p = 0; p < productIds.length; p++) {
+            for (int k = rowStart[p]; k < rowStart[p + 1]; k++) {
+                usageProducts[next[materialIndex[k]]++] = p;
+            }
+        }
+    }
+
+    /**
+     * Compila a fotografia do catálogo na matriz CSR
+     */
+    public static BomMatrix compile(CatalogSnapshot snapshot) {
+        List<MaterialEntry> materials = snapshot.getMaterials();
+        int materialCount = materials.size();
+
+        long[] materialIds = new long[materialCount];
+        String[] materialCodes = new String[materialCount];
+        String[] materialNames = new String[materialCount];
+        String[] materialUnits = new String[materialCount];
+        long[] materialStock = new long[materialCount];
+        Map<Long, Integer> ordinals = new HashMap<>(materialCount * 2);
+
+        for (int m = 0; m < materialCount; m++) {
+            MaterialEntry material = materials.get(m);
+            materialIds[m] = material.getId();
+            materialCodes[m] = material.getCode();
+            materialNames[m] = material.getName();
+            materialUnits[m] = material.getUnit();
+            materialStock[m] = toUnits(material.getStockQuantity(), QUANTITY_SCALE);
+            ordinals.put(material.getId(), m);
+        }
+
+        List<ProductEntry> products = snapshot.getProducts();
+        int productCount = products.size();
+        int nonZeros = 0;
+        for (ProductEntry product : products) {
+            nonZeros += product.getLines().size();
+        }
+
+        long[] productIds = new long[productCount];
+        String[] productCodes = new String[productCount];
+        String[] productNames = new String[productCount];
+        long[] productValues = new long[productCount];
+        int[] rowStart = new int[productCount + 1];
+        int[] materialIndex = new int[nonZeros];
+        long[] required = new long[nonZeros];
+
+        Map<Long, Integer> productOrdinals = new HashMap<>(productCount * 2);
+        Map<String, Integer> productCodeOrdinals = new HashMap<>(productCount * 2);
+        int k = 0;
+        for (int p = 0; p < productCount; p++) {
+            ProductEntry product = products.get(p);
+            productOrdinals.put(product.getId(), p);
+            productCodeOrdinals.put(product.getCode(), p);
+            productIds[p] = product.getId();
+            productCodes[p] = product.getCode();
+            productNames[p] = product.getName();
+            productValues[p] = toUnits(product.getValue(), VALUE_SCALE);
+            rowStart[p] = k;
+            for (BomLine line : product.getLines()) {
+                materialIndex[k] = ordinals.get(line.getMaterial().getId());
+                required[k] = toUnits(line.getRequiredQuantity(), QUANTITY_SCALE);
+                k++;
+            }
+        }
+        rowStart[productCount] = k;
+
+        return new BomMatrix(productIds, productCodes, productNames, productValues,
+                materialIds, materialCodes, materialNames, materialUnits, materialStock,
+                rowStart, materialIndex, required, productOrdinals, productCodeOrdinals, ordinals);
+    }
+
+    /**
+     * Nova matriz com as linhas de BOM dos produtos informados substituídas
+     *
+     * @param rows ordinal do produto -> novas linhas (materiais já existentes na matriz)
+     */
+    public BomMatrix withRows(Map<Integer, List<BomLine>> rows) {
+        int nonZeros = required.length;
+        for (Map.Entry<Integer, List<BomLine>> row : rows.entrySet()) {
+            int p = row.getKey();
+            nonZeros += row.getValue().size() - (rowStart[p + 1] - rowStart[p]);
+        }
+
+        int[] newRowStart = new int[rowStart.length];
+        int[] newMaterialIndex = new int[nonZeros];
+        long[] newRequired = new long[nonZeros];
+        int k = 0;
+        for (int p = 0; p < productIds.length; p++) {
+            newRowStart[p] = k;
+            List<BomLine> replacement = rows.get(p);
+            if (replacement == null) {
+                int length = rowStart[p + 1] - rowStart[p];
+                System.arraycopy(materialIndex, rowStart[p], newMaterialIndex, k, length);
+                System.arraycopy(required, rowStart[p], newRequired, k, length);
+                k += length;
+            } else {
+                for (BomLine line : replacement) {
+                    newMaterialIndex[k] = materialOrdinals.get(line.getMaterial().getId());
+                    newRequired[k] = toUnits(line.getRequiredQuantity(), QUANTITY_SCALE);
+                    k++;
+                }
+            }
+        }
+        newRowStart[productIds.length] = k;
+
+        return new BomMatrix(productIds, productCodes, productNames, productValues,
+                materialIds, materialCodes, materialNames, materialUnits, materialStock,
+                newRowStart, newMaterialIndex, newRequired, productOrdinals, productCodeOrdinals, materialOrdinals);
+    }
+
+    /**
+     * Nova matriz com o cadastro (código, nome, unidade) de uma matéria-prima atualizado
+     */
+    public BomMatrix withMaterialInfo(int material, String code, String name, String unit) {
+        String[] codes = materialCodes.clone();
+        String[] names = materialNames.clone();
+        String[] units = materialUnits.clone();
+        codes[material] = code;
+        names[material] = name;
+        units[material] = unit;
+        return new BomMatrix(productIds, productCodes, productNames, productValues,
+                materialIds, codes, names, units, materialStock,
+                rowStart, materialIndex, required, productOrdinals, productCodeOrdinals, materialOrdinals);
+    }
+
+    // ========================================================================
+    // CÁLCULO
+    // ========================================================================
+
+    /**
+     * Quantidade máxima produzível do produto com o estoque informado
+     *
+     * Mesma regra do cálculo em BigDecimal:
+     * - estoque zero em qualquer material => 0
+     * - senão MIN(estoque / necessário), arredondado para baixo
+     * - produto sem materiais => 0
+     */
+    public int maxQuantity(int product, long[] stock) {
+        int maxQuantity = Integer.MAX_VALUE;
+        for (int k = rowStart[product], end = rowStart[product + 1]; k < end; k++) {
+            long availableStock = stock[materialIndex[k]];
+            if (availableStock == 0) {
+                maxQuantity = 0;
+                continue;
+            }
+            int possibleUnits = (int) (availableStock / required[k]);
+            maxQuantity = Math.min(maxQuantity, possibleUnits);
+        }
+        return maxQuantity == Integer.MAX_VALUE ? 0 : maxQuantity;
+    }
+
+    /**
+     * Mesma regra de maxQuantity(int, long[]), lendo o estoque por função
+     * (visões copy-on-write como ScenarioStock)
+     */
+    public int maxQuantity(int product, IntToLongFunction stock) {
+        int maxQuantity = Integer.MAX_VALUE;
+        for (int k = rowStart[product], end = rowStart[product + 1]; k < end; k++) {
+            long availableStock = stock.applyAsLong(materialIndex[k]);
+            if (availableStock == 0) {
+                maxQuantity = 0;
+                continue;
+            }
+            int possibleUnits = (int) (availableStock / required[k]);
+            maxQuantity = Math.min(maxQuantity, possibleUnits);
+        }
+        return maxQuantity == Integer.MAX_VALUE ? 0 : maxQuantity;
+    }
+
+    /**
+     * Desconta do estoque o consumo de quantity unidades do produto
+     */
+    public void consume(int product, int quantity, long[] stock) {
+        for (int k = rowStart[product], end = rowStart[product + 1]; k < end; k++) {
+            stock[materialIndex[k]] -= totalRequired(k, quantity);
+        }
+    }
+
+    /**
+     * Valor total (centavos) de produzir quantity unidades do produto
+     */
+    public long totalValue(int product, int quantity) {
+        return Math.multiplyExact(productValues[product], (long) quantity);
+    }
+
+    /**
+     * Quantidade total necessária (milésimos) da linha k para quantity unidades
+     */
+    public long totalRequired(int k, int quantity) {
+        return Math.multiplyExact(required[k], (long) quantity);
+    }
+
+    // ========================================================================
+    // CONVERSÃO DE ESCALA
+    // ========================================================================
+
+    /**
+     * BigDecimal -> inteiro escalado (as colunas do banco já têm essa escala)
+     */
+    public static long toUnits(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Inteiro escalado -> BigDecimal (usado apenas na montagem dos DTOs)
+     */
+    public static BigDecimal toDecimal(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    // ========================================================================
+    // ACESSO
+    // ========================================================================
+
+    public int productCount() {
+        return productIds.length;
+    }
+
+    public int materialCount() {
+        return materialIds.length;
+    }
+
+    public int nonZeroCount() {
+        return required.length;
+    }
+
+    public long productId(int product) {
+        return productIds[product];
+    }
+
+    public String productCode(int product) {
+        return productCodes[product];
+    }
+
+    public String productName(int product) {
+        return productNames[product];
+    }
+
+    public long productValue(int product) {
+        return productValues[product];
+    }
+
+    public long materialId(int material) {
+        return materialIds[material];
+    }
+
+    public String materialCode(int material) {
+        return materialCodes[material];
+    }
+
+    public String materialName(int material) {
+        return materialNames[material];
+    }
+
+    public String materialUnit(int material) {
+        return materialUnits[material];
+    }
+
+    /**
+     * Ordinal do produto pelo ID (-1 se não existir na matriz)
+     */
+    public int productOrdinal(Long productId) {
+        return productOrdinals.getOrDefault(productId, -1);
+    }
+
+    /**
+     * Ordinal do produto pelo código (-1 se não existir na matriz)
+     */
+    public int productOrdinalByCode(String code) {
+        return productCodeOrdinals.getOrDefault(code, -1);
+    }
+
+    /**
+     * Ordinal da matéria-prima pelo ID (-1 se não existir na matriz)
+     */
+    public int materialOrdinal(Long materialId) {
+        return materialOrdinals.getOrDefault(materialId, -1);
+    }
+
+    public int usageStart(int material) {
+        return usageStart[material];
+    }
+
+    public int usageEnd(int material) {
+        return usageStart[material + 1];
+    }
+
+    /**
+     * Ordinal do produto na posição i do índice reverso
+     */
+    public int productAt(int i) {
+        return usageProducts[i];
+    }
+
+    public int rowStart(int product) {
+        return rowStart[product];
+    }
+
+    public int rowEnd(int product) {
+        return rowStart[product + 1];
+    }
+
+    public int materialAt(int k) {
+        return materialIndex[k];
+    }
+
+    public long requiredAt(int k) {
+        return required[k];
+    }
+
+    /**
+     * Cópia do vetor de estoque da fotografia (o chamador pode alterá-la)
+     */
+    public long[] copyStock() {
+        return materialStock.clone();
+    }
+}
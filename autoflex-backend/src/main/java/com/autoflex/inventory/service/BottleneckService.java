@@ -0,0 +1,153 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.BottleneckResponseDTO;
+import com.autoflex.inventory.dto.MaterialBottleneckDTO;
+import com.autoflex.inventory.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service de análise de GARGALOS de matéria-prima
+ *
+ * Para cada produto, a quantidade máxima é MIN(estoque / necessário); o
+ * material que dá esse mínimo é o LIMITANTE. Quando ele é o único limitante
+ * (sem empate com outro material), comprar mais dele aumenta a produção.
+ *
+ * Indicadores por matéria-prima (modo INDEPENDENT):
+ * - limitedProducts: produtos em que ela é o único limitante
+ * - blockedValue: valor que esses produtos ganhariam se ela deixasse de
+ *   limitar, até o PRÓXIMO limitante de cada um (produtos que só usam esse
+ *   material não entram: o ganho não tem limite)
+ * - shadowPrice: valor marginal de 1 unidade a mais do material
+ *   (relaxação contínua: SOMA(valor_p / necessário_p) nos produtos limitados)
+ * - unitsToUnlockNext: menor compra que libera +1 unidade de algum produto,
+ *   e qual produto/valor ela libera
+ *
+ * Calculado em UMA passada sobre a matriz CSR: cada linha de BOM é visitada
+ * uma vez, guardando o menor e o segundo menor limite do produto, e os
+ * indicadores são acumulados em arrays primitivos por ordinal de material.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BottleneckService {
+
+    private final ProductionEngine productionEngine;
+
+    /**
+     * @param limit Quantidade máxima de materiais na resposta (null = todos)
+     * @return Materiais limitantes, do que mais bloqueia valor para o que menos bloqueia
+     */
+    public BottleneckResponseDTO analyze(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new BusinessException("limit must be greater than 0");
+        }
+        ProductionState state = productionEngine.current();
+        BomMatrix matrix = state.matrix();
+        long[] stock = state.stock();
+        int materialCount = matrix.materialCount();
+        log.info("Starting bottleneck analysis: {} products, {} materials (inventory version {})",
+                matrix.productCount(), materialCount, state.version());
+
+        int[] limitedProducts = new int[materialCount];
+        long[] blockedValue = new long[materialCount];
+        double[] shadowPrice = new double[materialCount];
+        long[] unlockUnits = new long[materialCount];
+        int[] unlockProduct = new int[materialCount];
+        Arrays.fill(unlockUnits, Long.MAX_VALUE);
+
+        for (int p = 0; p < matrix.productCount(); p++) {
+            // Menor limite (e o material), quantos materiais empatam nele e o segundo menor
+            long lowest = Long.MAX_VALUE;
+            long next = Long.MAX_VALUE;
+            int binding = -1;
+            int ties = 0;
+            for (int k = matrix.rowStart(p); k < matrix.rowEnd(p); k++) {
+                long capacity = stock[matrix.materialAt(k)] / matrix.requiredAt(k);
+                if (capacity < lowest) {
+                    next = lowest;
+                    lowest = capacity;
+                    binding = k;
+                    ties = 1;
+                } else if (capacity == lowest) {
+                    next = lowest;
+                    ties++;
+                } else if (capacity < next) {
+                    next = capacity;
+                }
+            }
+            if (binding < 0 || ties > 1) {
+                // Sem materiais, ou empate: comprar um único material não libera produção
+                continue;
+            }
+
+            int m = matrix.materialAt(binding);
+            long required = matrix.requiredAt(binding);
+            int quantity = state.maxQuantity(p);
+            long value = matrix.productValue(p);
+
+            limitedProducts[m]++;
+            if (next != Long.MAX_VALUE) {
+                blockedValue[m] = Math.addExact(blockedValue[m], Math.multiplyExact(value, next - quantity));
+            }
+            // centavos / milésimos => valor (moeda) por unidade do material
+            shadowPrice[m] += value * 10.0 / required;
+
+            long need = Math.subtractExact(Math.multiplyExact(required, (long) quantity + 1), stock[m]);
+            if (need < unlockUnits[m] || (need == unlockUnits[m] && value > matrix.productValue(unlockProduct[m]))) {
+                unlockUnits[m] = need;
+                unlockProduct[m] = p;
+            }
+        }
+
+        List<MaterialBottleneckDTO> bottlenecks = new ArrayList<>();
+        long totalBlocked = 0;
+        for (int m = 0; m < materialCount; m++) {
+            if (limitedProducts[m] == 0) {
+                continue;
+            }
+            totalBlocked = Math.addExact(totalBlocked, blockedValue[m]);
+            int product = unlockProduct[m];
+            bottlenecks.add(MaterialBottleneckDTO.builder()
+                    .materialId(matrix.materialId(m))
+                    .materialCode(matrix.materialCode(m))
+                    .materialName(matrix.materialName(m))
+                    .unit(matrix.materialUnit(m))
+                    .stockQuantity(BomMatrix.toDecimal(stock[m], BomMatrix.QUANTITY_SCALE))
+                    .limitedProducts(limitedProducts[m])
+                    .blockedValue(BomMatrix.toDecimal(blockedValue[m], BomMatrix.VALUE_SCALE))
+                    .shadowPrice(BigDecimal.valueOf(shadowPrice[m]).setScale(BomMatrix.VALUE_SCALE, RoundingMode.HALF_UP))
+                    .unitsToUnlockNext(BomMatrix.toDecimal(unlockUnits[m], BomMatrix.QUANTITY_SCALE))
+                    .unlocksProductCode(matrix.productCode(product))
+                    .unlocksValue(BomMatrix.toDecimal(matrix.productValue(product), BomMatrix.VALUE_SCALE))
+                    .build());
+        }
+        bottlenecks.sort(Comparator.comparing(MaterialBottleneckDTO::getBlockedValue)
+                .thenComparing(MaterialBottleneckDTO::getShadowPrice)
+                .reversed());
+        int count = bottlenecks.size();
+        if (limit != null && count > limit) {
+            bottlenecks = new ArrayList<>(bottlenecks.subList(0, limit));
+        }
+
+        log.info("Bottleneck analysis finished: {} limiting material(s)", count);
+
+        return BottleneckResponseDTO.builder()
+                .bottlenecks(bottlenecks)
+                .bottleneckCount(count)
+                .totalBlockedValue(BomMatrix.toDecimal(totalBlocked, BomMatrix.VALUE_SCALE))
+                .inventoryVersion(state.version())
+                .generatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.SearchResponseDTO;
+import com.autoflex.inventory.dto.SearchResultDTO;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.service.SearchIndex.Document;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Busca de produtos e matérias-primas por código e nome (autocomplete)
+ *
+ * O índice (SearchIndex) fica em memória: a busca não consulta o banco nem
+ * percorre o catálogo, e o navegador não precisa baixar as listas completas.
+ *
+ * - Carga completa ao subir a aplicação (id, code, name das duas tabelas)
+ * - Depois, INCREMENTAL pelos InventoryChangedEvent (após o commit):
+ *   criação/alteração recarrega só os IDs do evento, remoção tira do índice.
+ *   Estoque e BOM não mudam código nem nome e são ignorados.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogSearchService {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile SearchIndex index = new SearchIndex();
+
+    /**
+     * Reconstrói o índice inteiro e troca de uma vez
+     * (synchronized: eventos que chegam durante a carga são aplicados no índice novo)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        SearchIndex rebuilt = new SearchIndex();
+        for (SearchType type : SearchType.values()) {
+            jdbcTemplate.query("SELECT id, code, name FROM " + table(type), rs -> {
+                rebuilt.put(type, rs.getLong(1), rs.getString(2), rs.getString(3));
+            });
+        }
+        index = rebuilt;
+        log.info("Catalog search index built in {} ms: {} documents",
+                (System.nanoTime() - start) / 1_000_000, rebuilt.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onInventoryChanged(InventoryChangedEvent event) {
+        switch (event.getKind()) {
+            case PRODUCT_CREATED, PRODUCT_UPDATED -> reload(SearchType.PRODUCT, event.getIds());
+            case MATERIAL_CREATED, MATERIAL_UPDATED -> reload(SearchType.MATERIAL, event.getIds());
+            case PRODUCT_DELETED -> event.getIds().forEach(id -> index.remove(SearchType.PRODUCT, id));
+            case MATERIAL_DELETED -> event.getIds().forEach(id -> index.remove(SearchType.MATERIAL, id));
+            default -> {
+                // Estoque e BOM: código e nome não mudam
+            }
+        }
+    }
+
+    /**
+     * @param query Termos (todos precisam casar); 3+ letras casam em qualquer
+     *              posição da palavra, 1-2 letras no início
+     * @param type product, material ou null (todos)
+     * @param limit Máximo de resultados (padrão 10, até 50)
+     */
+    public SearchResponseDTO search(String query, String type, Integer limit) {
+        int max = limit != null ? limit : DEFAULT_LIMIT;
+        if (max <= 0 || max > MAX_LIMIT) {
+            throw new BusinessException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (query != null && query.length() > MAX_QUERY_LENGTH) {
+            throw new BusinessException("Search query must have at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        SearchType searchType = SearchType.from(type);
+
+        long start = System.nanoTime();
+        SearchIndex current = index;
+        List<Document> documents = current.search(query, searchType, max);
+        long elapsed = (System.nanoTime() - start) / 1_000;
+
+        List<SearchResultDTO> results = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            results.add(SearchResultDTO.builder()
+                    .type(document.type().name())
+                    .id(document.id())
+                    .code(document.code())
+                    .name(document.name())
+                    .build());
+        }
+        log.debug("Search '{}' ({}): {} result(s) in {} us", query, searchType, results.size(), elapsed);
+        return SearchResponseDTO.builder()
+                .query(query)
+                .type(searchType != null ? searchType.name() : null)
+                .results(results)
+                .indexedDocuments(current.size())
+                .elapsedMicros(elapsed)
+                .build();
+    }
+
+    /**
+     * Recarrega código e nome dos IDs; os que não existem mais saem do índice
+     */
+    private void reload(SearchType type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        SearchIndex current = index;
+        Set<Long> missing = new HashSet<>(ids);
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, code, name FROM " + table(type) + " WHERE id = ANY(?::bigint[])");
+                    ps.setArray(1, con.createArrayOf("text", ids.stream().map(String::valueOf).toArray()));
+                    return ps;
+                },
+                rs -> {
+                    long id = rs.getLong(1);
+                    current.put(type, id, rs.getString(2), rs.getString(3));
+                    missing.remove(id);
+                });
+        missing.forEach(id -> current.remove(type, id));
+    }
+
+    private static String table(SearchType type) {
+        return type == SearchType.PRODUCT ? "products" : "raw_materials";
+    }
+}
@@ -0,0 +1,80 @@
+package com.autoflex.inventory.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fotografia imutável do catálogo usada pelo algoritmo de sugestão de produção
+ *
+ * Contém produtos (ordenados por valor, maior primeiro), matérias-primas e
+ * linhas de BOM já resolvidas em memória. Depois de carregada, nenhuma
+ * consulta ao banco é necessária para calcular as sugestões.
+ */
+@Getter
+public class CatalogSnapshot {
+
+    private final List<ProductEntry> products;
+    private final List<MaterialEntry> materials;
+
+    public CatalogSnapshot(List<ProductEntry> products, List<MaterialEntry> materials) {
+        this.products = Collections.unmodifiableList(products);
+        this.materials = Collections.unmodifiableList(materials);
+    }
+
+    /**
+     * Produto com suas linhas de BOM
+     *
+     * lines = matérias-primas diretas; components = sub-montagens (outros
+     * produtos). Depois da explosão (BomExplosion), lines passa a conter o
+     * vetor ACHATADO de matérias-primas por unidade e components fica vazio.
+     */
+    @Value
+    @AllArgsConstructor
+    public static class ProductEntry {
+        Long id;
+        String code;
+        String name;
+        BigDecimal value;
+        List<BomLine> lines;
+        List<ComponentLine> components;
+
+        public ProductEntry(Long id, String code, String name, BigDecimal value, List<BomLine> lines) {
+            this(id, code, name, value, lines, List.of());
+        }
+    }
+
+    /**
+     * Matéria-prima com estoque no momento da carga
+     */
+    @Value
+    public static class MaterialEntry {
+        Long id;
+        String code;
+        String name;
+        String unit;
+        BigDecimal stockQuantity;
+    }
+
+    /**
+     * Linha de BOM: quanto de uma matéria-prima é necessário por unidade do produto
+     */
+    @Value
+    public static class BomLine {
+        MaterialEntry material;
+        BigDecimal requiredQuantity;
+    }
+
+    /**
+     * Linha de BOM multinível: quanto de outro produto é necessário por unidade
+     */
+    @Value
+    public static class ComponentLine {
+        Long componentId;
+        BigDecimal requiredQuantity;
+    }
+}
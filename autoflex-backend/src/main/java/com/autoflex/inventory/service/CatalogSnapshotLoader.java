@@ -0,0 +1,215 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.entity.Product;
+import com.autoflex.inventory.entity.RawMaterial;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.repository.ProductComponentRepository;
+import com.autoflex.inventory.repository.ProductComponentRepository.ComponentLineView;
+import com.autoflex.inventory.repository.ProductRawMaterialRepository;
+import com.autoflex.inventory.repository.ProductRawMaterialRepository.BomLineView;
+import com.autoflex.inventory.repository.ProductRepository;
+import com.autoflex.inventory.repository.RawMaterialRepository;
+import com.autoflex.inventory.repository.StockStripeRepository;
+import com.autoflex.inventory.repository.StockStripeRepository.StripedTotalView;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.ComponentLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Carrega o catálogo completo em um número FIXO de consultas
+ *
+ * 1. Produtos ordenados por valor (maior primeiro)
+ * 2. Todas as matérias-primas, e o saldo das stripes somado por material
+ * 3. Todas as linhas de BOM (projeção plana, sem associações LAZY)
+ * 4. Todas as linhas de componentes (sub-montagens), também em projeção
+ *
+ * A quantidade de consultas não cresce com o tamanho do catálogo.
+ *
+ * As consultas rodam em REPEATABLE READ: todas leem o MESMO snapshot do banco.
+ * Em READ COMMITTED cada uma veria os commits feitos entre elas, e uma linha
+ * de BOM gravada junto com um material novo depois da consulta de materiais
+ * apontaria para um material ausente do catálogo. Se a carga participar de
+ * uma transação já aberta (o isolamento dela prevalece), linhas cujo material
+ * não veio são DESCARTADAS e o produto é marcado para recarga (BOM_CHANGED).
+ *
+ * O estoque de cada material já inclui as baixas aceitas pelo write-behind
+ * e ainda não gravadas (PendingStockDeltas).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogSnapshotLoader {
+
+    private final ProductRepository productRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+    private final ProductRawMaterialRepository productRawMaterialRepository;
+    private final ProductComponentRepository productComponentRepository;
+    private final StockStripeRepository stockStripeRepository;
+    private final PendingStockDeltas pendingStockDeltas;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CatalogSnapshot load() {
+        List<Product> products = productRepository.findAllByOrderByValueDesc();
+        List<RawMaterial> rawMaterials = rawMaterialRepository.findAll();
+        Map<Long, BigDecimal> striped = toMap(stockStripeRepository.sumQuantityByRawMaterial());
+        List<BomLineView> bomLines = productRawMaterialRepository.findAllBomLines();
+        List<ComponentLineView> componentLines = productComponentRepository.findAllComponentLines();
+
+        Map<Long, MaterialEntry> materialsById = new HashMap<>(rawMaterials.size() * 2);
+        List<MaterialEntry> materials = new ArrayList<>(rawMaterials.size());
+        for (RawMaterial rm : rawMaterials) {
+            MaterialEntry entry = toEntry(rm, striped);
+            materialsById.put(rm.getId(), entry);
+            materials.add(entry);
+        }
+
+        // Agrupar linhas de BOM por produto
+        Map<Long, List<BomLine>> linesByProduct = new HashMap<>(products.size() * 2);
+        Set<Long> incomplete = new HashSet<>();
+        for (BomLineView line : bomLines) {
+            MaterialEntry material = materialsById.get(line.getRawMaterialId());
+            if (material == null) {
+                incomplete.add(line.getProductId());
+                continue;
+            }
+            linesByProduct.computeIfAbsent(line.getProductId(), id -> new ArrayList<>())
+                    .add(new BomLine(material, line.getRequiredQuantity()));
+        }
+        flagForReload(incomplete);
+
+        Map<Long, List<ComponentLine>> componentsByProduct = groupComponents(componentLines);
+
+        List<ProductEntry> entries = new ArrayList<>(products.size());
+        for (Product p : products) {
+            entries.add(new ProductEntry(
+                    p.getId(), p.getCode(), p.getName(), p.getValue(),
+                    linesByProduct.getOrDefault(p.getId(), List.of()),
+                    componentsByProduct.getOrDefault(p.getId(), List.of())));
+        }
+
+        log.info("Catalog snapshot loaded: {} products, {} materials, {} BOM lines, {} component lines",
+                entries.size(), materials.size(), bomLines.size(), componentLines.size());
+        return new CatalogSnapshot(entries, materials);
+    }
+
+    /**
+     * Recarrega apenas as matérias-primas informadas (cadastro e estoque)
+     */
+    @Transactional(readOnly = true)
+    public List<MaterialEntry> loadMaterials(Collection<Long> materialIds) {
+        List<MaterialEntry> materials = new ArrayList<>(materialIds.size());
+        if (materialIds.isEmpty()) {
+            return materials;
+        }
+        Map<Long, BigDecimal> striped = toMap(stockStripeRepository.sumQuantityByRawMaterialIds(materialIds));
+        for (RawMaterial rm : rawMaterialRepository.findAllById(materialIds)) {
+            materials.add(toEntry(rm, striped));
+        }
+        return materials;
+    }
+
+    /**
+     * Recarrega as linhas de BOM dos produtos informados (duas consultas, mesmo snapshot)
+     *
+     * @return ID do produto -> linhas (produtos sem linhas aparecem com lista vazia)
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Map<Long, List<BomLine>> loadBomLines(Collection<Long> productIds) {
+        List<BomLineView> bomLines = productRawMaterialRepository.findBomLinesByProductIds(productIds);
+
+        Set<Long> materialIds = new HashSet<>();
+        for (BomLineView line : bomLines) {
+            materialIds.add(line.getRawMaterialId());
+        }
+        Map<Long, MaterialEntry> materialsById = new HashMap<>(materialIds.size() * 2);
+        for (MaterialEntry material : loadMaterials(materialIds)) {
+            materialsById.put(material.getId(), material);
+        }
+
+        Map<Long, List<BomLine>> linesByProduct = new HashMap<>(productIds.size() * 2);
+        for (Long productId : productIds) {
+            linesByProduct.put(productId, new ArrayList<>());
+        }
+        Set<Long> incomplete = new HashSet<>();
+        for (BomLineView line : bomLines) {
+            MaterialEntry material = materialsById.get(line.getRawMaterialId());
+            if (material == null) {
+                incomplete.add(line.getProductId());
+                continue;
+            }
+            linesByProduct.get(line.getProductId()).add(new BomLine(material, line.getRequiredQuantity()));
+        }
+        flagForReload(incomplete);
+        return linesByProduct;
+    }
+
+    /**
+     * Recarrega as linhas de componentes dos produtos informados
+     *
+     * @return ID do produto -> componentes (produtos sem componentes aparecem com lista vazia)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<ComponentLine>> loadComponentLines(Collection<Long> productIds) {
+        Map<Long, List<ComponentLine>> componentsByProduct = groupComponents(
+                productComponentRepository.findComponentLinesByProductIds(productIds));
+        for (Long productId : productIds) {
+            componentsByProduct.putIfAbsent(productId, new ArrayList<>());
+        }
+        return componentsByProduct;
+    }
+
+    /**
+     * Produtos com linha de BOM descartada (material ausente na leitura): pede
+     * nova carga da BOM, que vê o material e, se preciso, leva à recarga completa
+     */
+    private void flagForReload(Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        log.warn("BOM lines of {} product(s) reference raw materials missing from the snapshot, reload requested: {}",
+                productIds.size(), productIds);
+        eventPublisher.publishEvent(new InventoryChangedEvent(Kind.BOM_CHANGED, List.copyOf(productIds)));
+    }
+
+    private Map<Long, List<ComponentLine>> groupComponents(List<ComponentLineView> componentLines) {
+        Map<Long, List<ComponentLine>> componentsByProduct = new HashMap<>();
+        for (ComponentLineView line : componentLines) {
+            componentsByProduct.computeIfAbsent(line.getProductId(), id -> new ArrayList<>())
+                    .add(new ComponentLine(line.getComponentId(), line.getRequiredQuantity()));
+        }
+        return componentsByProduct;
+    }
+
+    private MaterialEntry toEntry(RawMaterial rm, Map<Long, BigDecimal> striped) {
+        BigDecimal stripedQuantity = striped.get(rm.getId());
+        BigDecimal stock = stripedQuantity == null ? rm.getStockQuantity() : rm.getStockQuantity().add(stripedQuantity);
+        return new MaterialEntry(rm.getId(), rm.getCode(), rm.getName(), rm.getUnit(),
+                pendingStockDeltas.withPending(rm.getId(), stock));
+    }
+
+    private static Map<Long, BigDecimal> toMap(List<StripedTotalView> totals) {
+        Map<Long, BigDecimal> striped = new HashMap<>(totals.size() * 2);
+        for (StripedTotalView total : totals) {
+            striped.put(total.getRawMaterialId(), total.getQuantity());
+        }
+        return striped;
+    }
+}
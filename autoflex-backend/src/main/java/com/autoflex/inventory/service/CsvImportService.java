@@ -0,0 +1,517 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.ImportProgressDTO;
+import com.autoflex.inventory.dto.ImportRecordDTO;
+import com.autoflex.inventory.dto.ImportRowErrorDTO;
+import com.autoflex.inventory.entity.StockMovement;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Service de IMPORTAÇÃO EM MASSA por CSV (matérias-primas, produtos e BOM)
+ *
+ * O arquivo é lido em STREAMING, em blocos de inventory.import.chunk-size linhas:
+ * 1. Cada linha do bloco é validada (erros viram registros "error" com o
+ *    número da linha, e a linha é descartada)
+ * 2. BOM: os códigos do bloco viram IDs com UMA consulta por tabela
+ *    (mapa em memória só do bloco)
+ * 3. Upsert do bloco em UM comando (INSERT ... SELECT FROM unnest(arrays)
+ *    ON CONFLICT DO UPDATE ... RETURNING) e UMA transação por bloco
+ * 4. Eventos de inventário publicados no commit do bloco; registro
+ *    "progress" com os contadores acumulados
+ * 5. Matérias-primas: movimentações do razão de estoque (OPENING para as
+ *    novas, ADJUSTMENT com a diferença de saldo para as existentes)
+ *
+ * Memória limitada a um bloco, independente do tamanho do arquivo.
+ * Regras:
+ * - Código repetido no mesmo arquivo: a última linha vence
+ * - stock_quantity é o saldo GRAVADO (mesmo campo editável do cadastro):
+ *   baixas pendentes do write-behind continuam valendo e o flush as aplica
+ *   sobre o saldo importado
+ * - Blocos já gravados permanecem se um bloco seguinte falhar ou se o
+ *   arquivo estiver malformado (summary com completed = false)
+ * - Linhas de cada bloco são gravadas em ordem de chave, para que
+ *   importações concorrentes travem as linhas sempre na mesma ordem
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CsvImportService {
+
+    private static final int MAX_CHUNK_SIZE = 10_000;
+    // numeric(10,3) e numeric(10,2)
+    private static final BigDecimal MAX_QUANTITY = new BigDecimal("9999999.999");
+    private static final BigDecimal MAX_VALUE = new BigDecimal("99999999.99");
+
+    private static final String UPSERT_MATERIALS = """
+            INSERT INTO raw_materials (id, code, name, unit, stock_quantity, created_at, updated_at)
+            SELECT nextval('raw_materials_id_seq'), r.code, r.name, r.unit, r.stock, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM unnest(?::text[], ?::text[], ?::text[], ?::numeric[]) AS r(code, name, unit, stock)
+            ON CONFLICT (code) DO UPDATE
+               SET name = EXCLUDED.name, unit = EXCLUDED.unit,
+                   stock_quantity = EXCLUDED.stock_quantity, updated_at = EXCLUDED.updated_at
+            RETURNING id, (xmax = 0) AS inserted, stock_quantity
+            """;
+
+    // Saldos anteriores, travados até o commit do bloco (delta exato no razão)
+    private static final String LOCK_MATERIALS = """
+            SELECT id, stock_quantity FROM raw_materials WHERE code = ANY(?::text[]) ORDER BY id FOR UPDATE
+            """;
+
+    private static final String UPSERT_PRODUCTS = """
+            INSERT INTO products (id, code, name, value, created_at, updated_at)
+            SELECT nextval('products_id_seq'), r.code, r.name, r.value, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM unnest(?::text[], ?::text[], ?::numeric[]) AS r(code, name, value)
+            ON CONFLICT (code) DO UPDATE
+               SET name = EXCLUDED.name, value = EXCLUDED.value, updated_at = EXCLUDED.updated_at
+            RETURNING id, (xmax = 0) AS inserted
+            """;
+
+    private static final String UPSERT_BOM = """
+            INSERT INTO product_raw_materials (id, product_id, raw_material_id, required_quantity)
+            SELECT nextval('product_raw_materials_id_seq'), r.product_id, r.material_id, r.required
+            FROM unnest(?::bigint[], ?::bigint[], ?::numeric[]) AS r(product_id, material_id, required)
+            ON CONFLICT (product_id, raw_material_id) DO UPDATE
+               SET required_quantity = EXCLUDED.required_quantity
+            RETURNING product_id, (xmax = 0) AS inserted
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedgerService stockLedgerService;
+    private final StockStripingService stockStripingService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Importa o CSV informado, enviando erros e progresso ao consumer
+     *
+     * @param type Tipo de importação (define as colunas obrigatórias)
+     * @param input Conteúdo do arquivo (UTF-8)
+     * @param consumer Recebe registros "error" e "progress" na ordem em que ocorrem
+     * @return Contadores finais (summary)
+     */
+    public ImportProgressDTO importCsv(ImportType type, InputStream input, Consumer<ImportRecordDTO> consumer) {
+        long start = System.nanoTime();
+        Counters counters = new Counters();
+        int size = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        log.info("Starting {} CSV import (chunk size {})", type, size);
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            int[] columns = resolveColumns(type, reader.readHeader());
+            List<Row> chunk = new ArrayList<>(size);
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                counters.rowsRead++;
+                chunk.add(new Row(reader.lineNumber(), fields, columns));
+                if (chunk.size() == size) {
+                    flush(type, chunk, counters, consumer, start);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                flush(type, chunk, counters, consumer, start);
+            }
+            counters.completed = true;
+        } catch (BusinessException ex) {
+            // Cabeçalho inválido ou CSV malformado: blocos anteriores já foram gravados
+            log.warn("{} CSV import aborted: {}", type, ex.getMessage());
+            consumer.accept(error(null, ex.getMessage()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        ImportProgressDTO summary = counters.toDTO(type, start);
+        log.info("{} CSV import finished: {} row(s) read, {} created, {} updated, {} failed in {} ms",
+                type, summary.getRowsRead(), summary.getCreated(), summary.getUpdated(),
+                summary.getFailed(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    private static int[] resolveColumns(ImportType type, List<String> header) {
+        if (header == null) {
+            throw new BusinessException("CSV file is empty");
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.putIfAbsent(ImportType.normalizeColumn(header.get(i)), i);
+        }
+        int[] columns = new int[type.columns().size()];
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            Integer position = positions.get(ImportType.normalizeColumn(type.columns().get(i)));
+            if (position == null) {
+                missing.add(type.columns().get(i));
+            } else {
+                columns[i] = position;
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new BusinessException("Missing required column(s): " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    // ========================================================================
+    // BLOCOS
+    // ========================================================================
+
+    /**
+     * Valida e grava UM bloco; falha de banco descarta só este bloco
+     */
+    private void flush(ImportType type, List<Row> chunk, Counters counters,
+                       Consumer<ImportRecordDTO> consumer, long start) {
+        Map<String, Row> valid = switch (type) {
+            case MATERIALS -> validateMaterials(chunk, counters, consumer);
+            case PRODUCTS -> validateProducts(chunk, counters, consumer);
+            case BOM -> validateBom(chunk, counters, consumer);
+        };
+        counters.chunks++;
+
+        if (!valid.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(type, valid.values(), counters));
+            } catch (DataAccessException ex) {
+                String message = "Lines " + chunk.get(0).line + "-" + chunk.get(chunk.size() - 1).line
+                        + " not imported: " + ex.getMostSpecificCause().getMessage();
+                log.warn("{} CSV import chunk failed: {}", type, message);
+                counters.failed += valid.size();
+                consumer.accept(error(chunk.get(0).line, message));
+            }
+        }
+
+        consumer.accept(ImportRecordDTO.builder()
+                .type(ImportRecordDTO.PROGRESS)
+                .progress(counters.toDTO(type, start))
+                .build());
+    }
+
+    private Map<String, Row> validateMaterials(List<Row> chunk, Counters counters, Consumer<ImportRecordDTO> consumer) {
+        Map<String, Row> valid = new TreeMap<>();
+        for (Row row : chunk) {
+            try {
+                row.requireAllColumns();
+                String code = row.text(0, "code", 50);
+                row.text(1, "name", 200);
+                row.text(2, "unit", 20);
+                row.decimal(3, "stock_quantity", 3, MAX_QUANTITY, false);
+                keep(valid, code, row, counters);
+            } catch (IllegalArgumentException ex) {
+                reject(row, ex.getMessage(), counters, consumer);
+            }
+        }
+        return valid;
+    }
+
+    private Map<String, Row> validateProducts(List<Row> chunk, Counters counters, Consumer<ImportRecordDTO> consumer) {
+        Map<String, Row> valid = new TreeMap<>();
+        for (Row row : chunk) {
+            try {
+                row.requireAllColumns();
+                String code = row.text(0, "code", 50);
+                row.text(1, "name", 200);
+                row.decimal(2, "value", 2, MAX_VALUE, true);
+                keep(valid, code, row, counters);
+            } catch (IllegalArgumentException ex) {
+                reject(row, ex.getMessage(), counters, consumer);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Valida as linhas de BOM e resolve códigos em IDs (uma consulta por tabela)
+     */
+    private Map<String, Row> validateBom(List<Row> chunk, Counters counters, Consumer<ImportRecordDTO> consumer) {
+        List<Row> parsed = new ArrayList<>(chunk.size());
+        Set<String> productCodes = new HashSet<>();
+        Set<String> materialCodes = new HashSet<>();
+        for (Row row : chunk) {
+            try {
+                row.requireAllColumns();
+                productCodes.add(row.text(0, "product_code", 50));
+                materialCodes.add(row.text(1, "material_code", 50));
+                row.decimal(2, "required_quantity", 3, MAX_QUANTITY, true);
+                parsed.add(row);
+            } catch (IllegalArgumentException ex) {
+                reject(row, ex.getMessage(), counters, consumer);
+            }
+        }
+
+        Map<String, Long> productIds = resolveIds("products", productCodes);
+        Map<String, Long> materialIds = resolveIds("raw_materials", materialCodes);
+        Map<String, Row> valid = new TreeMap<>();
+        for (Row row : parsed) {
+            Long productId = productIds.get(row.values[0]);
+            Long materialId = materialIds.get(row.values[1]);
+            if (productId == null) {
+                reject(row, "Product not found with code: " + row.values[0], counters, consumer);
+            } else if (materialId == null) {
+                reject(row, "Raw material not found with code: " + row.values[1], counters, consumer);
+            } else {
+                row.values[0] = productId.toString();
+                row.values[1] = materialId.toString();
+                keep(valid, String.format("%019d:%019d", productId, materialId), row, counters);
+            }
+        }
+        return valid;
+    }
+
+    private Map<String, Long> resolveIds(String table, Set<String> codes) {
+        Map<String, Long> ids = new HashMap<>(codes.size() * 2);
+        if (codes.isEmpty()) {
+            return ids;
+        }
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement("SELECT code, id FROM " + table + " WHERE code = ANY(?)");
+                    ps.setArray(1, con.createArrayOf("text", codes.toArray()));
+                    return ps;
+                },
+                rs -> {
+                    ids.put(rs.getString(1), rs.getLong(2));
+                });
+        return ids;
+    }
+
+    /**
+     * Upsert do bloco em um comando e eventos (entregues após o commit)
+     */
+    private void write(ImportType type, Collection<Row> rows, Counters counters) {
+        List<Row> list = new ArrayList<>(rows);
+        int width = type.columns().size();
+        String[][] columns = new String[width][list.size()];
+        for (int r = 0; r < list.size(); r++) {
+            for (int c = 0; c < width; c++) {
+                columns[c][r] = list.get(r).values[c];
+            }
+        }
+
+        Map<Long, BigDecimal> previousStock = new HashMap<>();
+        if (type == ImportType.MATERIALS) {
+            jdbcTemplate.query(
+                    con -> {
+                        PreparedStatement ps = con.prepareStatement(LOCK_MATERIALS);
+                        ps.setArray(1, con.createArrayOf("text", columns[0]));
+                        return ps;
+                    },
+                    rs -> {
+                        previousStock.put(rs.getLong(1), rs.getBigDecimal(2));
+                    });
+        }
+
+        List<Long> created = new ArrayList<>();
+        List<Long> updated = new ArrayList<>();
+        List<Object[]> materialRows = new ArrayList<>();
+        String sql = switch (type) {
+            case MATERIALS -> UPSERT_MATERIALS;
+            case PRODUCTS -> UPSERT_PRODUCTS;
+            case BOM -> UPSERT_BOM;
+        };
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(sql);
+                    for (int c = 0; c < width; c++) {
+                        // Todos os arrays vão como text[]; o SQL converte para bigint[]/numeric[]
+                        ps.setArray(c + 1, con.createArrayOf("text", columns[c]));
+                    }
+                    return ps;
+                },
+                rs -> {
+                    long id = rs.getLong(1);
+                    boolean inserted = rs.getBoolean(2);
+                    (inserted ? created : updated).add(id);
+                    if (type == ImportType.MATERIALS) {
+                        materialRows.add(new Object[] {id, inserted, rs.getBigDecimal(3)});
+                    }
+                });
+        if (type == ImportType.MATERIALS) {
+            // Materiais fatiados: saldo importado vai para as stripes; o anterior incluía as stripes
+            stockStripingService.absorb(previousStock.keySet())
+                    .forEach((id, striped) -> previousStock.merge(id, striped, BigDecimal::add));
+            List<StockMovement> movements = new ArrayList<>(materialRows.size());
+            for (Object[] row : materialRows) {
+                Long id = (Long) row[0];
+                movements.add(stockMovement(id, (Boolean) row[1], (BigDecimal) row[2], previousStock.get(id)));
+            }
+            stockLedgerService.recordAll(movements);
+        }
+
+        switch (type) {
+            case MATERIALS -> {
+                publish(Kind.MATERIAL_CREATED, created);
+                publish(Kind.MATERIAL_UPDATED, updated);
+            }
+            case PRODUCTS -> {
+                publish(Kind.PRODUCT_CREATED, created);
+                publish(Kind.PRODUCT_UPDATED, updated);
+            }
+            case BOM -> {
+                Set<Long> products = new LinkedHashSet<>(created);
+                products.addAll(updated);
+                publish(Kind.BOM_CHANGED, new ArrayList<>(products));
+            }
+        }
+        counters.created += created.size();
+        counters.updated += updated.size();
+    }
+
+    /**
+     * OPENING para material novo; ADJUSTMENT com a diferença para material existente
+     * (criado por outra transação depois da trava: diferença desconhecida, nada é gravado)
+     */
+    private static StockMovement stockMovement(long id, boolean inserted, BigDecimal stock, BigDecimal previous) {
+        if (inserted) {
+            return StockLedgerService.movement(id, StockMovementType.OPENING, stock, "csv-import");
+        }
+        BigDecimal delta = previous != null ? stock.subtract(previous) : BigDecimal.ZERO;
+        return StockLedgerService.movement(id, StockMovementType.ADJUSTMENT, delta, "csv-import");
+    }
+
+    private void publish(Kind kind, List<Long> ids) {
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new InventoryChangedEvent(kind, ids));
+        }
+    }
+
+    /**
+     * Guarda a linha válida; chave repetida no bloco: a última linha vence
+     */
+    private static void keep(Map<String, Row> valid, String key, Row row, Counters counters) {
+        if (valid.put(key, row) != null) {
+            counters.superseded++;
+        }
+    }
+
+    private static void reject(Row row, String message, Counters counters, Consumer<ImportRecordDTO> consumer) {
+        counters.failed++;
+        consumer.accept(error(row.line, message));
+    }
+
+    private static ImportRecordDTO error(Integer line, String message) {
+        return ImportRecordDTO.builder()
+                .type(ImportRecordDTO.ERROR)
+                .error(ImportRowErrorDTO.builder().line(line).message(message).build())
+                .build();
+    }
+
+    // ========================================================================
+    // LINHA E CONTADORES
+    // ========================================================================
+
+    /**
+     * Uma linha do arquivo, com os campos na ordem das colunas do ImportType
+     * (valores normalizados pela validação)
+     */
+    private static final class Row {
+        private final int line;
+        private final String[] values;
+        private final int fieldCount;
+
+        private Row(int line, List<String> fields, int[] columns) {
+            this.line = line;
+            this.values = new String[columns.length];
+            int present = 0;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] < fields.size()) {
+                    values[i] = fields.get(columns[i]);
+                    present++;
+                }
+            }
+            this.fieldCount = present;
+        }
+
+        private void requireAllColumns() {
+            if (fieldCount < values.length) {
+                throw new IllegalArgumentException("Line has fewer columns than the header");
+            }
+        }
+
+        private String text(int index, String column, int maxLength) {
+            String value = values[index];
+            if (value.isBlank()) {
+                throw new IllegalArgumentException(column + " is required");
+            }
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(column + " must have at most " + maxLength + " characters");
+            }
+            return value;
+        }
+
+        private void decimal(int index, String column, int scale, BigDecimal max, boolean positive) {
+            String raw = values[index];
+            if (raw.isBlank()) {
+                throw new IllegalArgumentException(column + " is required");
+            }
+            BigDecimal value;
+            try {
+                value = new BigDecimal(raw);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException(column + " is not a valid number: '" + raw + "'");
+            }
+            if (positive ? value.signum() <= 0 : value.signum() < 0) {
+                throw new IllegalArgumentException(column + (positive ? " must be positive" : " must be zero or positive"));
+            }
+            if (value.stripTrailingZeros().scale() > scale) {
+                throw new IllegalArgumentException(column + " must have at most " + scale + " decimal places");
+            }
+            if (value.compareTo(max) > 0) {
+                throw new IllegalArgumentException(column + " must be at most " + max.toPlainString());
+            }
+            values[index] = value.setScale(scale).toPlainString();
+        }
+    }
+
+    private static final class Counters {
+        private int chunks;
+        private long rowsRead;
+        private long created;
+        private long updated;
+        private long failed;
+        private long superseded;
+        private boolean completed;
+
+        private ImportProgressDTO toDTO(ImportType type, long start) {
+            return ImportProgressDTO.builder()
+                    .importType(type.name())
+                    .chunks(chunks)
+                    .rowsRead(rowsRead)
+                    .created(created)
+                    .updated(updated + superseded)
+                    .failed(failed)
+                    .completed(completed)
+                    .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de CSV em STREAMING (RFC 4180): um registro por vez, sem carregar o arquivo
+ *
+ * - Separador "," ou ";" (detectado na linha de cabeçalho)
+ * - Campos entre aspas podem conter separador, quebra de linha e "" (aspas escapadas)
+ * - Campos sem aspas são aparados (trim); linhas em branco são ignoradas
+ * - lineNumber() devolve a linha FÍSICA onde o último registro começou,
+ *   para as mensagens de erro apontarem a linha certa do arquivo
+ *
+ * Campos maiores que MAX_FIELD_LENGTH interrompem a leitura: protege a
+ * memória contra aspas sem fechamento, que engoliriam o resto do arquivo.
+ */
+final class CsvReader implements Closeable {
+
+    static final int MAX_FIELD_LENGTH = 10_000;
+    private static final int MAX_HEADER_LENGTH = 64 * 1024;
+
+    private final BufferedReader reader;
+    private char delimiter = ',';
+    private int line = 1;
+    private int recordLine;
+
+    CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * Lê o cabeçalho e fixa o separador usado no resto do arquivo
+     *
+     * @return nomes das colunas, ou null se o arquivo estiver vazio
+     */
+    List<String> readHeader() throws IOException {
+        // BOM do UTF-8 (planilhas exportadas pelo Excel)
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        reader.mark(MAX_HEADER_LENGTH);
+        String first = reader.readLine();
+        reader.reset();
+        if (first != null && first.indexOf(';') >= 0 && first.indexOf(',') < 0) {
+            delimiter = ';';
+        }
+        return next();
+    }
+
+    /**
+     * @return campos do próximo registro, ou null no fim do arquivo
+     */
+    List<String> next() throws IOException {
+        int c = reader.read();
+        while (c == '\n' || c == '\r') {
+            if (c == '\n') {
+                line++;
+            }
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        while (true) {
+            if (c == -1) {
+                if (inQuotes) {
+                    throw new BusinessException("Line " + recordLine + ": unterminated quoted field");
+                }
+                fields.add(finish(field, quoted));
+                return fields;
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                append(field, c);
+            } else if (c == '"' && !quoted && field.toString().isBlank()) {
+                field.setLength(0);
+                inQuotes = true;
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(finish(field, quoted));
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n') {
+                line++;
+                fields.add(finish(field, quoted));
+                return fields;
+            } else if (quoted && Character.isWhitespace(c)) {
+                // Espaços entre a aspa de fechamento e o separador
+            } else if (c != '\r') {
+                append(field, c);
+            }
+            c = reader.read();
+        }
+    }
+
+    int lineNumber() {
+        return recordLine;
+    }
+
+    private void append(StringBuilder field, int c) {
+        if (field.length() >= MAX_FIELD_LENGTH) {
+            throw new BusinessException("Line " + recordLine + ": field longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        field.append((char) c);
+    }
+
+    private static String finish(StringBuilder field, boolean quoted) {
+        return quoted ? field.toString() : field.toString().trim();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,47 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+
+import java.util.List;
+
+/**
+ * Tipos de importação CSV e as colunas obrigatórias de cada um
+ *
+ * MATERIALS => code, name, unit, stock_quantity
+ * PRODUCTS  => code, name, value
+ * BOM       => product_code, material_code, required_quantity
+ *
+ * Nomes de coluna são comparados sem diferenciar maiúsculas e ignorando
+ * "_" e espaços (stock_quantity = stockQuantity = "Stock Quantity").
+ */
+public enum ImportType {
+    MATERIALS("code", "name", "unit", "stock_quantity"),
+    PRODUCTS("code", "name", "value"),
+    BOM("product_code", "material_code", "required_quantity");
+
+    private final List<String> columns;
+
+    ImportType(String... columns) {
+        this.columns = List.of(columns);
+    }
+
+    /**
+     * Aceita "materials", "products" ou "bom" (qualquer caixa)
+     */
+    public static ImportType from(String value) {
+        for (ImportType type : values()) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new BusinessException("Invalid import type: '" + value + "'");
+    }
+
+    List<String> columns() {
+        return columns;
+    }
+
+    static String normalizeColumn(String column) {
+        return column.replace("_", "").replace(" ", "").toLowerCase();
+    }
+}
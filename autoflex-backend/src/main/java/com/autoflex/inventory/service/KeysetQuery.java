@@ -0,0 +1,120 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.CursorPageDTO;
+import com.autoflex.inventory.exception.BusinessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Consulta de listagem paginada por KEYSET (cursor)
+ *
+ * Em vez de OFFSET (que lê e descarta todas as linhas anteriores), a
+ * próxima página começa depois da última linha devolvida:
+ *
+ *   WHERE <filtros> AND (name, id) > ('Parafuso', 42) ORDER BY name, id LIMIT 51
+ *
+ * - O cursor é opaco para o cliente: ordenação + ID + chave da última linha
+ *   em Base64 (URL-safe); cursor de outra ordenação é rejeitado
+ * - Busca limit + 1 linhas para saber se existe próxima página, sem COUNT
+ * - Prefixos de código/nome comparam lower(coluna) LIKE 'prefixo%', servidos
+ *   pelos índices text_pattern_ops de db/migration/002_listing_indexes.sql
+ */
+final class KeysetQuery {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 200;
+
+    private final StringBuilder where = new StringBuilder();
+    private final List<Object> args = new ArrayList<>();
+
+    /**
+     * Filtro com parâmetros (ignorado se algum valor for null)
+     */
+    KeysetQuery where(String condition, Object... values) {
+        for (Object value : values) {
+            if (value == null) {
+                return this;
+            }
+        }
+        where.append(where.isEmpty() ? " WHERE " : " AND ").append(condition);
+        Collections.addAll(args, values);
+        return this;
+    }
+
+    /**
+     * Prefixo sem diferenciar maiúsculas (ignorado se vazio)
+     */
+    KeysetQuery prefix(String column, String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return this;
+        }
+        String escaped = prefix.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return where("lower(" + column + ") LIKE ?", escaped + "%");
+    }
+
+    /**
+     * @param select SELECT ... FROM (sem WHERE), com as colunas id, code, name e value no escopo
+     * @param sortKey Chave de ordenação de uma linha (texto do cursor)
+     */
+    <T> CursorPageDTO<T> fetch(JdbcTemplate jdbcTemplate, String select, ListingSort sort, String cursor,
+                               int limit, RowMapper<T> mapper, Function<T, Long> id, Function<T, String> sortKey) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new BusinessException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decode(cursor, sort);
+            where(sort.after(), sort.keyArgs(position[2], Long.parseLong(position[1])));
+        }
+        args.add(limit + 1);
+
+        List<T> items = jdbcTemplate.query(
+                select + where + " ORDER BY " + sort.orderBy() + " LIMIT ?", mapper, args.toArray());
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, limit));
+        }
+        String next = null;
+        if (hasMore) {
+            T last = items.get(limit - 1);
+            next = encode(sort, id.apply(last), sortKey.apply(last));
+        }
+        return CursorPageDTO.<T>builder()
+                .items(items)
+                .limit(limit)
+                .sortBy(sort.name())
+                .nextCursor(next)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    static String encode(ListingSort sort, long id, String key) {
+        String position = sort.name() + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return [ordenação, ID, chave]
+     */
+    static String[] decode(String cursor, ListingSort sort) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(":", 3);
+            if (position.length == 3 && position[0].equals(sort.name())) {
+                sort.keyArgs(position[2], Long.parseLong(position[1]));
+                return position;
+            }
+        } catch (IllegalArgumentException e) {
+            // Base64 ou número inválido: mesma mensagem abaixo
+        }
+        throw new BusinessException("Invalid cursor for sortBy " + sort.name());
+    }
+}
@@ -0,0 +1,66 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+
+import java.math.BigDecimal;
+
+/**
+ * Ordenação das listagens paginadas por cursor (produtos e matérias-primas)
+ *
+ * CODE  => código, crescente (padrão; código é único)
+ * NAME  => nome, crescente, desempate por ID
+ * VALUE => valor unitário, DECRESCENTE, desempate por ID (só produtos)
+ *
+ * Cada ordenação tem um índice (coluna, id) que serve a condição de keyset
+ * e o ORDER BY: a página N custa o mesmo que a primeira.
+ */
+public enum ListingSort {
+    CODE,
+    NAME,
+    VALUE;
+
+    /**
+     * Aceita "code", "name" ou "value" (null = CODE)
+     */
+    public static ListingSort from(String value) {
+        if (value == null || value.isBlank()) {
+            return CODE;
+        }
+        for (ListingSort sort : values()) {
+            if (sort.name().equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        throw new BusinessException("Invalid sortBy: '" + value + "'");
+    }
+
+    /**
+     * Condição "depois do cursor", com os parâmetros de keyArgs
+     */
+    String after() {
+        return switch (this) {
+            case CODE -> "code > ?";
+            case NAME -> "(name, id) > (?, ?)";
+            case VALUE -> "(value, id) < (?, ?)";
+        };
+    }
+
+    String orderBy() {
+        return switch (this) {
+            case CODE -> "code";
+            case NAME -> "name, id";
+            case VALUE -> "value DESC, id DESC";
+        };
+    }
+
+    /**
+     * Parâmetros de after() a partir da chave e do ID gravados no cursor
+     */
+    Object[] keyArgs(String key, long id) {
+        return switch (this) {
+            case CODE -> new Object[] {key};
+            case NAME -> new Object[] {key, id};
+            case VALUE -> new Object[] {new BigDecimal(key), id};
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.DemandLineDTO;
+import com.autoflex.inventory.dto.DemandRequestDTO;
+import com.autoflex.inventory.dto.NetRequirementDTO;
+import com.autoflex.inventory.dto.NetRequirementsResponseDTO;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service de MRP: necessidades LÍQUIDAS de matéria-prima para uma lista de pedidos
+ *
+ * LÓGICA:
+ * 1. Somar a demanda por produto (pedidos repetidos se acumulam)
+ * 2. Necessidade bruta: para cada produto com demanda, somar
+ *    necessário_por_unidade * quantidade em um long[] indexado pelo ordinal
+ *    da matéria-prima (BOM já achatada, inclui sub-montagens)
+ * 3. Necessidade líquida = MAX(0, bruta - estoque)
+ *
+ * Tudo roda sobre o estado em memória do ProductionEngine: nenhuma consulta
+ * por linha de pedido, custo linear nas linhas de BOM dos produtos pedidos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NetRequirementsService {
+
+    private static final int MAX_REPORTED_CODES = 20;
+
+    private final ProductionEngine productionEngine;
+
+    /**
+     * Calcula necessidades brutas e líquidas da lista de pedidos
+     *
+     * @param request Linhas (código do produto, quantidade)
+     * @return Necessidade por matéria-prima, faltas primeiro (maior falta primeiro)
+     */
+    public NetRequirementsResponseDTO calculate(DemandRequestDTO request) {
+        ProductionState state = productionEngine.current();
+        BomMatrix matrix = state.matrix();
+        List<DemandLineDTO> lines = request.getLines();
+        log.info("Calculating net requirements for {} demand line(s) (inventory version {})",
+                lines.size(), state.version());
+
+        // 1. Demanda por produto
+        long[] demand = new long[matrix.productCount()];
+        Set<String> unknownCodes = new LinkedHashSet<>();
+        for (DemandLineDTO line : lines) {
+            int p = matrix.productOrdinalByCode(line.getProductCode());
+            if (p < 0) {
+                if (unknownCodes.size() < MAX_REPORTED_CODES) {
+                    unknownCodes.add(line.getProductCode());
+                }
+                continue;
+            }
+            demand[p] += line.getQuantity();
+        }
+        if (!unknownCodes.isEmpty()) {
+            throw new ResourceNotFoundException("Product not found with code(s): " + String.join(", ", unknownCodes));
+        }
+
+        // 2. Necessidade bruta por ordinal de matéria-prima
+        long[] gross = new long[matrix.materialCount()];
+        long totalUnits = 0;
+        long demandValue = 0;
+        for (int p = 0; p < matrix.productCount(); p++) {
+            long quantity = demand[p];
+            if (quantity == 0) {
+                continue;
+            }
+            totalUnits += quantity;
+            demandValue = Math.addExact(demandValue, Math.multiplyExact(matrix.productValue(p), quantity));
+            for (int k = matrix.rowStart(p); k < matrix.rowEnd(p); k++) {
+                int m = matrix.materialAt(k);
+                gross[m] = Math.addExact(gross[m], Math.multiplyExact(matrix.requiredAt(k), quantity));
+            }
+        }
+
+        // 3. Líquida contra o estoque
+        long[] stock = state.stock();
+        List<NetRequirementDTO> requirements = new ArrayList<>();
+        int shortfallCount = 0;
+        for (int m = 0; m < matrix.materialCount(); m++) {
+            if (gross[m] == 0) {
+                continue;
+            }
+            long shortfall = Math.max(0, gross[m] - stock[m]);
+            if (shortfall > 0) {
+                shortfallCount++;
+            }
+            requirements.add(NetRequirementDTO.builder()
+                    .materialId(matrix.materialId(m))
+                    .materialCode(matrix.materialCode(m))
+                    .materialName(matrix.materialName(m))
+                    .unit(matrix.materialUnit(m))
+                    .grossRequirement(BomMatrix.toDecimal(gross[m], BomMatrix.QUANTITY_SCALE))
+                    .availableStock(BomMatrix.toDecimal(stock[m], BomMatrix.QUANTITY_SCALE))
+                    .shortfall(BomMatrix.toDecimal(shortfall, BomMatrix.QUANTITY_SCALE))
+                    .sufficient(shortfall == 0)
+                    .build());
+        }
+        requirements.sort(Comparator.comparing(NetRequirementDTO::getShortfall).reversed());
+
+        log.info("Net requirements calculated: {} material(s) needed, {} with shortfall",
+                requirements.size(), shortfallCount);
+
+        return NetRequirementsResponseDTO.builder()
+                .requirements(requirements)
+                .feasible(shortfallCount == 0)
+                .shortfallCount(shortfallCount)
+                .demandLines(lines.size())
+                .totalUnits(totalUnits)
+                .demandValue(BomMatrix.toDecimal(demandValue, BomMatrix.VALUE_SCALE))
+                .inventoryVersion(state.version())
+                .generatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+}
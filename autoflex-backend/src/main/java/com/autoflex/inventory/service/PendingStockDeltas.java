@@ -0,0 +1,50 @@
+package com.autoflex.inventory.service;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deltas de estoque ACEITOS pelo write-behind e ainda não gravados no banco
+ *
+ * Quem lê estoque (cadastro de matérias-primas, carga do ProductionEngine)
+ * soma estes valores ao saldo do banco, então uma baixa aceita aparece nas
+ * leituras antes do flush. O StockWriteBehindService tira os valores no
+ * commit do flush.
+ */
+@Component
+public class PendingStockDeltas {
+
+    private final ConcurrentHashMap<Long, BigDecimal> deltas = new ConcurrentHashMap<>();
+
+    public void add(Long materialId, BigDecimal delta) {
+        deltas.merge(materialId, delta, (current, added) -> {
+            BigDecimal sum = current.add(added);
+            return sum.signum() == 0 ? null : sum;
+        });
+    }
+
+    public void subtract(Long materialId, BigDecimal delta) {
+        add(materialId, delta.negate());
+    }
+
+    /**
+     * Delta pendente do material (null = nenhum)
+     */
+    public BigDecimal get(Long materialId) {
+        return deltas.get(materialId);
+    }
+
+    /**
+     * Saldo do banco + delta pendente do material
+     */
+    public BigDecimal withPending(Long materialId, BigDecimal stock) {
+        BigDecimal delta = deltas.get(materialId);
+        return delta == null || stock == null ? stock : stock.add(delta);
+    }
+
+    public int materialCount() {
+        return deltas.size();
+    }
+}
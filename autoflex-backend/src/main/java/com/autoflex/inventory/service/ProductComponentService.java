@@ -0,0 +1,159 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.ProductComponentDTO;
+import com.autoflex.inventory.entity.Product;
+import com.autoflex.inventory.entity.ProductComponent;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import com.autoflex.inventory.repository.ProductComponentRepository;
+import com.autoflex.inventory.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service da BOM multinível: produtos usados como componentes (sub-montagens)
+ * de outros produtos
+ *
+ * Toda inclusão passa pela DETECÇÃO DE CICLO: o componente não pode ser o
+ * próprio produto nem usar (direta ou indiretamente) o produto de destino.
+ *
+ * Inclusões concorrentes (A -> B e B -> A, ou ciclos mais longos) são
+ * serializadas por uma trava consultiva da transação (pg_advisory_xact_lock)
+ * tomada ANTES da verificação: a segunda só verifica depois do commit ou
+ * rollback da primeira, e então enxerga a aresta nova.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductComponentService {
+    
+    private final ProductComponentRepository productComponentRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Chave da trava consultiva do grafo de componentes (liberada no commit/rollback)
+    private static final long COMPONENT_GRAPH_LOCK = 0x424F4D4752415048L;
+    
+    /**
+     * Lista os componentes (sub-montagens) de um produto
+     */
+    @Transactional(readOnly = true)
+    public List<ProductComponentDTO> findByProductId(Long productId) {
+        log.info("Finding components for product id: {}", productId);
+        
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        
+        return productComponentRepository.findByProductId(productId)
+                .stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Adiciona um produto como componente de outro
+     */
+    @Transactional
+    public ProductComponentDTO addComponentToProduct(Long productId, ProductComponentDTO dto) {
+        log.info("Adding component {} to product {}", dto.getComponentId(), productId);
+        
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        
+        Product component = productRepository.findById(dto.getComponentId())
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + dto.getComponentId()));
+        
+        if (productComponentRepository.findByProductIdAndComponentId(productId, dto.getComponentId()).isPresent()) {
+            throw new BusinessException("This component is already associated with this product");
+        }
+        
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + COMPONENT_GRAPH_LOCK + ")");
+        if (createsCycle(productId, dto.getComponentId())) {
+            throw new BusinessException("Adding product " + component.getCode() + " as a component of "
+                    + product.getCode() + " would create a cycle");
+        }
+        
+        ProductComponent association = new ProductComponent();
+        association.setProduct(product);
+        association.setComponent(component);
+        association.setRequiredQuantity(dto.getRequiredQuantity());
+        
+        ProductComponent saved = productComponentRepository.save(association);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
+        log.info("Component added successfully to product");
+        
+        return toDTO(saved);
+    }
+    
+    /**
+     * Atualiza quantidade necessária de um componente
+     */
+    @Transactional
+    public ProductComponentDTO updateComponentQuantity(Long productId, Long componentId, ProductComponentDTO dto) {
+        log.info("Updating component {} quantity for product {}", componentId, productId);
+        
+        ProductComponent association = productComponentRepository
+                .findByProductIdAndComponentId(productId, componentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Association not found"));
+        
+        association.setRequiredQuantity(dto.getRequiredQuantity());
+        ProductComponent updated = productComponentRepository.save(association);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
+        
+        log.info("Component quantity updated successfully");
+        return toDTO(updated);
+    }
+    
+    /**
+     * Remove um componente do produto
+     */
+    @Transactional
+    public void removeComponentFromProduct(Long productId, Long componentId) {
+        log.info("Removing component {} from product {}", componentId, productId);
+        
+        if (!productComponentRepository.findByProductIdAndComponentId(productId, componentId).isPresent()) {
+            throw new ResourceNotFoundException("Association not found");
+        }
+        
+        productComponentRepository.deleteByProductIdAndComponentId(productId, componentId);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
+        log.info("Component removed successfully from product");
+    }
+    
+    /**
+     * Verifica se productId é alcançável a partir de componentId
+     * (CTE recursiva só sobre os descendentes do componente, UMA consulta)
+     * 
+     * Chamar com a trava COMPONENT_GRAPH_LOCK já tomada.
+     */
+    private boolean createsCycle(Long productId, Long componentId) {
+        return productId.equals(componentId)
+                || productComponentRepository.isDescendantOrSelf(componentId, productId);
+    }
+    
+    // ========================================================================
+    // CONVERSÃO
+    // ========================================================================
+    
+    private ProductComponentDTO toDTO(ProductComponent entity) {
+        return ProductComponentDTO.builder()
+                .id(entity.getId())
+                .productId(entity.getProduct().getId())
+                .componentId(entity.getComponent().getId())
+                .componentCode(entity.getComponent().getCode())
+                .componentName(entity.getComponent().getName())
+                .requiredQuantity(entity.getRequiredQuantity())
+                .build();
+    }
+}
@@ -4,6 +4,8 @@ import com.autoflex.inventory.dto.ProductRawMaterialDTO;
 import com.autoflex.inventory.entity.Product;
 import com.autoflex.inventory.entity.ProductRawMaterial;
 import com.autoflex.inventory.entity.RawMaterial;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
 import com.autoflex.inventory.exception.BusinessException;
 import com.autoflex.inventory.exception.ResourceNotFoundException;
 import com.autoflex.inventory.repository.ProductRawMaterialRepository;
@@ -11,10 +13,17 @@ import com.autoflex.inventory.repository.ProductRepository;
 import com.autoflex.inventory.repository.RawMaterialRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,6 +35,7 @@ public class ProductRawMaterialService {
     private final ProductRepository productRepository;
     private final RawMaterialRepository rawMaterialRepository;
     private final RawMaterialService rawMaterialService;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Lista todas as matérias-primas de um produto
@@ -38,10 +48,7 @@ public class ProductRawMaterialService {
             throw new ResourceNotFoundException("Product not found with id: " + productId);
         }
         
-        return productRawMaterialRepository.findByProductId(productId)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return toDTOs(productRawMaterialRepository.findByProductId(productId));
     }
     
     /**
@@ -71,11 +78,65 @@ public class ProductRawMaterialService {
         association.setRequiredQuantity(dto.getRequiredQuantity());
         
         ProductRawMaterial saved = productRawMaterialRepository.save(association);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
         log.info("Material added successfully to product");
         
         return toDTO(saved);
     }
     
+    /**
+     * Adiciona VÁRIAS matérias-primas a um produto de uma vez (montagem de BOM)
+     * 
+     * Mesmas regras do addMaterialToProduct, mas com número fixo de consultas
+     * (produto, materiais e associações existentes) e um único saveAll: com IDs
+     * por sequence, os INSERTs saem em lotes de hibernate.jdbc.batch_size.
+     * Tudo ou nada: qualquer material inválido ou repetido cancela a operação.
+     */
+    @Transactional
+    public List<ProductRawMaterialDTO> addMaterialsToProduct(Long productId, List<ProductRawMaterialDTO> dtos) {
+        log.info("Adding {} materials to product {}", dtos.size(), productId);
+        
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        
+        Set<Long> materialIds = new LinkedHashSet<>();
+        for (ProductRawMaterialDTO dto : dtos) {
+            if (!materialIds.add(dto.getRawMaterialId())) {
+                throw new BusinessException("Raw material " + dto.getRawMaterialId() + " appears more than once in the request");
+            }
+        }
+        
+        Map<Long, RawMaterial> materials = rawMaterialRepository.findAllById(materialIds).stream()
+                .collect(Collectors.toMap(RawMaterial::getId, Function.identity()));
+        for (Long materialId : materialIds) {
+            if (!materials.containsKey(materialId)) {
+                throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+            }
+        }
+        
+        for (ProductRawMaterial existing : productRawMaterialRepository.findByProductId(productId)) {
+            if (materialIds.contains(existing.getRawMaterial().getId())) {
+                throw new BusinessException("Raw material " + existing.getRawMaterial().getId()
+                        + " is already associated with this product");
+            }
+        }
+        
+        List<ProductRawMaterial> associations = new ArrayList<>(dtos.size());
+        for (ProductRawMaterialDTO dto : dtos) {
+            ProductRawMaterial association = new ProductRawMaterial();
+            association.setProduct(product);
+            association.setRawMaterial(materials.get(dto.getRawMaterialId()));
+            association.setRequiredQuantity(dto.getRequiredQuantity());
+            associations.add(association);
+        }
+        
+        List<ProductRawMaterial> saved = productRawMaterialRepository.saveAll(associations);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
+        log.info("{} materials added successfully to product", saved.size());
+        
+        return toDTOs(saved);
+    }
+    
     /**
      * Atualiza quantidade necessária de uma matéria-prima
      */
@@ -89,6 +150,7 @@ public class ProductRawMaterialService {
         
         association.setRequiredQuantity(dto.getRequiredQuantity());
         ProductRawMaterial updated = productRawMaterialRepository.save(association);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
         
         log.info("Material quantity updated successfully");
         return toDTO(updated);
@@ -106,6 +168,7 @@ public class ProductRawMaterialService {
         }
         
         productRawMaterialRepository.deleteByProductIdAndRawMaterialId(productId, materialId);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.BOM_CHANGED, productId));
         log.info("Material removed successfully from product");
     }
     
@@ -113,18 +176,35 @@ public class ProductRawMaterialService {
     // CONVERSÃO
     // ========================================================================
     
+    /**
+     * Converte várias associações com UMA consulta de uso e UMA de stripes por matéria-prima
+     */
+    private List<ProductRawMaterialDTO> toDTOs(List<ProductRawMaterial> entities) {
+        List<Long> materialIds = entities.stream()
+                .map(entity -> entity.getRawMaterial().getId())
+                .collect(Collectors.toList());
+        Map<Long, Integer> usage = rawMaterialService.usageCounts(materialIds);
+        Map<Long, BigDecimal> striped = rawMaterialService.stripedTotals(materialIds);
+        return entities.stream()
+                .map(entity -> toDTO(entity, usage.getOrDefault(entity.getRawMaterial().getId(), 0),
+                        striped.get(entity.getRawMaterial().getId())))
+                .collect(Collectors.toList());
+    }
+    
     private ProductRawMaterialDTO toDTO(ProductRawMaterial entity) {
+        return toDTOs(List.of(entity)).get(0);
+    }
+    
+    private ProductRawMaterialDTO toDTO(ProductRawMaterial entity, int usedInProductsCount, BigDecimal striped) {
+        BigDecimal availableStock = rawMaterialService.availableStock(entity.getRawMaterial(), striped);
         return ProductRawMaterialDTO.builder()
                 .id(entity.getId())
                 .productId(entity.getProduct().getId())
                 .rawMaterialId(entity.getRawMaterial().getId())
-                .rawMaterial(rawMaterialService.toDTO(entity.getRawMaterial()))
+                .rawMaterial(rawMaterialService.toDTO(entity.getRawMaterial(), usedInProductsCount, striped))
                 .requiredQuantity(entity.getRequiredQuantity())
-                .availableStock(entity.getRawMaterial().getStockQuantity())
-                .hasSufficientStock(
-                    entity.getRawMaterial().getStockQuantity()
-                        .compareTo(entity.getRequiredQuantity()) >= 0
-                )
+                .availableStock(availableStock)
+                .hasSufficientStock(availableStock.compareTo(entity.getRequiredQuantity()) >= 0)
                 .build();
     }
 }
\ No newline at end of file
@@ -1,18 +1,29 @@
 package com.autoflex.inventory.service;
 
+import com.autoflex.inventory.dto.CursorPageDTO;
 import com.autoflex.inventory.dto.ProductDTO;
 import com.autoflex.inventory.dto.ProductRawMaterialDTO;
 import com.autoflex.inventory.entity.Product;
 import com.autoflex.inventory.entity.ProductRawMaterial;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
 import com.autoflex.inventory.exception.BusinessException;
 import com.autoflex.inventory.exception.ResourceNotFoundException;
+import com.autoflex.inventory.repository.ProductComponentRepository;
 import com.autoflex.inventory.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -24,7 +35,10 @@ import java.util.stream.Collectors;
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final ProductComponentRepository productComponentRepository;
     private final RawMaterialService rawMaterialService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
     
     /**
      * Lista todos os produtos
@@ -39,6 +53,38 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Lista uma página de produtos (keyset: custo independe do tamanho da
+     * tabela e da profundidade da página)
+     *
+     * @param code Prefixo do código (sem diferenciar maiúsculas)
+     * @param name Prefixo do nome (sem diferenciar maiúsculas)
+     * @param minValue Valor unitário mínimo (inclusive)
+     * @param maxValue Valor unitário máximo (inclusive)
+     * @param sortBy code (padrão), name ou value (maior primeiro)
+     * @param cursor nextCursor da página anterior (null = primeira página)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> findPage(String code, String name, BigDecimal minValue, BigDecimal maxValue,
+                                              String sortBy, String cursor, int limit) {
+        if (minValue != null && maxValue != null && minValue.compareTo(maxValue) > 0) {
+            throw new BusinessException("minValue must not be greater than maxValue");
+        }
+        ListingSort sort = ListingSort.from(sortBy);
+        log.info("Finding products page: sort {}, limit {}, cursor {}", sort, limit, cursor != null);
+        return new KeysetQuery()
+                .prefix("code", code)
+                .prefix("name", name)
+                .where("value >= ?", minValue)
+                .where("value <= ?", maxValue)
+                .fetch(jdbcTemplate, "SELECT id, code, name, value, created_at, updated_at FROM products",
+                        sort, cursor, limit, this::toDTO, ProductDTO::getId, dto -> switch (sort) {
+                            case CODE -> dto.getCode();
+                            case NAME -> dto.getName();
+                            case VALUE -> dto.getValue().toPlainString();
+                        });
+    }
+    
     /**
      * Busca produto por ID
      * @param id ID do produto
@@ -83,6 +129,7 @@ public class ProductService {
         
         Product product = toEntity(dto);
         Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.PRODUCT_CREATED, saved.getId()));
         
         log.info("Product created successfully with id: {}", saved.getId());
         return toDTO(saved);
@@ -114,6 +161,7 @@ public class ProductService {
         product.setValue(dto.getValue());
         
         Product updated = productRepository.save(product);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.PRODUCT_UPDATED, id));
         log.info("Product updated successfully");
         
         return toDTO(updated);
@@ -131,7 +179,12 @@ public class ProductService {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         
+        if (productComponentRepository.existsByComponentId(id)) {
+            throw new BusinessException("Product is used as a component of other products");
+        }
+        
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.PRODUCT_DELETED, id));
         log.info("Product deleted successfully");
     }
     
@@ -163,15 +216,34 @@ public class ProductService {
                 .build();
     }
     
+    /**
+     * Converte linha da listagem paginada para DTO
+     */
+    private ProductDTO toDTO(ResultSet rs, int row) throws SQLException {
+        return ProductDTO.builder()
+                .id(rs.getLong("id"))
+                .code(rs.getString("code"))
+                .name(rs.getString("name"))
+                .value(rs.getBigDecimal("value"))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .updatedAt(rs.getObject("updated_at", LocalDateTime.class))
+                .build();
+    }
+    
     /**
      * Converte Entity para DTO (COM matérias-primas)
      */
     private ProductDTO toDTOWithMaterials(Product entity) {
         ProductDTO dto = toDTO(entity);
         
-        // Mapeia matérias-primas
+        // Mapeia matérias-primas (uso em produtos e stripes: uma consulta agrupada cada, para todas)
+        List<Long> materialIds = entity.getRawMaterials().stream()
+                .map(line -> line.getRawMaterial().getId())
+                .collect(Collectors.toList());
+        Map<Long, Integer> usage = rawMaterialService.usageCounts(materialIds);
+        Map<Long, BigDecimal> striped = rawMaterialService.stripedTotals(materialIds);
         List<ProductRawMaterialDTO> materials = entity.getRawMaterials().stream()
-                .map(this::toMaterialDTO)
+                .map(line -> toMaterialDTO(line, usage, striped))
                 .collect(Collectors.toList());
         
         dto.setRawMaterials(materials);
@@ -181,17 +253,18 @@ public class ProductService {
     /**
      * Converte ProductRawMaterial para DTO
      */
-    private ProductRawMaterialDTO toMaterialDTO(ProductRawMaterial entity) {
+    private ProductRawMaterialDTO toMaterialDTO(ProductRawMaterial entity, Map<Long, Integer> usage,
+                                                Map<Long, BigDecimal> striped) {
+        Long materialId = entity.getRawMaterial().getId();
+        BigDecimal availableStock = rawMaterialService.availableStock(entity.getRawMaterial(), striped.get(materialId));
         return ProductRawMaterialDTO.builder()
                 .id(entity.getId())
-                .rawMaterialId(entity.getRawMaterial().getId())
-                .rawMaterial(rawMaterialService.toDTO(entity.getRawMaterial()))
+                .rawMaterialId(materialId)
+                .rawMaterial(rawMaterialService.toDTO(entity.getRawMaterial(),
+                        usage.getOrDefault(materialId, 0), striped.get(materialId)))
                 .requiredQuantity(entity.getRequiredQuantity())
-                .availableStock(entity.getRawMaterial().getStockQuantity())
-                .hasSufficientStock(
-                    entity.getRawMaterial().getStockQuantity()
-                        .compareTo(entity.getRequiredQuantity()) >= 0
-                )
+                .availableStock(availableStock)
+                .hasSufficientStock(availableStock.compareTo(entity.getRequiredQuantity()) >= 0)
                 .build();
     }
     
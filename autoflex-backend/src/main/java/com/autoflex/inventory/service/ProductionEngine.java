@@ -0,0 +1,313 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.ComponentLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Motor INCREMENTAL do algoritmo de sugestão de produção
+ *
+ * Mantém em memória a quantidade máxima de cada produto e os totalizadores.
+ * As escritas no inventário chegam como InventoryChangedEvent (após o commit)
+ * e são aplicadas na próxima leitura:
+ *
+ * - STOCK_CHANGED / MATERIAL_UPDATED => recarrega só as matérias-primas
+ *   alteradas e recalcula só os produtos que as usam (índice reverso)
+ * - BOM_CHANGED => recarrega só as linhas de BOM (materiais e componentes)
+ *   do produto alterado e recalcula ele e os produtos que o usam como
+ *   sub-montagem (BomExplosion)
+ * - Criação/remoção de produtos ou matérias-primas e alteração de produto
+ *   => recarga completa (muda ordinais e ordem por valor)
+ *
+ * Os totalizadores são atualizados por DELTA, sem nova passada no catálogo.
+ *
+ * VERSÃO GLOBAL DO INVENTÁRIO:
+ * cada evento incrementa a versão no mesmo bloco em que a alteração é
+ * registrada, então quem observa a versão N sempre recebe um estado que
+ * já contém todas as escritas até N.
+ *
+ * current() é serializado pelo monitor da instância; latest() devolve o
+ * último estado publicado por ele sem trava (volatile).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductionEngine {
+
+    private final CatalogSnapshotLoader snapshotLoader;
+    private final ProductionParallelism parallelism;
+
+    // Estado calculado (protegido pelo monitor desta instância)
+    private BomExplosion explosion;
+    private BomMatrix matrix;
+    private long[] stock;
+    private int[] maxQuantity;
+    private long totalValue;
+    private int totalUnits;
+    private int producibleCount;
+
+    // Último estado entregue por current(), lido sem trava (latest)
+    private volatile ProductionState published;
+
+    // Alterações ainda não aplicadas (protegidas por pendingLock)
+    private final Object pendingLock = new Object();
+    private long version;
+    private boolean reloadPending = true;
+    private Set<Long> pendingMaterials = new HashSet<>();
+    private Set<Long> pendingProducts = new HashSet<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        synchronized (pendingLock) {
+            switch (event.getKind()) {
+                case STOCK_CHANGED, MATERIAL_UPDATED -> pendingMaterials.addAll(event.getIds());
+                case BOM_CHANGED -> pendingProducts.addAll(event.getIds());
+                default -> reloadPending = true;
+            }
+            version++;
+        }
+    }
+
+    /**
+     * Versão atual do inventário (incrementada a cada escrita confirmada)
+     */
+    public long version() {
+        synchronized (pendingLock) {
+            return version;
+        }
+    }
+
+    /**
+     * Aplica as alterações pendentes e devolve o estado atual
+     */
+    public synchronized ProductionState current() {
+        long stateVersion;
+        boolean reload;
+        Set<Long> materials;
+        Set<Long> products;
+        synchronized (pendingLock) {
+            stateVersion = version;
+            reload = reloadPending;
+            materials = pendingMaterials;
+            products = pendingProducts;
+            reloadPending = false;
+            pendingMaterials = new HashSet<>();
+            pendingProducts = new HashSet<>();
+        }
+
+        try {
+            if (reload || matrix == null
+                    || !refreshProducts(products)
+                    || !refreshMaterials(materials)) {
+                reload();
+            }
+        } catch (RuntimeException ex) {
+            // Não perder as alterações: a próxima leitura faz recarga completa
+            synchronized (pendingLock) {
+                reloadPending = true;
+            }
+            throw ex;
+        }
+
+        ProductionState state = new ProductionState(stateVersion, matrix, stock.clone(), maxQuantity.clone(),
+                totalValue, totalUnits, producibleCount);
+        published = state;
+        return state;
+    }
+
+    /**
+     * Último estado publicado, SEM aplicar alterações pendentes e sem trava
+     * 
+     * Pode estar defasado (compare version() do estado com version()); serve
+     * para verificações de falha rápida cuja decisão final fica no banco.
+     * Só calcula (current) se nenhum estado foi publicado ainda.
+     */
+    public ProductionState latest() {
+        ProductionState state = published;
+        return state != null ? state : current();
+    }
+
+    // ========================================================================
+    // RECÁLCULO
+    // ========================================================================
+
+    /**
+     * Recarga completa: fotografia do catálogo, explosão multinível e recálculo
+     */
+    private void reload() {
+        CatalogSnapshot snapshot = snapshotLoader.load();
+        explosion = BomExplosion.of(snapshot);
+        rebuild(BomMatrix.compile(explosion.explode(snapshot)));
+    }
+
+    /**
+     * Recalcula todos os produtos (carga inicial ou mudança estrutural)
+     * 
+     * Catálogos grandes são avaliados em blocos paralelos: cada bloco escreve
+     * só os seus ordinais em maxQuantity e devolve totais parciais
+     * {valor, unidades, produtos}, somados no final sem disputa entre threads.
+     */
+    private void rebuild(BomMatrix compiled) {
+        long[] newStock = compiled.copyStock();
+        int[] newMaxQuantity = new int[compiled.productCount()];
+        List<long[]> partials = parallelism.mapChunks(compiled.productCount(), (from, to) -> {
+            long value = 0;
+            long units = 0;
+            long count = 0;
+            for (int p = from; p < to; p++) {
+                int quantity = compiled.maxQuantity(p, newStock);
+                newMaxQuantity[p] = quantity;
+                if (quantity > 0) {
+                    value = Math.addExact(value, compiled.totalValue(p, quantity));
+                    units += quantity;
+                    count++;
+                }
+            }
+            return new long[] {value, units, count};
+        });
+
+        matrix = compiled;
+        stock = newStock;
+        maxQuantity = newMaxQuantity;
+        totalValue = 0;
+        totalUnits = 0;
+        producibleCount = 0;
+        for (long[] partial : partials) {
+            totalValue = Math.addExact(totalValue, partial[0]);
+            totalUnits += (int) partial[1];
+            producibleCount += (int) partial[2];
+        }
+        log.info("Production engine rebuilt: {} products, {} materials, {} BOM lines",
+                compiled.productCount(), compiled.materialCount(), compiled.nonZeroCount());
+    }
+
+    /**
+     * Recarrega matérias-primas alteradas e recalcula apenas os produtos afetados
+     *
+     * @return false se for necessária uma recarga completa
+     */
+    private boolean refreshMaterials(Set<Long> materialIds) {
+        if (materialIds.isEmpty()) {
+            return true;
+        }
+        List<MaterialEntry> entries = snapshotLoader.loadMaterials(materialIds);
+        if (entries.size() != materialIds.size()) {
+            return false;
+        }
+        int affected = 0;
+        for (MaterialEntry entry : entries) {
+            int m = matrix.materialOrdinal(entry.getId());
+            if (m < 0) {
+                return false;
+            }
+            if (!Objects.equals(matrix.materialCode(m), entry.getCode())
+                    || !Objects.equals(matrix.materialName(m), entry.getName())
+                    || !Objects.equals(matrix.materialUnit(m), entry.getUnit())) {
+                matrix = matrix.withMaterialInfo(m, entry.getCode(), entry.getName(), entry.getUnit());
+            }
+            affected += applyStock(m, BomMatrix.toUnits(entry.getStockQuantity(), BomMatrix.QUANTITY_SCALE));
+        }
+        log.debug("Stock refreshed for {} material(s), {} product(s) recalculated", entries.size(), affected);
+        return true;
+    }
+
+    /**
+     * Recarrega as linhas de BOM dos produtos alterados e recalcula só esses
+     * produtos e os que os usam como componente
+     *
+     * @return false se for necessária uma recarga completa
+     */
+    private boolean refreshProducts(Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return true;
+        }
+        Map<Long, List<BomLine>> linesByProduct = snapshotLoader.loadBomLines(productIds);
+        Map<Long, List<ComponentLine>> componentsByProduct = snapshotLoader.loadComponentLines(productIds);
+        for (Map.Entry<Long, List<BomLine>> entry : linesByProduct.entrySet()) {
+            if (matrix.productOrdinal(entry.getKey()) < 0) {
+                return false;
+            }
+            for (BomLine line : entry.getValue()) {
+                if (matrix.materialOrdinal(line.getMaterial().getId()) < 0) {
+                    return false;
+                }
+            }
+        }
+        for (List<ComponentLine> components : componentsByProduct.values()) {
+            for (ComponentLine component : components) {
+                if (matrix.productOrdinal(component.getComponentId()) < 0) {
+                    return false;
+                }
+            }
+        }
+
+        // Só os alterados e seus ancestrais perdem o vetor achatado
+        Map<Integer, List<BomLine>> rows = new HashMap<>();
+        for (Long productId : explosion.replace(linesByProduct, componentsByProduct)) {
+            rows.put(matrix.productOrdinal(productId), explosion.flatten(productId));
+        }
+
+        matrix = matrix.withRows(rows);
+        // Aproveita o estoque lido junto com a BOM
+        for (List<BomLine> lines : linesByProduct.values()) {
+            for (BomLine line : lines) {
+                int m = matrix.materialOrdinal(line.getMaterial().getId());
+                applyStock(m, BomMatrix.toUnits(line.getMaterial().getStockQuantity(), BomMatrix.QUANTITY_SCALE));
+            }
+        }
+        for (int p : rows.keySet()) {
+            recalculate(p);
+        }
+        log.debug("BOM refreshed for {} product(s), {} product(s) re-exploded", productIds.size(), rows.size());
+        return true;
+    }
+
+    /**
+     * Atualiza o estoque de um material e recalcula os produtos que o usam
+     *
+     * @return quantidade de produtos recalculados
+     */
+    private int applyStock(int material, long newStock) {
+        if (stock[material] == newStock) {
+            return 0;
+        }
+        stock[material] = newStock;
+        for (int i = matrix.usageStart(material); i < matrix.usageEnd(material); i++) {
+            recalculate(matrix.productAt(i));
+        }
+        return matrix.usageEnd(material) - matrix.usageStart(material);
+    }
+
+    private void recalculate(int product) {
+        int oldQuantity = maxQuantity[product];
+        int newQuantity = matrix.maxQuantity(product, stock);
+        if (oldQuantity != newQuantity) {
+            add(product, oldQuantity, -1);
+            add(product, newQuantity, 1);
+            maxQuantity[product] = newQuantity;
+        }
+    }
+
+    /**
+     * Soma (sign = 1) ou subtrai (sign = -1) a contribuição de um produto nos totais
+     */
+    private void add(int product, int quantity, int sign) {
+        if (quantity > 0) {
+            totalValue = Math.addExact(totalValue, sign * matrix.totalValue(product, quantity));
+            totalUnits += sign * quantity;
+            producibleCount += sign;
+        }
+    }
+}
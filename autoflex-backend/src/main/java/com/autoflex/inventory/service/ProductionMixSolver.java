@@ -0,0 +1,263 @@
+package com.autoflex.inventory.service;
+
+import java.util.Arrays;
+
+/**
+ * Resolve o MIX ÓTIMO de produção
+ *
+ * Problema (programação inteira):
+ *   maximizar   SOMA(valor_p * x_p)
+ *   sujeito a   SOMA(necessario_mp * x_p) <= estoque_m   para cada material m
+ *               0 <= x_p <= u_p, x_p inteiro
+ *
+ * onde u_p é a quantidade máxima do produto isolado (modo INDEPENDENT).
+ *
+ * MÉTODO (relaxação Lagrangiana + subgradiente):
+ * - Cada material recebe um preço lambda_m >= 0. Com os preços fixos o
+ *   problema se separa por produto: x_p = u_p se valor_p > SOMA(lambda_m * necessario_mp)
+ * - L(lambda) = SOMA(lambda_m * estoque_m) + SOMA(u_p * max(0, lucro reduzido_p))
+ *   é um LIMITE SUPERIOR para qualquer solução viável; o subgradiente
+ *   ajusta os preços para baixar esse limite
+ * - A cada rodada, uma heurística gulosa ordenada pelos preços atuais gera
+ *   uma solução viável (limite inferior); a melhor é mantida
+ * - Para quando o tempo acaba ou quando limite superior e melhor solução
+ *   ficam a menos de 1 centavo (solução comprovadamente ótima)
+ *
+ * Tudo trabalha sobre a matriz CSR (custo por rodada linear em linhas de BOM).
+ * A solução inicial é a gulosa por valor, então o resultado nunca é pior
+ * que o modo ALLOCATE.
+ */
+public final class ProductionMixSolver {
+
+    private static final int HEURISTIC_INTERVAL = 5;
+    private static final int STALL_LIMIT = 20;
+    private static final double MIN_STEP = 1e-6;
+
+    private ProductionMixSolver() {
+    }
+
+    /**
+     * @param matrix Matriz de BOM
+     * @param stock Estoque disponível (escala 3) — não é alterado
+     * @param budgetNanos Tempo máximo de execução
+     */
+    public static Solution solve(BomMatrix matrix, long[] stock, long budgetNanos) {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + budgetNanos;
+        int productCount = matrix.productCount();
+        int materialCount = matrix.materialCount();
+
+        int[] upper = new int[productCount];
+        for (int p = 0; p < productCount; p++) {
+            upper[p] = Math.max(0, matrix.maxQuantity(p, stock));
+        }
+
+        // Solução inicial: gulosa por valor (mesma do modo ALLOCATE)
+        long[] working = new long[materialCount];
+        int[] best = greedy(matrix, stock, upper, identityOrder(productCount), working);
+        long bestValue = value(matrix, best);
+
+        double[] lambda = new double[materialCount];
+        // Custo de cada produto aos preços atuais: soma de lambda * consumo
+        double[] pricedCost = new double[productCount];
+        double[] gradient = new double[materialCount];
+        double upperBound = Double.MAX_VALUE;
+        double theta = 2.0;
+        int stall = 0;
+        int iterations = 0;
+
+        while (System.nanoTime() < deadline && upperBound - bestValue >= 1.0 && theta > MIN_STEP) {
+            iterations++;
+
+            // Custo aos preços atuais e lucro reduzido (valor - custo) de cada produto
+            double lagrangian = 0;
+            for (int m = 0; m < materialCount; m++) {
+                lagrangian += lambda[m] * Math.max(0, stock[m]);
+                gradient[m] = Math.max(0, stock[m]);
+            }
+            for (int p = 0; p < productCount; p++) {
+                double cost = 0;
+                for (int k = matrix.rowStart(p); k < matrix.rowEnd(p); k++) {
+                    cost += lambda[matrix.materialAt(k)] * matrix.requiredAt(k);
+                }
+                pricedCost[p] = cost;
+                double profit = matrix.productValue(p) - cost;
+                if (profit > 0 && upper[p] > 0) {
+                    lagrangian += profit * upper[p];
+                    for (int k = matrix.rowStart(p); k < matrix.rowEnd(p); k++) {
+                        gradient[matrix.materialAt(k)] -= (double) matrix.requiredAt(k) * upper[p];
+                    }
+                }
+            }
+
+            if (lagrangian < upperBound - 1e-9) {
+                upperBound = lagrangian;
+                stall = 0;
+            } else if (++stall >= STALL_LIMIT) {
+                theta /= 2;
+                stall = 0;
+            }
+
+            // Heurística guiada pelos preços: maior valor por custo aos preços atuais primeiro
+            if (iterations % HEURISTIC_INTERVAL == 1) {
+                int[] candidate = greedy(matrix, stock, upper, priceOrder(matrix, pricedCost), working);
+                long candidateValue = value(matrix, candidate);
+                if (candidateValue > bestValue) {
+                    best = candidate;
+                    bestValue = candidateValue;
+                }
+            }
+
+            // Passo do subgradiente
+            double norm = 0;
+            for (int m = 0; m < materialCount; m++) {
+                if (lambda[m] > 0 || gradient[m] < 0) {
+                    norm += gradient[m] * gradient[m];
+                }
+            }
+            if (norm == 0) {
+                // Preços atuais já são ótimos para a relaxação
+                break;
+            }
+            double step = theta * (lagrangian - bestValue) / norm;
+            for (int m = 0; m < materialCount; m++) {
+                lambda[m] = Math.max(0, lambda[m] - step * gradient[m]);
+            }
+        }
+
+        // Nenhum limite calculado (orçamento zero): limite trivial
+        if (upperBound == Double.MAX_VALUE) {
+            upperBound = 0;
+            for (int p = 0; p < productCount; p++) {
+                upperBound += (double) matrix.productValue(p) * upper[p];
+            }
+        }
+        upperBound = Math.max(upperBound, bestValue);
+        boolean optimal = upperBound - bestValue < 1.0;
+        double gap = optimal || upperBound == 0 ? 0 : (upperBound - bestValue) / upperBound;
+
+        return new Solution(best, bestValue, (long) Math.floor(upperBound), gap, optimal,
+                iterations, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Aloca gulosamente na ordem informada e depois preenche sobras em ordem de valor
+     */
+    private static int[] greedy(BomMatrix matrix, long[] stock, int[] upper, int[] order, long[] working) {
+        System.arraycopy(stock, 0, working, 0, stock.length);
+        int[] quantity = new int[matrix.productCount()];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < order.length; i++) {
+                int p = pass == 0 ? order[i] : i;
+                int room = upper[p] - quantity[p];
+                if (room <= 0) {
+                    continue;
+                }
+                int take = Math.min(room, Math.max(0, matrix.maxQuantity(p, working)));
+                if (take > 0) {
+                    matrix.consume(p, take, working);
+                    quantity[p] += take;
+                }
+            }
+        }
+        return quantity;
+    }
+
+    private static int[] identityOrder(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Produtos em ordem de valor / (custo aos preços atuais + 1), maior primeiro
+     *
+     * Roda a cada rodada: ordena um long[] primitivo (chave do double nos bits
+     * altos, índice do produto nos bits baixos) em vez de Integer[] com Comparator
+     */
+    private static int[] priceOrder(BomMatrix matrix, double[] pricedCost) {
+        int count = matrix.productCount();
+        int indexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(count - 1));
+        long indexMask = (1L << indexBits) - 1;
+        long[] keys = new long[count];
+        for (int p = 0; p < count; p++) {
+            double key = -matrix.productValue(p) / (pricedCost[p] + 1.0) + 0.0;
+            // Ordem dos doubles = ordem dos longs com sinal
+            long bits = Double.doubleToLongBits(key);
+            bits ^= (bits >> 63) & Long.MAX_VALUE;
+            keys[p] = (bits & ~indexMask) | p;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) (keys[i] & indexMask);
+        }
+        return order;
+    }
+
+    private static long value(BomMatrix matrix, int[] quantity) {
+        long total = 0;
+        for (int p = 0; p < quantity.length; p++) {
+            if (quantity[p] > 0) {
+                total = Math.addExact(total, matrix.totalValue(p, quantity[p]));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Melhor solução encontrada
+     *
+     * value e upperBound em centavos; gap = (limite - valor) / limite
+     */
+    public static final class Solution {
+        private final int[] quantity;
+        private final long value;
+        private final long upperBound;
+        private final double gap;
+        private final boolean optimal;
+        private final int iterations;
+        private final long elapsedNanos;
+
+        Solution(int[] quantity, long value, long upperBound, double gap, boolean optimal,
+                 int iterations, long elapsedNanos) {
+            this.quantity = quantity;
+            this.value = value;
+            this.upperBound = upperBound;
+            this.gap = gap;
+            this.optimal = optimal;
+            this.iterations = iterations;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int quantity(int product) {
+            return quantity[product];
+        }
+
+        public long value() {
+            return value;
+        }
+
+        public long upperBound() {
+            return upperBound;
+        }
+
+        public double gap() {
+            return gap;
+        }
+
+        public boolean optimal() {
+            return optimal;
+        }
+
+        public int iterations() {
+            return iterations;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+
+/**
+ * Modo de cálculo das sugestões de produção
+ *
+ * INDEPENDENT => cada produto é calculado contra o estoque completo (padrão)
+ * ALLOCATE    => produtos em ordem de valor consomem um estoque compartilhado
+ * OPTIMIZE    => mix que maximiza o valor total com o estoque compartilhado
+ */
+public enum ProductionMode {
+    INDEPENDENT,
+    ALLOCATE,
+    OPTIMIZE;
+
+    public static ProductionMode from(String value) {
+        for (ProductionMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new BusinessException("Invalid production mode: '" + value + "'");
+    }
+}
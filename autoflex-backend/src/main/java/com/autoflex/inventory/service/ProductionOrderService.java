@@ -0,0 +1,199 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.DemandLineDTO;
+import com.autoflex.inventory.dto.ProductionOrderItemDTO;
+import com.autoflex.inventory.dto.ProductionOrderRequestDTO;
+import com.autoflex.inventory.dto.ProductionOrderResponseDTO;
+import com.autoflex.inventory.dto.StockLevelDTO;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Service de EXECUÇÃO de ordens de produção: consome do estoque a BOM dos
+ * produtos produzidos, de forma ATÔMICA
+ *
+ * LÓGICA:
+ * 1. Somar a quantidade por produto (linhas repetidas se acumulam)
+ * 2. Consumo por matéria-prima pela BOM achatada do ProductionEngine
+ *    (inclui sub-montagens), em milésimos
+ * 3. FALHA RÁPIDA: consumo maior que o estoque em memória rejeita a ordem
+ *    sem tocar no banco nem travar nenhuma linha. Usa o último estado
+ *    publicado pelo motor (ProductionEngine.latest, sem trava); só uma
+ *    rejeição sobre estado defasado recalcula o estado atual
+ * 4. Baixa no banco em UM comando (StockAdjustmentService.apply): linhas
+ *    travadas em ordem de ID (sem deadlock entre ordens concorrentes), guarda
+ *    de saldo no próprio UPDATE e movimentações CONSUMPTION no razão. É a
+ *    verificação definitiva, e a única etapa dentro da transação
+ *
+ * Concorrência: só as linhas dos materiais da ordem ficam travadas, e só até
+ * o commit (um UPDATE + um INSERT em batch). Ordens sobre materiais quentes
+ * formam fila apenas nessas linhas; o resto da tabela segue livre. A espera
+ * por trava é limitada (inventory.production.order-lock-timeout-ms): acima
+ * dela a ordem falha em vez de acumular conexões presas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductionOrderService {
+
+    private static final int MAX_ORDER_LINES = 1_000;
+    private static final int MAX_REPORTED_MATERIALS = 20;
+
+    private final ProductionEngine productionEngine;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.production.order-lock-timeout-ms:2000}")
+    private int lockTimeoutMs;
+
+    /**
+     * Executa a ordem inteira ou nada
+     *
+     * A falha rápida usa o último estado publicado pelo motor (sem trava e
+     * ANTES de abrir a transação); a transação só envolve a baixa no banco.
+     *
+     * @param request Linhas (código do produto, quantidade) e referência opcional
+     * @return Itens produzidos e saldo anterior/novo de cada matéria-prima consumida
+     */
+    public ProductionOrderResponseDTO execute(ProductionOrderRequestDTO request) {
+        List<DemandLineDTO> lines = request.getLines();
+        if (lines.size() > MAX_ORDER_LINES) {
+            throw new BusinessException("At most " + MAX_ORDER_LINES + " lines can be executed per production order");
+        }
+        String reference = request.getReference() != null && !request.getReference().isBlank()
+                ? request.getReference()
+                : "production-order " + UUID.randomUUID();
+
+        ProductionState state = productionEngine.latest();
+        OrderPlan plan = plan(lines, state.matrix(), state.stock());
+        if (plan.rejected() && state.version() != productionEngine.version()) {
+            // Estado publicado defasado: confirma com o estado atual antes de rejeitar
+            state = productionEngine.current();
+            plan = plan(lines, state.matrix(), state.stock());
+        }
+        log.info("Executing production order '{}' with {} line(s) (inventory version {})",
+                reference, lines.size(), state.version());
+        if (!plan.unknownCodes().isEmpty()) {
+            throw new ResourceNotFoundException("Product not found with code(s): " + String.join(", ", plan.unknownCodes()));
+        }
+        if (!plan.shortages().isEmpty()) {
+            throw new BusinessException("Insufficient stock for production order: " + String.join("; ", plan.shortages()));
+        }
+
+        // 4. Baixa atômica (espera por trava limitada à transação da baixa)
+        List<StockLevelDTO> levels = List.of();
+        if (!plan.deltas().isEmpty()) {
+            TreeMap<Long, BigDecimal> deltas = plan.deltas();
+            levels = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+                return stockAdjustmentService.apply(deltas, StockMovementType.CONSUMPTION, reference, "Production order");
+            });
+        }
+        log.info("Production order '{}' executed: {} unit(s), {} raw material(s) consumed",
+                reference, plan.totalUnits(), levels.size());
+
+        return ProductionOrderResponseDTO.builder()
+                .reference(reference)
+                .items(plan.items())
+                .materials(levels)
+                .totalUnits(plan.totalUnits())
+                .totalValue(BomMatrix.toDecimal(plan.totalValue(), BomMatrix.VALUE_SCALE))
+                .inventoryVersion(state.version())
+                .executedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+
+    /**
+     * Passos 1 a 3 contra um estado do motor, sem tocar no banco
+     */
+    private OrderPlan plan(List<DemandLineDTO> lines, BomMatrix matrix, long[] stock) {
+        // 1. Quantidade por produto
+        long[] quantity = new long[matrix.productCount()];
+        Set<String> unknownCodes = new LinkedHashSet<>();
+        for (DemandLineDTO line : lines) {
+            int p = matrix.productOrdinalByCode(line.getProductCode());
+            if (p < 0) {
+                if (unknownCodes.size() < MAX_REPORTED_MATERIALS) {
+                    unknownCodes.add(line.getProductCode());
+                }
+                continue;
+            }
+            quantity[p] += line.getQuantity();
+            if (quantity[p] > Integer.MAX_VALUE) {
+                throw new BusinessException("Quantity for product " + line.getProductCode() + " is too large");
+            }
+        }
+        if (!unknownCodes.isEmpty()) {
+            return new OrderPlan(List.of(), new TreeMap<>(), 0, 0, unknownCodes, List.of());
+        }
+
+        // 2. Consumo por ordinal de matéria-prima
+        long[] consumption = new long[matrix.materialCount()];
+        List<ProductionOrderItemDTO> items = new ArrayList<>();
+        long totalUnits = 0;
+        long totalValue = 0;
+        for (int p = 0; p < matrix.productCount(); p++) {
+            int units = (int) quantity[p];
+            if (units == 0) {
+                continue;
+            }
+            for (int k = matrix.rowStart(p); k < matrix.rowEnd(p); k++) {
+                int m = matrix.materialAt(k);
+                consumption[m] = Math.addExact(consumption[m], matrix.totalRequired(k, units));
+            }
+            long value = matrix.totalValue(p, units);
+            totalUnits += units;
+            totalValue = Math.addExact(totalValue, value);
+            items.add(ProductionOrderItemDTO.builder()
+                    .productId(matrix.productId(p))
+                    .productCode(matrix.productCode(p))
+                    .productName(matrix.productName(p))
+                    .quantity(units)
+                    .unitValue(BomMatrix.toDecimal(matrix.productValue(p), BomMatrix.VALUE_SCALE))
+                    .totalValue(BomMatrix.toDecimal(value, BomMatrix.VALUE_SCALE))
+                    .build());
+        }
+
+        // 3. Falha rápida contra o estoque em memória; deltas em ordem de ID
+        List<String> shortages = new ArrayList<>();
+        TreeMap<Long, BigDecimal> deltas = new TreeMap<>();
+        for (int m = 0; m < matrix.materialCount(); m++) {
+            if (consumption[m] == 0) {
+                continue;
+            }
+            if (consumption[m] > stock[m] && shortages.size() < MAX_REPORTED_MATERIALS) {
+                shortages.add(matrix.materialCode(m)
+                        + " (required " + BomMatrix.toDecimal(consumption[m], BomMatrix.QUANTITY_SCALE).toPlainString()
+                        + ", available " + BomMatrix.toDecimal(stock[m], BomMatrix.QUANTITY_SCALE).toPlainString() + ")");
+            }
+            deltas.put(matrix.materialId(m), BomMatrix.toDecimal(-consumption[m], BomMatrix.QUANTITY_SCALE));
+        }
+        return new OrderPlan(items, deltas, totalUnits, totalValue, Set.of(), shortages);
+    }
+
+    private record OrderPlan(List<ProductionOrderItemDTO> items, TreeMap<Long, BigDecimal> deltas,
+                             long totalUnits, long totalValue, Set<String> unknownCodes, List<String> shortages) {
+
+        boolean rejected() {
+            return !unknownCodes.isEmpty() || !shortages.isEmpty();
+        }
+    }
+}
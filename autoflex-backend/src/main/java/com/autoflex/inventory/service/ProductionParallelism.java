@@ -0,0 +1,126 @@
+package com.autoflex.inventory.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+/**
+ * Execução em blocos (fork-join) para catálogos grandes
+ *
+ * O intervalo de produtos [0, size) é dividido em blocos de tamanho fixo,
+ * avaliados em um ForkJoinPool LIMITADO (não usa o commonPool). Os resultados
+ * de cada bloco voltam na MESMA ordem dos ordinais, então a ordem por valor
+ * é preservada.
+ *
+ * Catálogos abaixo do limite (parallel-threshold) rodam em um único bloco
+ * na thread chamadora.
+ */
+@Slf4j
+@Component
+public class ProductionParallelism {
+
+    /**
+     * Trabalho sobre o intervalo de ordinais [from, to)
+     */
+    @FunctionalInterface
+    public interface RangeTask<R> {
+        R apply(int from, int to);
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int chunkSize;
+
+    public ProductionParallelism(
+            @Value("${inventory.production.parallelism:0}") int parallelism,
+            @Value("${inventory.production.parallel-threshold:5000}") int threshold,
+            @Value("${inventory.production.parallel-chunk-size:1024}") int chunkSize) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.threshold = threshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        log.info("Production parallelism: {} thread(s), threshold {} products, chunk size {}",
+                threads, threshold, this.chunkSize);
+    }
+
+    /**
+     * Instância sempre sequencial (testes e benchmarks)
+     */
+    public static ProductionParallelism sequential() {
+        return new ProductionParallelism(1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Executa task por blocos e devolve os resultados na ordem dos blocos
+     */
+    public <R> List<R> mapChunks(int size, RangeTask<R> task) {
+        if (pool == null || size < threshold || size <= chunkSize) {
+            return List.of(task.apply(0, size));
+        }
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        return pool.invoke(new ChunkTask<>(task, 0, chunks, chunkSize, size));
+    }
+
+    /**
+     * Executa task para cada índice de [0, size) como uma tarefa própria
+     * (itens pesados, como cenários), sem o limite de tamanho de mapChunks
+     */
+    public <R> List<R> mapEach(int size, IntFunction<R> task) {
+        if (pool == null || size <= 1) {
+            List<R> results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                results.add(task.apply(i));
+            }
+            return results;
+        }
+        return pool.invoke(new ChunkTask<>((from, to) -> task.apply(from), 0, size, 1, size));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static class ChunkTask<R> extends RecursiveTask<List<R>> {
+        private final RangeTask<R> task;
+        private final int firstChunk;
+        private final int lastChunk;
+        private final int chunkSize;
+        private final int size;
+
+        ChunkTask(RangeTask<R> task, int firstChunk, int lastChunk, int chunkSize, int size) {
+            this.task = task;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+            this.chunkSize = chunkSize;
+            this.size = size;
+        }
+
+        @Override
+        protected List<R> compute() {
+            if (lastChunk - firstChunk == 1) {
+                int from = firstChunk * chunkSize;
+                List<R> result = new ArrayList<>(1);
+                result.add(task.apply(from, Math.min(size, from + chunkSize)));
+                return result;
+            }
+            int middle = (firstChunk + lastChunk) >>> 1;
+            ChunkTask<R> left = new ChunkTask<>(task, firstChunk, middle, chunkSize, size);
+            ChunkTask<R> right = new ChunkTask<>(task, middle, lastChunk, chunkSize, size);
+            left.fork();
+            List<R> rightResult = right.compute();
+            List<R> result = left.join();
+            result.addAll(rightResult);
+            return result;
+        }
+    }
+}
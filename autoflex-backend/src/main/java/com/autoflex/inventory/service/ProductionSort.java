@@ -0,0 +1,42 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+
+/**
+ * Ordenação das sugestões de produção (sempre decrescente)
+ *
+ * VALUE        => valor unitário do produto (padrão, ordem do catálogo)
+ * TOTAL_VALUE  => valor total da quantidade sugerida
+ * MAX_QUANTITY => quantidade sugerida
+ *
+ * Empates ficam na ordem do catálogo (maior valor unitário primeiro).
+ */
+public enum ProductionSort {
+    VALUE,
+    TOTAL_VALUE,
+    MAX_QUANTITY;
+
+    /**
+     * Aceita "totalValue", "total_value" ou "TOTAL_VALUE"
+     */
+    public static ProductionSort from(String value) {
+        String normalized = value == null ? "" : value.replace("_", "");
+        for (ProductionSort sort : values()) {
+            if (sort.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                return sort;
+            }
+        }
+        throw new BusinessException("Invalid sortBy: '" + value + "'");
+    }
+
+    /**
+     * Chave de ordenação de um produto com a quantidade sugerida
+     */
+    long key(BomMatrix matrix, int product, int quantity) {
+        return switch (this) {
+            case VALUE -> matrix.productValue(product);
+            case TOTAL_VALUE -> matrix.totalValue(product, quantity);
+            case MAX_QUANTITY -> quantity;
+        };
+    }
+}
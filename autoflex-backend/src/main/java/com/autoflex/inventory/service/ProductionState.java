@@ -0,0 +1,70 @@
+package com.autoflex.inventory.service;
+
+/**
+ * Resultado imutável do motor de sugestão em um determinado instante
+ *
+ * Guarda a matriz de BOM, o vetor de estoque e a quantidade máxima de cada
+ * produto (por ordinal), além dos totalizadores já agregados.
+ * Os vetores são cópias exclusivas desta instância e NÃO devem ser alterados.
+ */
+public final class ProductionState {
+
+    private final long version;
+    private final BomMatrix matrix;
+    private final long[] stock;
+    private final int[] maxQuantity;
+    private final long totalValue;
+    private final int totalUnits;
+    private final int producibleCount;
+
+    public ProductionState(long version, BomMatrix matrix, long[] stock, int[] maxQuantity,
+                           long totalValue, int totalUnits, int producibleCount) {
+        this.version = version;
+        this.matrix = matrix;
+        this.stock = stock;
+        this.maxQuantity = maxQuantity;
+        this.totalValue = totalValue;
+        this.totalUnits = totalUnits;
+        this.producibleCount = producibleCount;
+    }
+
+    /**
+     * Versão do inventário refletida por este estado
+     */
+    public long version() {
+        return version;
+    }
+
+    public BomMatrix matrix() {
+        return matrix;
+    }
+
+    /**
+     * Vetor de estoque (escala 3) indexado pelo ordinal da matéria-prima — somente leitura
+     */
+    public long[] stock() {
+        return stock;
+    }
+
+    public int maxQuantity(int product) {
+        return maxQuantity[product];
+    }
+
+    /**
+     * Valor total produzível (centavos)
+     */
+    public long totalValue() {
+        return totalValue;
+    }
+
+    public int totalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * Quantidade de produtos com pelo menos 1 unidade produzível
+     */
+    public int producibleCount() {
+        return producibleCount;
+    }
+}
@@ -1,21 +1,23 @@
 package com.autoflex.inventory.service;
 
 import com.autoflex.inventory.dto.*;
-import com.autoflex.inventory.entity.Product;
-import com.autoflex.inventory.entity.ProductRawMaterial;
-import com.autoflex.inventory.repository.ProductRawMaterialRepository;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Service responsável pelo ALGORITMO de sugestão de produção
@@ -26,14 +28,32 @@ import java.util.stream.Collectors;
  * 3. Quantidade máxima = MIN(estoque_material / quantidade_necessaria) para todos os materiais
  * 4. Priorizar produtos de maior valor
  * 5. Retornar lista de sugestões com detalhes
+ * 
+ * O cálculo em si fica no ProductionEngine, que mantém os resultados por
+ * produto e só recalcula o que foi afetado por cada escrita no inventário.
+ * 
+ * CACHE: a resposta de cada modo fica guardada junto com a versão do
+ * inventário que ela reflete. Enquanto a versão não muda, todas as requisições recebem a mesma
+ * resposta. Quando muda, apenas UMA requisição recalcula (single-flight) e as
+ * demais aguardam o mesmo resultado.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductionSuggestionService {
     
-    private final ProductService productService;
-    private final ProductRawMaterialRepository productRawMaterialRepository;
+    private final ProductionEngine productionEngine;
+    private final ProductionParallelism parallelism;
+    
+    private final Map<ProductionMode, VersionedCache<CachedResponse>> caches = new EnumMap<>(Map.of(
+            ProductionMode.INDEPENDENT, new VersionedCache<>(),
+            ProductionMode.ALLOCATE, new VersionedCache<>(),
+            ProductionMode.OPTIMIZE, new VersionedCache<>()));
+    
+    private static final long MAX_OPTIMIZE_BUDGET_MS = 10_000;
+    
+    @Value("${inventory.production.optimize-budget-ms:500}")
+    private long defaultOptimizeBudgetMillis;
     
     /**
      * MÉTODO PRINCIPAL
@@ -41,229 +61,520 @@ public class ProductionSuggestionService {
      * 
      * @return ProductionResponseDTO com lista de sugestões e totalizadores
      */
-    @Transactional(readOnly = true)
     public ProductionResponseDTO calculateProductionSuggestions() {
-        log.info("Starting production suggestion calculation");
-        
-        // 1. Buscar produtos ordenados por valor (maior primeiro)
-        List<Product> products = productService.findAllOrderedByValue();
-        log.info("Found {} products to analyze", products.size());
+        return calculateProductionSuggestions(ProductionMode.INDEPENDENT, null);
+    }
+    
+    /**
+     * Calcula sugestões de produção no modo informado
+     * 
+     * @param mode INDEPENDENT (cada produto contra o estoque completo),
+     *             ALLOCATE (estoque compartilhado, produtos em ordem de valor) ou
+     *             OPTIMIZE (mix que maximiza o valor total)
+     * @param budgetMillis Tempo máximo do otimizador (null = padrão configurado).
+     *                     Respostas com tempo customizado não entram no cache.
+     * @return ProductionResponseDTO com lista de sugestões e totalizadores
+     */
+    public ProductionResponseDTO calculateProductionSuggestions(ProductionMode mode, Long budgetMillis) {
+        if (budgetMillis != null && mode == ProductionMode.OPTIMIZE) {
+            return buildResponse(productionEngine.current(), mode, resolveOptimizeBudget(budgetMillis));
+        }
+        return caches.get(mode).get(
+                productionEngine::version,
+                () -> {
+                    ProductionState state = productionEngine.current();
+                    return new CachedResponse(state.version(),
+                            buildResponse(state, mode, defaultOptimizeBudgetMillis));
+                },
+                cached -> cached.version).response;
+    }
+    
+    /**
+     * Calcula UMA página de sugestões na ordenação informada
+     * 
+     * Sem offset, limit e com ordenação por VALUE, devolve a resposta
+     * completa (com cache). Caso contrário, os totalizadores continuam
+     * cobrindo o catálogo inteiro, mas só os produtos da página viram DTO.
+     * 
+     * @param sortBy Ordenação (decrescente)
+     * @param offset Sugestões a pular (null = 0)
+     * @param limit Tamanho da página (null = todas)
+     * @return ProductionResponseDTO com a página de sugestões e totalizadores
+     */
+    public ProductionResponseDTO calculateProductionSuggestions(
+            ProductionMode mode,
+            Long budgetMillis,
+            ProductionSort sortBy,
+            Integer offset,
+            Integer limit) {
+        if (sortBy == ProductionSort.VALUE && offset == null && limit == null) {
+            return calculateProductionSuggestions(mode, budgetMillis);
+        }
+        if (offset != null && offset < 0) {
+            throw new BusinessException("offset must be greater than or equal to 0");
+        }
+        if (limit != null && limit <= 0) {
+            throw new BusinessException("limit must be greater than 0");
+        }
+        long budget = mode == ProductionMode.OPTIMIZE
+                ? resolveOptimizeBudget(budgetMillis)
+                : defaultOptimizeBudgetMillis;
+        return buildPage(productionEngine.current(), mode, budget, sortBy,
+                offset == null ? 0 : offset,
+                limit == null ? Integer.MAX_VALUE : limit);
+    }
+    
+    /**
+     * Explosão da BOM de um produto: matérias-primas de TODOS os níveis
+     * (sub-montagens já achatadas pelo motor) para produzir quantity unidades,
+     * comparadas com o estoque atual
+     * 
+     * @param productId ID do produto
+     * @param quantity Unidades a produzir
+     * @return Requisitos por matéria-prima
+     */
+    public List<MaterialRequirementDTO> explodeProduct(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new BusinessException("quantity must be greater than 0");
+        }
+        ProductionState state = productionEngine.current();
+        BomMatrix matrix = state.matrix();
+        int product = matrix.productOrdinal(productId);
+        if (product < 0) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
         
-        // 2. Calcular sugestões para cada produto
-        List<ProductionSuggestionDTO> suggestions = new ArrayList<>();
-        BigDecimal totalValue = BigDecimal.ZERO;
-        int totalUnits = 0;
+        List<MaterialRequirementDTO> requirements = new ArrayList<>(matrix.rowEnd(product) - matrix.rowStart(product));
+        for (int k = matrix.rowStart(product); k < matrix.rowEnd(product); k++) {
+            requirements.add(createMaterialRequirement(matrix, k, state.stock()[matrix.materialAt(k)], quantity));
+        }
+        return requirements;
+    }
+    
+    /**
+     * Onde uma matéria-prima é usada: produtos que a consomem diretamente ou
+     * por meio de sub-montagens (índice reverso da matriz achatada)
+     * 
+     * @param materialId ID da matéria-prima
+     * @return Produtos em ordem de valor, com a quantidade por unidade
+     */
+    public List<WhereUsedDTO> findWhereUsed(Long materialId) {
+        BomMatrix matrix = productionEngine.current().matrix();
+        int material = matrix.materialOrdinal(materialId);
+        if (material < 0) {
+            throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+        }
         
-        for (Product product : products) {
-            // Calcular sugestão para este produto
-            ProductionSuggestionDTO suggestion = calculateForProduct(product);
-            
-            // Adicionar apenas se for possível produzir pelo menos 1 unidade
-            if (suggestion.getCanProduce() && suggestion.getMaxQuantity() > 0) {
-                suggestions.add(suggestion);
-                totalValue = totalValue.add(suggestion.getTotalValue());
-                totalUnits += suggestion.getMaxQuantity();
+        List<WhereUsedDTO> usages = new ArrayList<>(matrix.usageEnd(material) - matrix.usageStart(material));
+        for (int i = matrix.usageStart(material); i < matrix.usageEnd(material); i++) {
+            int product = matrix.productAt(i);
+            for (int k = matrix.rowStart(product); k < matrix.rowEnd(product); k++) {
+                if (matrix.materialAt(k) == material) {
+                    usages.add(WhereUsedDTO.builder()
+                            .productId(matrix.productId(product))
+                            .productCode(matrix.productCode(product))
+                            .productName(matrix.productName(product))
+                            .requiredPerUnit(BomMatrix.toDecimal(matrix.requiredAt(k), BomMatrix.QUANTITY_SCALE))
+                            .unit(matrix.materialUnit(material))
+                            .build());
+                    break;
+                }
             }
         }
-        
-        log.info("Production suggestions calculated. Total products: {}, Total units: {}, Total value: {}",
-                suggestions.size(), totalUnits, totalValue);
-        
-        // 3. Montar resposta
-        return ProductionResponseDTO.builder()
-                .suggestions(suggestions)
-                .totalProductionValue(totalValue)
-                .totalProductTypes(suggestions.size())
-                .totalUnits(totalUnits)
-                .generatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
-                .warnings(generateWarnings(suggestions))
-                .build();
+        return usages;
     }
     
     /**
-     * Calcula sugestão para UM produto específico
+     * Calcula sugestões de produção entregando cada uma ao consumer assim que
+     * é montada (endpoint de streaming)
      * 
-     * @param product Produto a analisar
-     * @return ProductionSuggestionDTO com detalhes
+     * Nenhuma lista de sugestões é mantida: a memória por requisição fica
+     * limitada ao DTO de UM produto (mais o vetor de estoque de trabalho nos
+     * modos ALLOCATE e OPTIMIZE). Não passa pelo cache de respostas.
+     * 
+     * @param mode Modo de cálculo
+     * @param budgetMillis Tempo do otimizador já validado (ver resolveOptimizeBudget)
+     * @param consumer Recebe as sugestões em ordem de valor
+     * @return Resumo (totais, avisos, estoque restante) sem a lista de sugestões
      */
-    private ProductionSuggestionDTO calculateForProduct(Product product) {
-        log.debug("Calculating suggestion for product: {} ({})", product.getName(), product.getCode());
-        
-        // Buscar matérias-primas necessárias
-        List<ProductRawMaterial> materials = productRawMaterialRepository.findByProductId(product.getId());
+    public ProductionResponseDTO streamProductionSuggestions(
+            ProductionMode mode,
+            long budgetMillis,
+            Consumer<ProductionSuggestionDTO> consumer) {
+        return walk(productionEngine.current(), mode, budgetMillis, consumer);
+    }
+    
+    /**
+     * Valida o tempo do otimizador informado na requisição
+     * 
+     * @return budgetMillis, ou o padrão configurado quando null
+     * @throws BusinessException se estiver fora de [0, MAX_OPTIMIZE_BUDGET_MS]
+     */
+    public long resolveOptimizeBudget(Long budgetMillis) {
+        if (budgetMillis == null) {
+            return defaultOptimizeBudgetMillis;
+        }
+        if (budgetMillis < 0 || budgetMillis > MAX_OPTIMIZE_BUDGET_MS) {
+            throw new BusinessException("budgetMs must be between 0 and " + MAX_OPTIMIZE_BUDGET_MS);
+        }
+        return budgetMillis;
+    }
+    
+    /**
+     * Monta a resposta completa a partir de um estado do motor
+     * 
+     * No modo INDEPENDENT os produtos não dependem uns dos outros, então os
+     * DTOs de catálogos grandes são montados em blocos paralelos e
+     * concatenados na ordem original. Os demais modos percorrem os produtos
+     * em sequência (ver walk).
+     */
+    private ProductionResponseDTO buildResponse(ProductionState state, ProductionMode mode, long budgetMillis) {
+        List<ProductionSuggestionDTO> suggestions = new ArrayList<>(state.producibleCount());
+        ProductionResponseDTO response;
         
-        // Se não tem matérias-primas cadastradas, não pode produzir
-        if (materials.isEmpty()) {
-            log.debug("Product {} has no materials configured", product.getCode());
-            return createEmptySuggestion(product, "No materials configured for this product");
+        if (mode == ProductionMode.INDEPENDENT) {
+            log.info("Starting production suggestion calculation (mode {}, inventory version {})",
+                    mode, state.version());
+            BomMatrix matrix = state.matrix();
+            long[] stock = state.stock();
+            log.info("Found {} products to analyze", matrix.productCount());
+            
+            List<List<ProductionSuggestionDTO>> chunks = parallelism.mapChunks(matrix.productCount(),
+                    (from, to) -> {
+                        List<ProductionSuggestionDTO> chunk = new ArrayList<>();
+                        for (int p = from; p < to; p++) {
+                            if (state.maxQuantity(p) > 0) {
+                                chunk.add(toSuggestion(matrix, p, state.maxQuantity(p), stock));
+                            }
+                        }
+                        return chunk;
+                    });
+            chunks.forEach(suggestions::addAll);
+            response = summarize(mode, state.totalValue(), state.totalUnits(), suggestions.size(), null, null);
+        } else {
+            response = walk(state, mode, budgetMillis, suggestions::add);
         }
         
-        // Calcular quantidade máxima produzível
-        CalculationResult result = calculateMaxQuantity(materials);
+        response.setSuggestions(suggestions);
+        return response;
+    }
+    
+    /**
+     * Percorre os produtos em ordem de valor e entrega cada sugestão ao consumer
+     * 
+     * No modo ALLOCATE cada produto desconta o que consome de um vetor de
+     * estoque de trabalho (um único long[] mutável), então o custo é linear
+     * no total de linhas de BOM.
+     * 
+     * No modo OPTIMIZE as quantidades vêm do ProductionMixSolver e são
+     * descontadas do mesmo vetor de trabalho, em ordem de valor.
+     * 
+     * @return Resumo da resposta, sem a lista de sugestões
+     */
+    private ProductionResponseDTO walk(
+            ProductionState state,
+            ProductionMode mode,
+            long budgetMillis,
+            Consumer<ProductionSuggestionDTO> consumer) {
+        log.info("Starting production suggestion calculation (mode {}, inventory version {})",
+                mode, state.version());
         
-        // Montar lista de detalhes de materiais
-        List<MaterialRequirementDTO> requirements = materials.stream()
-                .map(m -> createMaterialRequirement(m, result.maxQuantity))
-                .collect(Collectors.toList());
+        // 1. Estado atual (produtos já ordenados por valor, maior primeiro)
+        BomMatrix matrix = state.matrix();
+        boolean allocate = mode != ProductionMode.INDEPENDENT;
+        long[] stock = allocate ? state.stock().clone() : state.stock();
+        log.info("Found {} products to analyze", matrix.productCount());
         
-        // Calcular valor total
-        BigDecimal totalValue = product.getValue()
-                .multiply(BigDecimal.valueOf(result.maxQuantity))
-                .setScale(2, RoundingMode.HALF_UP);
+        ProductionMixSolver.Solution solution = mode == ProductionMode.OPTIMIZE
+                ? ProductionMixSolver.solve(matrix, state.stock(), TimeUnit.MILLISECONDS.toNanos(budgetMillis))
+                : null;
         
-        // Converter produto para DTO
-        ProductDTO productDTO = ProductDTO.builder()
-                .id(product.getId())
-                .code(product.getCode())
-                .name(product.getName())
-                .value(product.getValue())
-                .build();
+        // 2. Entregar sugestões dos produtos com pelo menos 1 unidade produzível
+        long totalValue = 0;
+        int totalUnits = 0;
+        int productTypes = 0;
         
-        return ProductionSuggestionDTO.builder()
-                .product(productDTO)
-                .maxQuantity(result.maxQuantity)
-                .totalValue(totalValue)
-                .materialRequirements(requirements)
-                .canProduce(result.maxQuantity > 0)
-                .missingMaterials(result.missingMaterials)
-                .build();
+        for (int p = 0; p < matrix.productCount(); p++) {
+            int maxQuantity = switch (mode) {
+                case INDEPENDENT -> state.maxQuantity(p);
+                case ALLOCATE -> matrix.maxQuantity(p, stock);
+                case OPTIMIZE -> solution.quantity(p);
+            };
+            if (maxQuantity > 0) {
+                consumer.accept(toSuggestion(matrix, p, maxQuantity, stock));
+                if (allocate) {
+                    matrix.consume(p, maxQuantity, stock);
+                }
+                totalValue = Math.addExact(totalValue, matrix.totalValue(p, maxQuantity));
+                totalUnits += maxQuantity;
+                productTypes++;
+            }
+        }
+        
+        // 3. Resumo
+        return summarize(mode, totalValue, totalUnits, productTypes,
+                allocate ? toStockBalance(matrix, state.stock(), stock) : null,
+                solution != null ? toOptimizationSummary(solution, budgetMillis) : null);
     }
     
     /**
-     * ALGORITMO CORE: Calcula quantidade máxima produzível
+     * Monta uma página de sugestões sem materializar o catálogo inteiro
      * 
-     * Lógica:
-     * - Para cada matéria-prima, calcular: estoque_disponivel / quantidade_necessaria
-     * - Quantidade máxima = MENOR valor entre todos os materiais
-     * - Se qualquer material tiver estoque = 0, não pode produzir
+     * 1ª passada: quantidade de cada produto (descontando o estoque de
+     * trabalho nos modos ALLOCATE e OPTIMIZE), totalizadores e seleção dos
+     * offset + limit melhores em um heap limitado (TopKSelector). Nenhum DTO
+     * é criado.
      * 
-     * @param materials Lista de matérias-primas do produto
-     * @return CalculationResult com maxQuantity e lista de materiais faltantes
+     * 2ª passada (só ALLOCATE e OPTIMIZE): repete o desconto até o último
+     * produto da página para obter o estoque visto por cada um deles.
      */
-    private CalculationResult calculateMaxQuantity(List<ProductRawMaterial> materials) {
-        Integer maxQuantity = Integer.MAX_VALUE;
-        List<String> missingMaterials = new ArrayList<>();
+    private ProductionResponseDTO buildPage(
+            ProductionState state,
+            ProductionMode mode,
+            long budgetMillis,
+            ProductionSort sortBy,
+            int offset,
+            int limit) {
+        log.info("Starting production suggestion page (mode {}, sortBy {}, offset {}, limit {}, inventory version {})",
+                mode, sortBy, offset, limit, state.version());
         
-        for (ProductRawMaterial prm : materials) {
-            BigDecimal availableStock = prm.getRawMaterial().getStockQuantity();
-            BigDecimal requiredPerUnit = prm.getRequiredQuantity();
-            
-            // Se não tem estoque, adiciona na lista de faltantes
-            if (availableStock.compareTo(BigDecimal.ZERO) == 0) {
-                missingMaterials.add(prm.getRawMaterial().getName() + " (out of stock)");
-                maxQuantity = 0;
-                continue;
-            }
-            
-            // Calcular quantas unidades podem ser produzidas com este material
-            // Exemplo: 100 KG disponível / 2.5 KG por unidade = 40 unidades
-            int possibleUnits = availableStock
-                    .divide(requiredPerUnit, 0, RoundingMode.DOWN) // Arredonda pra baixo
-                    .intValue();
-            
-            // O limitante é sempre o MENOR valor
-            maxQuantity = Math.min(maxQuantity, possibleUnits);
-            
-            // Se estoque é insuficiente para 1 unidade
-            if (possibleUnits == 0) {
-                missingMaterials.add(prm.getRawMaterial().getName() + " (insufficient stock)");
+        BomMatrix matrix = state.matrix();
+        boolean allocate = mode != ProductionMode.INDEPENDENT;
+        long[] stock = allocate ? state.stock().clone() : state.stock();
+        
+        ProductionMixSolver.Solution solution = mode == ProductionMode.OPTIMIZE
+                ? ProductionMixSolver.solve(matrix, state.stock(), TimeUnit.MILLISECONDS.toNanos(budgetMillis))
+                : null;
+        
+        // 1. Quantidades, totalizadores e seleção (sem DTOs)
+        int[] quantity = new int[matrix.productCount()];
+        TopKSelector selector = new TopKSelector((int) Math.min((long) offset + limit, matrix.productCount()));
+        long totalValue = 0;
+        int totalUnits = 0;
+        int productTypes = 0;
+        
+        for (int p = 0; p < matrix.productCount(); p++) {
+            int maxQuantity = switch (mode) {
+                case INDEPENDENT -> state.maxQuantity(p);
+                case ALLOCATE -> matrix.maxQuantity(p, stock);
+                case OPTIMIZE -> solution.quantity(p);
+            };
+            if (maxQuantity > 0) {
+                quantity[p] = maxQuantity;
+                if (allocate) {
+                    matrix.consume(p, maxQuantity, stock);
+                }
+                totalValue = Math.addExact(totalValue, matrix.totalValue(p, maxQuantity));
+                totalUnits += maxQuantity;
+                productTypes++;
+                selector.offer(sortBy.key(matrix, p, maxQuantity), p);
             }
         }
         
-        // Se maxQuantity ficou como Integer.MAX_VALUE, significa que não tinha materiais
-        if (maxQuantity == Integer.MAX_VALUE) {
-            maxQuantity = 0;
+        // 2. Materializar só a página
+        int[] selected = selector.drainDescending();
+        int pageSize = Math.max(0, selected.length - offset);
+        ProductionSuggestionDTO[] page = new ProductionSuggestionDTO[pageSize];
+        
+        if (!allocate) {
+            for (int i = 0; i < pageSize; i++) {
+                int p = selected[offset + i];
+                page[i] = toSuggestion(matrix, p, quantity[p], stock);
+            }
+        } else if (pageSize > 0) {
+            int last = 0;
+            for (int i = 0; i < pageSize; i++) {
+                last = Math.max(last, selected[offset + i]);
+            }
+            int[] position = new int[last + 1];
+            Arrays.fill(position, -1);
+            for (int i = 0; i < pageSize; i++) {
+                position[selected[offset + i]] = i;
+            }
+            long[] replay = state.stock().clone();
+            for (int p = 0; p <= last; p++) {
+                if (quantity[p] > 0) {
+                    if (position[p] >= 0) {
+                        page[position[p]] = toSuggestion(matrix, p, quantity[p], replay);
+                    }
+                    matrix.consume(p, quantity[p], replay);
+                }
+            }
         }
         
-        return new CalculationResult(maxQuantity, missingMaterials);
+        // 3. Resumo do catálogo inteiro + página
+        ProductionResponseDTO response = summarize(mode, totalValue, totalUnits, productTypes,
+                allocate ? toStockBalance(matrix, state.stock(), stock) : null,
+                solution != null ? toOptimizationSummary(solution, budgetMillis) : null);
+        response.setSuggestions(Arrays.asList(page));
+        response.setSortBy(sortBy.name());
+        response.setOffset(offset);
+        response.setLimit(limit == Integer.MAX_VALUE ? null : limit);
+        return response;
     }
     
     /**
-     * Cria DTO com detalhes de requisito de material
+     * Totalizadores e avisos da resposta (valor em centavos)
      */
-    private MaterialRequirementDTO createMaterialRequirement(
-            ProductRawMaterial prm, 
-            Integer quantityToProduce) {
-        
-        BigDecimal availableStock = prm.getRawMaterial().getStockQuantity();
-        BigDecimal requiredPerUnit = prm.getRequiredQuantity();
+    private ProductionResponseDTO summarize(
+            ProductionMode mode,
+            long totalValue,
+            int totalUnits,
+            int productTypes,
+            List<MaterialStockDTO> remainingStock,
+            OptimizationSummaryDTO optimization) {
+        BigDecimal totalProductionValue = productTypes == 0
+                ? BigDecimal.ZERO
+                : BomMatrix.toDecimal(totalValue, BomMatrix.VALUE_SCALE);
         
-        // Quantidade total necessária para produzir quantityToProduce unidades
-        BigDecimal totalRequired = requiredPerUnit
-                .multiply(BigDecimal.valueOf(quantityToProduce))
-                .setScale(3, RoundingMode.HALF_UP);
-        
-        // Quanto vai sobrar após produção
-        BigDecimal remainingStock = availableStock
-                .subtract(totalRequired)
-                .setScale(3, RoundingMode.HALF_UP);
+        log.info("Production suggestions calculated. Total products: {}, Total units: {}, Total value: {}",
+                productTypes, totalUnits, totalProductionValue);
         
-        return MaterialRequirementDTO.builder()
-                .materialName(prm.getRawMaterial().getName())
-                .materialCode(prm.getRawMaterial().getCode())
-                .requiredPerUnit(requiredPerUnit)
-                .availableStock(availableStock)
-                .totalRequired(totalRequired)
+        return ProductionResponseDTO.builder()
+                .totalProductionValue(totalProductionValue)
+                .totalProductTypes(productTypes)
+                .totalUnits(totalUnits)
+                .generatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .warnings(generateWarnings(productTypes))
+                .mode(mode.name())
                 .remainingStock(remainingStock)
-                .unit(prm.getRawMaterial().getUnit())
-                .sufficient(availableStock.compareTo(totalRequired) >= 0)
+                .optimization(optimization)
+                .build();
+    }
+    
+    private OptimizationSummaryDTO toOptimizationSummary(ProductionMixSolver.Solution solution, long budgetMillis) {
+        log.info("Production mix optimized: value {}, upper bound {}, gap {}, {} iteration(s)",
+                solution.value(), solution.upperBound(), solution.gap(), solution.iterations());
+        return OptimizationSummaryDTO.builder()
+                .upperBound(BomMatrix.toDecimal(solution.upperBound(), BomMatrix.VALUE_SCALE))
+                .optimalityGap(solution.gap())
+                .optimal(solution.optimal())
+                .iterations(solution.iterations())
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(solution.elapsedNanos()))
+                .budgetMillis(budgetMillis)
                 .build();
     }
     
     /**
-     * Cria sugestão vazia (quando não pode produzir)
+     * Estoque inicial, consumido e restante de cada matéria-prima
      */
-    private ProductionSuggestionDTO createEmptySuggestion(Product product, String reason) {
+    private List<MaterialStockDTO> toStockBalance(BomMatrix matrix, long[] initialStock, long[] remainingStock) {
+        List<MaterialStockDTO> balance = new ArrayList<>(matrix.materialCount());
+        for (int m = 0; m < matrix.materialCount(); m++) {
+            balance.add(MaterialStockDTO.builder()
+                    .materialId(matrix.materialId(m))
+                    .materialCode(matrix.materialCode(m))
+                    .materialName(matrix.materialName(m))
+                    .unit(matrix.materialUnit(m))
+                    .initialStock(BomMatrix.toDecimal(initialStock[m], BomMatrix.QUANTITY_SCALE))
+                    .consumed(BomMatrix.toDecimal(initialStock[m] - remainingStock[m], BomMatrix.QUANTITY_SCALE))
+                    .remainingStock(BomMatrix.toDecimal(remainingStock[m], BomMatrix.QUANTITY_SCALE))
+                    .build());
+        }
+        return balance;
+    }
+    
+    /**
+     * Monta o DTO de sugestão de UM produto (fronteira primitivo -> BigDecimal)
+     * 
+     * @param matrix Matriz de BOM compilada
+     * @param product Ordinal do produto na matriz
+     * @param maxQuantity Quantidade máxima já calculada
+     * @param stock Estoque usado no cálculo (escala 3)
+     * @return ProductionSuggestionDTO com detalhes
+     */
+    private ProductionSuggestionDTO toSuggestion(BomMatrix matrix, int product, int maxQuantity, long[] stock) {
+        log.debug("Calculating suggestion for product: {} ({})",
+                matrix.productName(product), matrix.productCode(product));
+        
+        int lineCount = matrix.rowEnd(product) - matrix.rowStart(product);
+        List<MaterialRequirementDTO> requirements = new ArrayList<>(lineCount);
+        List<String> missingMaterials = new ArrayList<>();
+        
+        for (int k = matrix.rowStart(product); k < matrix.rowEnd(product); k++) {
+            int m = matrix.materialAt(k);
+            requirements.add(createMaterialRequirement(matrix, k, stock[m], maxQuantity));
+            
+            // Materiais sem estoque ou insuficientes para 1 unidade
+            if (stock[m] == 0) {
+                missingMaterials.add(matrix.materialName(m) + " (out of stock)");
+            } else if ((int) (stock[m] / matrix.requiredAt(k)) == 0) {
+                missingMaterials.add(matrix.materialName(m) + " (insufficient stock)");
+            }
+        }
+        
+        // Converter produto para DTO
         ProductDTO productDTO = ProductDTO.builder()
-                .id(product.getId())
-                .code(product.getCode())
-                .name(product.getName())
-                .value(product.getValue())
+                .id(matrix.productId(product))
+                .code(matrix.productCode(product))
+                .name(matrix.productName(product))
+                .value(BomMatrix.toDecimal(matrix.productValue(product), BomMatrix.VALUE_SCALE))
                 .build();
         
         return ProductionSuggestionDTO.builder()
                 .product(productDTO)
-                .maxQuantity(0)
-                .unitValue(product.getValue())
-                .totalValue(BigDecimal.ZERO)
-                .materialRequirements(new ArrayList<>())
-                .canProduce(false)
-                .missingMaterials(List.of(reason))
+                .maxQuantity(maxQuantity)
+                .totalValue(BomMatrix.toDecimal(matrix.totalValue(product, maxQuantity), BomMatrix.VALUE_SCALE))
+                .materialRequirements(requirements)
+                .canProduce(maxQuantity > 0)
+                .missingMaterials(missingMaterials)
+                .build();
+    }
+    
+    /**
+     * Cria DTO com detalhes de requisito de material
+     * 
+     * Quantidade total necessária = necessário por unidade * quantidade
+     * Sobra = estoque - total necessário (tudo na escala 3, sem arredondamento)
+     */
+    private MaterialRequirementDTO createMaterialRequirement(
+            BomMatrix matrix,
+            int k,
+            long availableStock,
+            int quantityToProduce) {
+        
+        int m = matrix.materialAt(k);
+        long totalRequired = matrix.totalRequired(k, quantityToProduce);
+        long remainingStock = Math.subtractExact(availableStock, totalRequired);
+        
+        return MaterialRequirementDTO.builder()
+                .materialName(matrix.materialName(m))
+                .materialCode(matrix.materialCode(m))
+                .requiredPerUnit(BomMatrix.toDecimal(matrix.requiredAt(k), BomMatrix.QUANTITY_SCALE))
+                .availableStock(BomMatrix.toDecimal(availableStock, BomMatrix.QUANTITY_SCALE))
+                .totalRequired(BomMatrix.toDecimal(totalRequired, BomMatrix.QUANTITY_SCALE))
+                .remainingStock(BomMatrix.toDecimal(remainingStock, BomMatrix.QUANTITY_SCALE))
+                .unit(matrix.materialUnit(m))
+                .sufficient(availableStock >= totalRequired)
                 .build();
     }
     
     /**
      * Gera avisos baseado nas sugestões
+     * 
+     * Só entram na resposta produtos com pelo menos 1 unidade produzível,
+     * então basta saber quantos foram sugeridos.
      */
-    private List<String> generateWarnings(List<ProductionSuggestionDTO> suggestions) {
+    private List<String> generateWarnings(int productTypes) {
         List<String> warnings = new ArrayList<>();
         
-        if (suggestions.isEmpty()) {
+        if (productTypes == 0) {
             warnings.add("No products can be produced with current stock");
         }
         
-        // Verificar produtos que não podem ser produzidos
-        long cannotProduceCount = suggestions.stream()
-                .filter(s -> !s.getCanProduce())
-                .count();
-        
-        if (cannotProduceCount > 0) {
-            warnings.add(cannotProduceCount + " product(s) cannot be produced due to insufficient stock");
-        }
-        
         return warnings;
     }
     
     /**
-     * Classe auxiliar para retorno do cálculo
+     * Resposta já calculada e a versão do inventário que ela reflete
      */
-    private static class CalculationResult {
-        Integer maxQuantity;
-        List<String> missingMaterials;
+    private static class CachedResponse {
+        final long version;
+        final ProductionResponseDTO response;
         
-        CalculationResult(Integer maxQuantity, List<String> missingMaterials) {
-            this.maxQuantity = maxQuantity;
-            this.missingMaterials = missingMaterials;
+        CachedResponse(long version, ProductionResponseDTO response) {
+            this.version = version;
+            this.response = response;
         }
     }
 }
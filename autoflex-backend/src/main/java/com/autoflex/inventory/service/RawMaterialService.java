@@ -1,18 +1,33 @@
 package com.autoflex.inventory.service;
 
+import com.autoflex.inventory.dto.CursorPageDTO;
 import com.autoflex.inventory.dto.RawMaterialDTO;
 import com.autoflex.inventory.entity.RawMaterial;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
 import com.autoflex.inventory.exception.BusinessException;
 import com.autoflex.inventory.exception.ResourceNotFoundException;
+import com.autoflex.inventory.repository.ProductRawMaterialRepository;
+import com.autoflex.inventory.repository.ProductRawMaterialRepository.MaterialUsageView;
 import com.autoflex.inventory.repository.RawMaterialRepository;
+import com.autoflex.inventory.repository.StockStripeRepository;
+import com.autoflex.inventory.repository.StockStripeRepository.StripedTotalView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -20,15 +35,85 @@ import java.util.stream.Collectors;
 public class RawMaterialService {
     
     private final RawMaterialRepository rawMaterialRepository;
+    private final StockStripeRepository stockStripeRepository;
+    private final ProductRawMaterialRepository productRawMaterialRepository;
+    private final StockLedgerService stockLedgerService;
+    private final StockStripingService stockStripingService;
+    private final PendingStockDeltas pendingStockDeltas;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    // Mesmo valor do índice parcial idx_raw_materials_low_stock (db/migration/002_listing_indexes.sql)
     private static final BigDecimal LOW_STOCK_THRESHOLD = BigDecimal.valueOf(10);
     
+    private static final String STRIPED_QUANTITY =
+            "(SELECT COALESCE(SUM(s.quantity), 0) FROM stock_stripes s WHERE s.raw_material_id = m.id)";
+    // Página (até 200 linhas): subconsultas correlacionadas, pelo índice de raw_material_id
+    private static final String PAGE_SELECT = "SELECT m.id, m.code, m.name, m.unit, m.stock_quantity, "
+            + STRIPED_QUANTITY + " AS striped_quantity, "
+            + "(SELECT COUNT(*) FROM product_raw_materials pr WHERE pr.raw_material_id = m.id) AS used_in_products, "
+            + "m.created_at, m.updated_at FROM raw_materials m";
+    
+    // Tabela inteira: cada tabela filha é agregada UMA vez (GROUP BY) e juntada por hash
+    private static final String LIST_ALL = """
+            SELECT m.id, m.code, m.name, m.unit, m.stock_quantity,
+                   COALESCE(s.quantity, 0) AS striped_quantity,
+                   COALESCE(u.products, 0) AS used_in_products,
+                   m.created_at, m.updated_at
+              FROM raw_materials m
+              LEFT JOIN (SELECT raw_material_id, SUM(quantity) AS quantity
+                           FROM stock_stripes GROUP BY raw_material_id) s ON s.raw_material_id = m.id
+              LEFT JOIN (SELECT raw_material_id, COUNT(*) AS products
+                           FROM product_raw_materials GROUP BY raw_material_id) u ON u.raw_material_id = m.id
+             ORDER BY m.id
+            """;
+    
+    /**
+     * Lista todas as matérias-primas em UMA consulta de projeção: estoque das
+     * stripes e usedInProductsCount vêm de agregações, sem entidades nem
+     * coleções LAZY
+     */
     @Transactional(readOnly = true)
     public List<RawMaterialDTO> findAll() {
         log.info("Finding all raw materials");
-        return rawMaterialRepository.findAll()
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return jdbcTemplate.query(LIST_ALL, this::fromRow);
+    }
+    
+    /**
+     * Lista uma página de matérias-primas (keyset: custo independe do tamanho
+     * da tabela e da profundidade da página)
+     *
+     * lowStock filtra pelo saldo do banco (linha + stripes); baixas ainda no
+     * write-behind só entram no saldo mostrado.
+     *
+     * @param code Prefixo do código (sem diferenciar maiúsculas)
+     * @param name Prefixo do nome (sem diferenciar maiúsculas)
+     * @param unit Unidade exata
+     * @param lowStock true = só estoque baixo, false = só estoque normal
+     * @param sortBy code (padrão) ou name
+     * @param cursor nextCursor da página anterior (null = primeira página)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<RawMaterialDTO> findPage(String code, String name, String unit, Boolean lowStock,
+                                                  String sortBy, String cursor, int limit) {
+        ListingSort sort = ListingSort.from(sortBy);
+        if (sort == ListingSort.VALUE) {
+            throw new BusinessException("Invalid sortBy for raw materials: 'value'");
+        }
+        log.info("Finding raw materials page: sort {}, limit {}, cursor {}", sort, limit, cursor != null);
+        // Limite como literal: o planner só usa o índice parcial se o predicado for o mesmo
+        String threshold = LOW_STOCK_THRESHOLD.toPlainString();
+        KeysetQuery query = new KeysetQuery()
+                .prefix("m.code", code)
+                .prefix("m.name", name)
+                .where("m.unit = ?", unit == null || unit.isBlank() ? null : unit.trim());
+        if (Boolean.TRUE.equals(lowStock)) {
+            query.where("m.stock_quantity < " + threshold
+                    + " AND m.stock_quantity + " + STRIPED_QUANTITY + " < " + threshold);
+        } else if (Boolean.FALSE.equals(lowStock)) {
+            query.where("m.stock_quantity + " + STRIPED_QUANTITY + " >= " + threshold);
+        }
+        return query.fetch(jdbcTemplate, PAGE_SELECT, sort, cursor, limit, this::fromRow, RawMaterialDTO::getId,
+                dto -> sort == ListingSort.NAME ? dto.getName() : dto.getCode());
     }
     
     @Transactional(readOnly = true)
@@ -49,6 +134,8 @@ public class RawMaterialService {
         
         RawMaterial material = toEntity(dto);
         RawMaterial saved = rawMaterialRepository.save(material);
+        stockLedgerService.record(saved.getId(), StockMovementType.OPENING, saved.getStockQuantity(), "material-create");
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.MATERIAL_CREATED, saved.getId()));
         
         log.info("Raw material created successfully with id: {}", saved.getId());
         return toDTO(saved);
@@ -58,7 +145,8 @@ public class RawMaterialService {
     public RawMaterialDTO update(Long id, RawMaterialDTO dto) {
         log.info("Updating raw material with id: {}", id);
         
-        RawMaterial material = rawMaterialRepository.findById(id)
+        // Trava a linha: o delta de ajuste no razão parte do saldo lido aqui
+        RawMaterial material = rawMaterialRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Raw material not found with id: " + id));
         
         // Validação de código único
@@ -70,10 +158,11 @@ public class RawMaterialService {
         
         material.setCode(dto.getCode());
         material.setName(dto.getName());
-        material.setStockQuantity(dto.getStockQuantity());
         material.setUnit(dto.getUnit());
+        setStock(material, dto.getStockQuantity(), "material-update");
         
         RawMaterial updated = rawMaterialRepository.save(material);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.MATERIAL_UPDATED, id));
         log.info("Raw material updated successfully");
         
         return toDTO(updated);
@@ -88,6 +177,8 @@ public class RawMaterialService {
         }
         
         rawMaterialRepository.deleteById(id);
+        stockStripingService.remove(id);
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.MATERIAL_DELETED, id));
         log.info("Raw material deleted successfully");
     }
     
@@ -99,31 +190,140 @@ public class RawMaterialService {
     public void updateStock(Long id, BigDecimal newQuantity) {
         log.info("Updating stock for material id: {} to quantity: {}", id, newQuantity);
         
-        RawMaterial material = rawMaterialRepository.findById(id)
+        RawMaterial material = rawMaterialRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Raw material not found with id: " + id));
         
-        material.setStockQuantity(newQuantity);
-        rawMaterialRepository.save(material);
+        setStock(material, newQuantity, "stock-update");
+        eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.STOCK_CHANGED, id));
+    }
+    
+    /**
+     * Grava um saldo ABSOLUTO e registra a diferença no razão
+     * Material fatiado: o saldo gravado na linha é redistribuído nas stripes
+     * 
+     * O chamador carrega o material com findByIdForUpdate: sem a trava, duas
+     * gravações concorrentes calculariam o delta sobre o mesmo saldo anterior
+     * e o razão deixaria de fechar com raw_materials.stock_quantity
+     * 
+     * quantity é o saldo GRAVADO (o stockQuantity do DTO, sem as baixas
+     * pendentes do write-behind): as pendentes continuam valendo e o flush
+     * as aplica sobre o novo saldo, sem contar a mesma baixa duas vezes
+     */
+    private void setStock(RawMaterial material, BigDecimal quantity, String reference) {
+        BigDecimal previousRow = material.getStockQuantity();
+        material.setStockQuantity(quantity);
+        rawMaterialRepository.saveAndFlush(material);
+        
+        BigDecimal previousStriped = stockStripingService.absorb(List.of(material.getId())).get(material.getId());
+        BigDecimal previousStock = previousRow;
+        if (previousStriped != null) {
+            previousStock = previousRow.add(previousStriped);
+            // Espelha o banco: linha zerada, saldo nas stripes
+            material.setStockQuantity(BigDecimal.ZERO.setScale(3));
+        }
+        stockLedgerService.record(material.getId(), StockMovementType.ADJUSTMENT, quantity.subtract(previousStock), reference);
     }
     
     // ========================================================================
     // MÉTODOS DE CONVERSÃO
     // ========================================================================
     
+    /**
+     * Estoque disponível: linha + stripes + baixas aceitas pelo write-behind e ainda não gravadas
+     *
+     * @param striped Saldo nas stripes (stripedTotals; null = material não fatiado)
+     */
+    public BigDecimal availableStock(RawMaterial entity, BigDecimal striped) {
+        BigDecimal stock = striped == null ? entity.getStockQuantity() : entity.getStockQuantity().add(striped);
+        return pendingStockDeltas.withPending(entity.getId(), stock);
+    }
+
+    /**
+     * Saldo nas stripes de cada matéria-prima (uma consulta agrupada)
+     *
+     * @return ID da matéria-prima -> saldo nas stripes (materiais não fatiados não aparecem)
+     */
+    public Map<Long, BigDecimal> stripedTotals(Collection<Long> materialIds) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        if (materialIds.isEmpty()) {
+            return totals;
+        }
+        for (StripedTotalView total : stockStripeRepository.sumQuantityByRawMaterialIds(materialIds)) {
+            totals.put(total.getRawMaterialId(), total.getQuantity());
+        }
+        return totals;
+    }
+
+    /**
+     * Quantidade de produtos que usam cada matéria-prima (uma consulta agrupada)
+     *
+     * @return ID da matéria-prima -> produtos (materiais sem uso não aparecem)
+     */
+    public Map<Long, Integer> usageCounts(Collection<Long> materialIds) {
+        Map<Long, Integer> counts = new HashMap<>(materialIds.size() * 2);
+        if (materialIds.isEmpty()) {
+            return counts;
+        }
+        for (MaterialUsageView usage : productRawMaterialRepository.countProductsByRawMaterialIds(materialIds)) {
+            counts.put(usage.getRawMaterialId(), usage.getProducts().intValue());
+        }
+        return counts;
+    }
+    
     public RawMaterialDTO toDTO(RawMaterial entity) {
-        return RawMaterialDTO.builder()
+        List<Long> ids = List.of(entity.getId());
+        return toDTO(entity, usageCounts(ids).getOrDefault(entity.getId(), 0), stripedTotals(ids).get(entity.getId()));
+    }
+    
+    /**
+     * @param usedInProductsCount Já calculado (usageCounts): a coleção products nunca é carregada
+     * @param striped Já calculado (stripedTotals)
+     */
+    public RawMaterialDTO toDTO(RawMaterial entity, int usedInProductsCount, BigDecimal striped) {
+        BigDecimal stock = striped == null ? entity.getStockQuantity() : entity.getStockQuantity().add(striped);
+        return withStock(RawMaterialDTO.builder()
                 .id(entity.getId())
                 .code(entity.getCode())
                 .name(entity.getName())
-                .stockQuantity(entity.getStockQuantity())
                 .unit(entity.getUnit())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
-                .lowStock(entity.getStockQuantity().compareTo(LOW_STOCK_THRESHOLD) < 0)
-                .usedInProductsCount(entity.getProducts() != null ? entity.getProducts().size() : 0)
+                .usedInProductsCount(usedInProductsCount), entity.getId(), stock);
+    }
+    
+    /**
+     * stockQuantity = saldo gravado (editável); pendingStockDelta e
+     * availableStock (somente leitura) trazem as baixas do write-behind.
+     * Devolver no PUT o saldo já com as pendentes contaria a mesma baixa
+     * duas vezes quando o flush a gravasse
+     */
+    private RawMaterialDTO withStock(RawMaterialDTO.RawMaterialDTOBuilder builder, Long id, BigDecimal stock) {
+        BigDecimal pending = pendingStockDeltas.get(id);
+        BigDecimal available = pending == null ? stock : stock.add(pending);
+        return builder
+                .stockQuantity(stock)
+                .pendingStockDelta(pending)
+                .availableStock(available)
+                .lowStock(available.compareTo(LOW_STOCK_THRESHOLD) < 0)
                 .build();
     }
     
+    /**
+     * Converte linha das listagens (findAll, findPage) para DTO (sem carregar associações)
+     */
+    private RawMaterialDTO fromRow(ResultSet rs, int row) throws SQLException {
+        long id = rs.getLong("id");
+        BigDecimal stock = rs.getBigDecimal("stock_quantity").add(rs.getBigDecimal("striped_quantity"));
+        return withStock(RawMaterialDTO.builder()
+                .id(id)
+                .code(rs.getString("code"))
+                .name(rs.getString("name"))
+                .unit(rs.getString("unit"))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .updatedAt(rs.getObject("updated_at", LocalDateTime.class))
+                .usedInProductsCount(rs.getInt("used_in_products")), id, stock);
+    }
+    
     private RawMaterial toEntity(RawMaterialDTO dto) {
         RawMaterial material = new RawMaterial();
         material.setCode(dto.getCode());
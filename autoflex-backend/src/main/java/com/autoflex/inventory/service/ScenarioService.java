@@ -0,0 +1,180 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.ScenarioDTO;
+import com.autoflex.inventory.dto.ScenarioRequestDTO;
+import com.autoflex.inventory.dto.ScenarioResponseDTO;
+import com.autoflex.inventory.dto.ScenarioResultDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.dto.ValueOverrideDTO;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service de simulação WHAT-IF ("e se recebermos 200 kg de Alumínio?")
+ *
+ * Cada cenário aplica deltas de estoque e/ou valores alternativos de
+ * produtos sobre UM estado do motor, compartilhado por todos os cenários:
+ * - Nada é gravado no banco e o estado do motor não é alterado
+ * - O estoque de cada cenário é uma visão copy-on-write (ScenarioStock):
+ *   só os materiais alterados ocupam memória
+ * - Só os produtos afetados (índice reverso dos materiais alterados +
+ *   produtos com valor alterado) são recalculados; os totalizadores partem
+ *   dos totais atuais e são corrigidos pela diferença
+ * - Os cenários são avaliados em paralelo
+ *
+ * Mesma regra do modo INDEPENDENT (cada produto contra o estoque completo).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScenarioService {
+
+    private static final int MAX_SCENARIOS = 1000;
+
+    private final ProductionEngine productionEngine;
+    private final ProductionParallelism parallelism;
+
+    /**
+     * Avalia todos os cenários contra o estado atual do inventário
+     *
+     * @param request Lista de cenários
+     * @return Totais atuais (baseline) e totais de cada cenário, na ordem recebida
+     */
+    public ScenarioResponseDTO evaluate(ScenarioRequestDTO request) {
+        List<ScenarioDTO> scenarios = request.getScenarios();
+        if (scenarios.size() > MAX_SCENARIOS) {
+            throw new BusinessException("At most " + MAX_SCENARIOS + " scenarios can be evaluated per request");
+        }
+
+        ProductionState state = productionEngine.current();
+        log.info("Evaluating {} what-if scenario(s) (inventory version {})", scenarios.size(), state.version());
+
+        List<ScenarioResultDTO> results = parallelism.mapEach(scenarios.size(),
+                i -> evaluate(state, scenarios.get(i), i));
+
+        return ScenarioResponseDTO.builder()
+                .baseline(toResult("baseline", state.totalValue(), state.totalUnits(),
+                        state.producibleCount(), state.totalValue(), 0))
+                .scenarios(results)
+                .inventoryVersion(state.version())
+                .generatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+
+    /**
+     * Avalia UM cenário
+     */
+    private ScenarioResultDTO evaluate(ProductionState state, ScenarioDTO scenario, int index) {
+        BomMatrix matrix = state.matrix();
+        String name = scenario.getName() != null ? scenario.getName() : "scenario-" + (index + 1);
+
+        // 1. Deltas de estoque (somados por material) -> visão copy-on-write
+        TreeMap<Integer, Long> deltas = new TreeMap<>();
+        if (scenario.getStockDeltas() != null) {
+            for (StockDeltaDTO delta : scenario.getStockDeltas()) {
+                int m = matrix.materialOrdinal(delta.getMaterialId());
+                if (m < 0) {
+                    throw new ResourceNotFoundException("Raw material not found with id: " + delta.getMaterialId());
+                }
+                deltas.merge(m, BomMatrix.toUnits(delta.getDelta(), BomMatrix.QUANTITY_SCALE), Math::addExact);
+            }
+        }
+
+        int[] changed = new int[deltas.size()];
+        long[] values = new long[deltas.size()];
+        int c = 0;
+        for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+            int m = delta.getKey();
+            long stock = Math.addExact(state.stock()[m], delta.getValue());
+            if (stock < 0) {
+                throw new BusinessException("Scenario '" + name + "' leaves negative stock for raw material "
+                        + matrix.materialCode(m));
+            }
+            changed[c] = m;
+            values[c++] = stock;
+        }
+        ScenarioStock stock = new ScenarioStock(state.stock(), changed, values);
+
+        // 2. Valores alternativos (centavos) por produto
+        Map<Integer, Long> valueOverrides = new HashMap<>();
+        if (scenario.getValueOverrides() != null) {
+            for (ValueOverrideDTO override : scenario.getValueOverrides()) {
+                int p = matrix.productOrdinal(override.getProductId());
+                if (p < 0) {
+                    throw new ResourceNotFoundException("Product not found with id: " + override.getProductId());
+                }
+                valueOverrides.put(p, BomMatrix.toUnits(override.getValue(), BomMatrix.VALUE_SCALE));
+            }
+        }
+
+        // 3. Produtos afetados: usam algum material alterado ou têm valor alterado
+        Set<Integer> affected = new HashSet<>(valueOverrides.keySet());
+        for (int m : changed) {
+            for (int i = matrix.usageStart(m); i < matrix.usageEnd(m); i++) {
+                affected.add(matrix.productAt(i));
+            }
+        }
+
+        // 4. Totais atuais corrigidos pela diferença de cada produto afetado
+        long totalValue = state.totalValue();
+        int totalUnits = state.totalUnits();
+        int producibleCount = state.producibleCount();
+
+        for (int p : affected) {
+            int before = state.maxQuantity(p);
+            if (before > 0) {
+                totalValue -= matrix.totalValue(p, before);
+                totalUnits -= before;
+                producibleCount--;
+            }
+            int after = matrix.maxQuantity(p, stock);
+            if (after > 0) {
+                long value = valueOverrides.getOrDefault(p, matrix.productValue(p));
+                totalValue = Math.addExact(totalValue, Math.multiplyExact(value, (long) after));
+                totalUnits += after;
+                producibleCount++;
+            }
+        }
+
+        return toResult(name, totalValue, totalUnits, producibleCount, state.totalValue(), affected.size());
+    }
+
+    private ScenarioResultDTO toResult(
+            String name,
+            long totalValue,
+            int totalUnits,
+            int producibleCount,
+            long baselineValue,
+            int affectedProducts) {
+        List<String> warnings = new ArrayList<>();
+        if (producibleCount == 0) {
+            warnings.add("No products can be produced with this stock");
+        }
+
+        return ScenarioResultDTO.builder()
+                .name(name)
+                .totalProductionValue(producibleCount == 0
+                        ? BigDecimal.ZERO
+                        : BomMatrix.toDecimal(totalValue, BomMatrix.VALUE_SCALE))
+                .valueChange(BomMatrix.toDecimal(totalValue - baselineValue, BomMatrix.VALUE_SCALE))
+                .totalUnits(totalUnits)
+                .totalProductTypes(producibleCount)
+                .affectedProducts(affectedProducts)
+                .warnings(warnings)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.autoflex.inventory.service;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Estoque de um cenário what-if como visão COPY-ON-WRITE
+ *
+ * O vetor base (estoque atual do motor) é compartilhado por todos os
+ * cenários e nunca é alterado; o cenário guarda apenas os materiais que
+ * mudaram (ordinais ordenados + novo estoque). Memória proporcional aos
+ * deltas, não ao catálogo.
+ */
+final class ScenarioStock implements IntToLongFunction {
+
+    private final long[] base;
+    private final int[] changed;
+    private final long[] values;
+
+    /**
+     * @param base Estoque compartilhado (escala 3), somente leitura
+     * @param changed Ordinais alterados, em ordem crescente e sem repetição
+     * @param values Novo estoque de cada ordinal alterado
+     */
+    ScenarioStock(long[] base, int[] changed, long[] values) {
+        this.base = base;
+        this.changed = changed;
+        this.values = values;
+    }
+
+    @Override
+    public long applyAsLong(int material) {
+        int i = Arrays.binarySearch(changed, material);
+        return i >= 0 ? values[i] : base[material];
+    }
+}
@@ -0,0 +1,269 @@
+package com.autoflex.inventory.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice EM MEMÓRIA de código e nome (produtos e matérias-primas) para autocomplete
+ *
+ * Texto normalizado (accent folding): NFD sem marcas combinantes, minúsculo
+ * e quebrado em palavras — "Alumínio" => "aluminio", "MP-001" => "mp", "001".
+ *
+ * Duas estruturas:
+ * - TRIGRAMAS de cada palavra => documentos: termos com 3+ letras casam em
+ *   QUALQUER posição da palavra ("umin" acha "Alumínio"). Candidatos vêm da
+ *   menor lista de trigramas do termo, filtrada pelas outras listas
+ * - PALAVRAS ordenadas (skip list) => documentos: termos com 1 ou 2 letras
+ *   casam como PREFIXO de palavra (faixa [termo, termo + U+FFFF)), lida sob
+ *   demanda em ordem alfabética — palavra igual ao termo primeiro — e só até
+ *   limit * SHORT_TERM_MATCHES_PER_RESULT documentos que casam
+ *
+ * Todos os termos da busca precisam casar (E). Ranking: código igual, código
+ * começando pela busca, nome começando pela busca, palavra começando pelo
+ * primeiro termo, o resto; empate pelo nome mais curto. Top-K em heap de
+ * tamanho limit, sem ordenar todos os candidatos.
+ *
+ * Concorrência: um escritor por vez (synchronized), leitores sem trava.
+ * Numa atualização as listas novas entram antes do documento e as antigas
+ * saem depois; a busca confere cada candidato no documento atual, então
+ * nunca devolve um texto que não casa.
+ */
+final class SearchIndex {
+
+    // Termos de 1-2 letras são pouco seletivos: a faixa de prefixo para depois de
+    // limit * N documentos que casam, em vez de copiar a faixa inteira
+    static final int SHORT_TERM_MATCHES_PER_RESULT = 8;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int GRAM = 3;
+
+    record Document(SearchType type, long id, String code, String name,
+                    String codeKey, String nameKey, String[] words) {
+    }
+
+    private record Ranked(Document document, int rank) {
+    }
+
+    private static final Comparator<Ranked> BEST_FIRST = Comparator.comparingInt(Ranked::rank)
+            .thenComparingInt(ranked -> ranked.document().name().length())
+            .thenComparing(ranked -> ranked.document().nameKey())
+            .thenComparingLong(ranked -> ranked.document().id());
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> words = new ConcurrentSkipListMap<>();
+
+    /**
+     * Inclui ou substitui o documento
+     */
+    synchronized void put(SearchType type, long id, String code, String name) {
+        long key = key(type, id);
+        String[] codeWords = words(code);
+        String[] nameWords = words(name);
+        Set<String> allWords = new HashSet<>(List.of(codeWords));
+        allWords.addAll(List.of(nameWords));
+        Document document = new Document(type, id, code, name, String.join(" ", codeWords),
+                String.join(" ", nameWords), allWords.toArray(String[]::new));
+
+        Set<String> newGrams = grams(document.words());
+        for (String gram : newGrams) {
+            grams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        for (String word : document.words()) {
+            words.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        Document previous = documents.put(key, document);
+        if (previous != null) {
+            Set<String> staleWords = new HashSet<>(List.of(previous.words()));
+            staleWords.removeAll(allWords);
+            Set<String> staleGrams = grams(previous.words());
+            staleGrams.removeAll(newGrams);
+            unlink(key, staleGrams, staleWords);
+        }
+    }
+
+    synchronized void remove(SearchType type, long id) {
+        long key = key(type, id);
+        Document previous = documents.remove(key);
+        if (previous != null) {
+            unlink(key, grams(previous.words()), List.of(previous.words()));
+        }
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    /**
+     * @param type null = todos os tipos
+     * @return Até limit documentos, do mais relevante para o menos
+     */
+    List<Document> search(String query, SearchType type, int limit) {
+        String[] terms = words(query);
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        String queryKey = String.join(" ", terms);
+        int maxMatches = Integer.MAX_VALUE;
+        if (Arrays.stream(terms).allMatch(term -> term.length() < GRAM)) {
+            maxMatches = limit * SHORT_TERM_MATCHES_PER_RESULT;
+        }
+
+        int matched = 0;
+        PriorityQueue<Ranked> top = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        for (long key : candidates(terms)) {
+            Document document = documents.get(key);
+            if (document == null || (type != null && document.type() != type) || !matches(document, terms)) {
+                continue;
+            }
+            top.add(new Ranked(document, rank(document, queryKey, terms[0])));
+            if (top.size() > limit) {
+                top.poll();
+            }
+            if (++matched >= maxMatches) {
+                break;
+            }
+        }
+
+        // Heap devolve do pior para o melhor
+        Document[] result = new Document[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().document();
+        }
+        return List.of(result);
+    }
+
+    /**
+     * Texto normalizado: sem acentos, minúsculo
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static String[] words(String text) {
+        String folded = fold(text).strip();
+        if (folded.isEmpty()) {
+            return new String[0];
+        }
+        return SEPARATORS.splitAsStream(folded).filter(word -> !word.isEmpty()).toArray(String[]::new);
+    }
+
+    private Iterable<Long> candidates(String[] terms) {
+        // Termo longo: menor lista de trigramas, filtrada pelas demais
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String term : terms) {
+            if (term.length() < GRAM) {
+                continue;
+            }
+            for (String gram : grams(new String[] {term})) {
+                Set<Long> posting = grams.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                postings.add(posting);
+            }
+        }
+        if (!postings.isEmpty()) {
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<Long> smallest = postings.get(0);
+            List<Set<Long>> others = postings.subList(1, postings.size());
+            return () -> smallest.stream().filter(key -> others.stream().allMatch(set -> set.contains(key))).iterator();
+        }
+
+        // Só termos curtos: faixa de palavras com o prefixo do termo mais longo
+        String prefix = terms[0];
+        for (String term : terms) {
+            if (term.length() > prefix.length()) {
+                prefix = term;
+            }
+        }
+        // Sob demanda: a busca para de consumir quando já tem documentos suficientes
+        Collection<Set<Long>> range = words.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        return () -> {
+            Set<Long> seen = new HashSet<>();
+            return range.stream().flatMap(Set::stream).filter(seen::add).iterator();
+        };
+    }
+
+    /**
+     * Cada termo casa com alguma palavra: substring (3+ letras) ou prefixo (1-2 letras)
+     */
+    private static boolean matches(Document document, String[] terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String word : document.words()) {
+                if (term.length() < GRAM ? word.startsWith(term) : word.contains(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int rank(Document document, String queryKey, String firstTerm) {
+        if (document.codeKey().equals(queryKey)) {
+            return 0;
+        }
+        if (document.codeKey().startsWith(queryKey)) {
+            return 1;
+        }
+        if (document.nameKey().startsWith(queryKey)) {
+            return 2;
+        }
+        for (String word : document.words()) {
+            if (word.startsWith(firstTerm)) {
+                return 3;
+            }
+        }
+        return 4;
+    }
+
+    private void unlink(long key, Set<String> staleGrams, Iterable<String> staleWords) {
+        for (String gram : staleGrams) {
+            Set<Long> posting = grams.get(gram);
+            if (posting != null && posting.remove(key) && posting.isEmpty()) {
+                grams.remove(gram);
+            }
+        }
+        for (String word : staleWords) {
+            Set<Long> posting = words.get(word);
+            if (posting != null && posting.remove(key) && posting.isEmpty()) {
+                words.remove(word);
+            }
+        }
+    }
+
+    private static Set<String> grams(String[] words) {
+        Set<String> result = new HashSet<>();
+        for (String word : words) {
+            for (int i = 0; i + GRAM <= word.length(); i++) {
+                result.add(word.substring(i, i + GRAM));
+            }
+        }
+        return result;
+    }
+
+    private static long key(SearchType type, long id) {
+        return id << 1 | type.ordinal();
+    }
+}
@@ -0,0 +1,31 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+
+/**
+ * Tipos de documento da busca do catálogo (CatalogSearchService)
+ *
+ * PRODUCT  => tabela products
+ * MATERIAL => tabela raw_materials
+ */
+public enum SearchType {
+    PRODUCT,
+    MATERIAL;
+
+    /**
+     * Aceita "product(s)" ou "material(s)" em qualquer caixa (null = todos os tipos)
+     */
+    public static SearchType from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String normalized = value.endsWith("s") || value.endsWith("S")
+                ? value.substring(0, value.length() - 1) : value;
+        for (SearchType type : values()) {
+            if (type.name().equalsIgnoreCase(normalized)) {
+                return type;
+            }
+        }
+        throw new BusinessException("Invalid search type: '" + value + "'");
+    }
+}
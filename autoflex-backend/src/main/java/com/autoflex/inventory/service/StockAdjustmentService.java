@@ -0,0 +1,241 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockAdjustmentRequestDTO;
+import com.autoflex.inventory.dto.StockAdjustmentResponseDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.dto.StockLevelDTO;
+import com.autoflex.inventory.entity.StockMovement;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service de AJUSTE DE ESTOQUE em lote (entrada de mercadoria, inventário, perdas)
+ *
+ * Cada ajuste é um DELTA com sinal aplicado pelo próprio banco:
+ *
+ *   UPDATE raw_materials SET stock_quantity = stock_quantity + delta
+ *
+ * - UM comando para o lote inteiro (UPDATE ... FROM unnest(ids, deltas)),
+ *   devolvendo os saldos novos no mesmo round trip (RETURNING)
+ * - Sem ler-modificar-gravar na aplicação: escritores concorrentes somam
+ *   seus deltas em vez de sobrescrever o saldo um do outro
+ * - As linhas são travadas em ordem de ID antes do UPDATE: dois lotes com
+ *   os mesmos materiais nunca entram em deadlock
+ * - Tudo ou nada: se algum saldo ficasse negativo (ou acima do limite da
+ *   coluna), nenhum ajuste do lote é gravado
+ * - Cada material ajustado ganha uma movimentação no razão de estoque
+ *   (tipo e referência do pedido), gravada em batch na mesma transação
+ * - Materiais QUENTES com estoque fatiado (StockStripingService) não passam
+ *   pela linha de raw_materials: o delta vai para uma das stripes
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockAdjustmentService {
+
+    private static final int MAX_ADJUSTMENTS = 10_000;
+    private static final int MAX_REPORTED_MATERIALS = 20;
+    // numeric(10,3)
+    private static final BigDecimal MAX_STOCK = new BigDecimal("9999999.999");
+
+    private static final String ADJUST_STOCK = """
+            WITH locked AS (
+                SELECT id FROM raw_materials WHERE id = ANY(?::bigint[]) ORDER BY id FOR UPDATE
+            )
+            UPDATE raw_materials m
+               SET stock_quantity = m.stock_quantity + d.delta, updated_at = CURRENT_TIMESTAMP
+              FROM unnest(?::bigint[], ?::numeric[]) AS d(id, delta)
+              JOIN locked l ON l.id = d.id
+             WHERE m.id = d.id
+               AND m.stock_quantity + d.delta BETWEEN 0 AND 9999999.999
+            RETURNING m.id, m.code, m.name, m.unit, m.stock_quantity, d.delta
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockLedgerService stockLedgerService;
+    private final StockStripingService stockStripingService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Aplica todos os deltas em uma transação
+     *
+     * @param request Deltas por matéria-prima (repetidos são somados)
+     * @return Saldo anterior e novo de cada matéria-prima ajustada
+     */
+    @Transactional
+    public StockAdjustmentResponseDTO adjust(StockAdjustmentRequestDTO request) {
+        List<StockDeltaDTO> adjustments = request.getAdjustments();
+        if (adjustments.size() > MAX_ADJUSTMENTS) {
+            throw new BusinessException("At most " + MAX_ADJUSTMENTS + " stock adjustments can be applied per request");
+        }
+        StockMovementType type = request.getType() != null ? request.getType() : StockMovementType.ADJUSTMENT;
+        if (type == StockMovementType.OPENING) {
+            throw new BusinessException("OPENING movements are recorded only when a raw material is created");
+        }
+        log.info("Applying {} stock adjustment(s) as {}", adjustments.size(), type);
+
+        // 1. Delta por material, em ordem de ID
+        TreeMap<Long, BigDecimal> deltas = new TreeMap<>();
+        for (StockDeltaDTO adjustment : adjustments) {
+            if (adjustment.getDelta().stripTrailingZeros().scale() > 3) {
+                throw new BusinessException("Delta for raw material " + adjustment.getMaterialId()
+                        + " must have at most 3 decimal places");
+            }
+            if ((type == StockMovementType.RECEIPT && adjustment.getDelta().signum() <= 0)
+                    || (type == StockMovementType.CONSUMPTION && adjustment.getDelta().signum() >= 0)) {
+                throw new BusinessException(type + " delta for raw material " + adjustment.getMaterialId()
+                        + " must be " + (type == StockMovementType.RECEIPT ? "positive" : "negative"));
+            }
+            deltas.merge(adjustment.getMaterialId(), adjustment.getDelta(), BigDecimal::add);
+        }
+
+        List<StockLevelDTO> levels = apply(deltas, type, request.getReference(), "Stock adjustment");
+        log.info("Stock adjusted for {} raw material(s)", levels.size());
+
+        return StockAdjustmentResponseDTO.builder()
+                .materials(levels)
+                .adjustedCount(levels.size())
+                .appliedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+
+    /**
+     * Aplica os deltas (já somados por material) na transação corrente:
+     * UPDATE com guarda de saldo, movimentações no razão e evento STOCK_CHANGED
+     *
+     * Também usado pelas ordens de produção (ProductionOrderService).
+     *
+     * @param deltas Delta por matéria-prima, em ordem de ID
+     * @param operation Nome da operação na mensagem de erro
+     * @return Saldo anterior e novo de cada matéria-prima, em ordem de ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StockLevelDTO> apply(TreeMap<Long, BigDecimal> deltas, StockMovementType type,
+                                     String reference, String operation) {
+        // Materiais fatiados saem do UPDATE por linha
+        Map<Long, Integer> stripes = stockStripingService.stripeCounts(deltas.keySet());
+        TreeMap<Long, BigDecimal> rowDeltas = deltas;
+        TreeMap<Long, BigDecimal> stripedDeltas = new TreeMap<>();
+        if (!stripes.isEmpty()) {
+            rowDeltas = new TreeMap<>(deltas);
+            for (Long materialId : stripes.keySet()) {
+                stripedDeltas.put(materialId, rowDeltas.remove(materialId));
+            }
+        }
+
+        List<StockLevelDTO> levels = rowDeltas.isEmpty() ? new ArrayList<>() : applyToRows(rowDeltas, operation);
+        if (!stripedDeltas.isEmpty()) {
+            levels.addAll(stockStripingService.apply(stripedDeltas, stripes, operation));
+        }
+
+        levels.sort(Comparator.comparing(StockLevelDTO::getMaterialId));
+        List<StockMovement> movements = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+            movements.add(StockLedgerService.movement(delta.getKey(), type, delta.getValue(), reference));
+        }
+        stockLedgerService.recordAll(movements);
+        eventPublisher.publishEvent(new InventoryChangedEvent(Kind.STOCK_CHANGED, new ArrayList<>(deltas.keySet())));
+        return levels;
+    }
+
+    private List<StockLevelDTO> applyToRows(TreeMap<Long, BigDecimal> deltas, String operation) {
+        String[] ids = new String[deltas.size()];
+        String[] values = new String[deltas.size()];
+        int i = 0;
+        for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+            ids[i] = delta.getKey().toString();
+            values[i++] = delta.getValue().toPlainString();
+        }
+
+        // UPDATE com guarda de saldo, devolvendo os saldos novos
+        List<StockLevelDTO> levels = new ArrayList<>(deltas.size());
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(ADJUST_STOCK);
+                    ps.setArray(1, con.createArrayOf("text", ids));
+                    ps.setArray(2, con.createArrayOf("text", ids));
+                    ps.setArray(3, con.createArrayOf("text", values));
+                    return ps;
+                },
+                rs -> {
+                    BigDecimal stock = rs.getBigDecimal(5);
+                    BigDecimal delta = rs.getBigDecimal(6);
+                    levels.add(StockLevelDTO.builder()
+                            .materialId(rs.getLong(1))
+                            .materialCode(rs.getString(2))
+                            .materialName(rs.getString(3))
+                            .unit(rs.getString(4))
+                            .delta(delta)
+                            .previousStock(stock.subtract(delta))
+                            .stockQuantity(stock)
+                            .build());
+                });
+
+        // Algum material ficou de fora: não existe ou violaria o saldo (rollback)
+        if (levels.size() != deltas.size()) {
+            reject(deltas, levels, operation);
+        }
+        return levels;
+    }
+
+    /**
+     * Monta a mensagem de erro dos materiais não ajustados
+     */
+    private void reject(TreeMap<Long, BigDecimal> deltas, List<StockLevelDTO> applied, String operation) {
+        Map<Long, BigDecimal> pending = new TreeMap<>(deltas);
+        for (StockLevelDTO level : applied) {
+            pending.remove(level.getMaterialId());
+        }
+
+        Map<Long, Object[]> current = new HashMap<>();
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, code, stock_quantity FROM raw_materials WHERE id = ANY(?::bigint[])");
+                    ps.setArray(1, con.createArrayOf("text",
+                            pending.keySet().stream().map(String::valueOf).toArray()));
+                    return ps;
+                },
+                rs -> {
+                    current.put(rs.getLong(1), new Object[] {rs.getString(2), rs.getBigDecimal(3)});
+                });
+
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : pending.entrySet()) {
+            Object[] material = current.get(entry.getKey());
+            if (material == null) {
+                throw new ResourceNotFoundException("Raw material not found with id: " + entry.getKey());
+            }
+            if (problems.size() < MAX_REPORTED_MATERIALS) {
+                BigDecimal stock = (BigDecimal) material[1];
+                String limit = stock.add(entry.getValue()).signum() < 0
+                        ? "negative stock"
+                        : "stock above " + MAX_STOCK.toPlainString();
+                problems.add(material[0] + " (current " + stock.toPlainString()
+                        + ", delta " + entry.getValue().toPlainString() + ") would have " + limit);
+            }
+        }
+        throw new BusinessException(operation + " rejected, no changes applied: " + String.join("; ", problems));
+    }
+}
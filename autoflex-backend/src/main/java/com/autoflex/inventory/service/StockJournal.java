@@ -0,0 +1,291 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.entity.StockMovementType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Journal append-only do write-behind de estoque, em SEGMENTOS
+ *
+ * Cada segmento é um arquivo stock-journal-<id>.log com uma linha por delta:
+ *
+ *   <materialId>;<TYPE>;<delta>
+ *
+ * - O segmento ATUAL recebe os deltas (e os acumula por tipo e material);
+ *   rotate() o fecha e devolve para o flush, e o próximo append abre outro
+ * - Segmento gravado no banco é apagado; os que sobram no diretório na
+ *   inicialização são relidos (recuperação após queda)
+ * - Linha final sem '\n' = escrita interrompida por queda: o delta nunca
+ *   foi confirmado ao cliente e é ignorado
+ *
+ * GROUP COMMIT: write() só grava no arquivo e devolve um ticket; sync(ticket)
+ * faz o fsync. Quem entra em sync() grava no disco TUDO o que já foi
+ * escrito, então appenders concorrentes que chegam enquanto um fsync está em
+ * andamento são cobertos pelo próximo (um fsync por grupo, não por pedido).
+ *
+ * write(), rotate() e close() NÃO são thread-safe: o StockWriteBehindService
+ * serializa o acesso. sync() pode ser chamado sem essa trava.
+ */
+@Slf4j
+final class StockJournal implements AutoCloseable {
+
+    private static final String PREFIX = "stock-journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private long sequence;
+    private FileChannel channel;
+    private Segment current;
+
+    // Group commit: abrir/fechar o canal e o fsync acontecem sob syncLock
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile long written;
+    private long synced;
+    private long syncs;
+
+    StockJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create stock journal directory " + directory, e);
+        }
+    }
+
+    record Entry(long materialId, StockMovementType type, BigDecimal delta) {
+    }
+
+    /**
+     * Deltas de um segmento, somados por tipo e material (ordem de ID)
+     */
+    static final class Segment {
+        private final String id;
+        private final Path path;
+        private final Map<StockMovementType, TreeMap<Long, BigDecimal>> deltas = new EnumMap<>(StockMovementType.class);
+        private int events;
+
+        private Segment(String id, Path path) {
+            this.id = id;
+            this.path = path;
+        }
+
+        private void add(Entry entry) {
+            deltas.computeIfAbsent(entry.type(), type -> new TreeMap<>())
+                    .merge(entry.materialId(), entry.delta(), BigDecimal::add);
+            events++;
+        }
+
+        String id() {
+            return id;
+        }
+
+        Map<StockMovementType, TreeMap<Long, BigDecimal>> deltas() {
+            return deltas;
+        }
+
+        int events() {
+            return events;
+        }
+    }
+
+    /**
+     * Grava os deltas no segmento atual e faz o fsync (se configurado)
+     * Retorna só depois de os deltas estarem no disco.
+     */
+    void append(List<Entry> entries) {
+        sync(write(entries));
+    }
+
+    /**
+     * Grava os deltas no segmento atual, SEM fsync
+     *
+     * @return Ticket para sync(): os deltas só estão no disco depois dele
+     */
+    long write(List<Entry> entries) {
+        StringBuilder lines = new StringBuilder(entries.size() * 24);
+        for (Entry entry : entries) {
+            lines.append(entry.materialId()).append(';').append(entry.type().name()).append(';')
+                    .append(entry.delta().toPlainString()).append('\n');
+        }
+        try {
+            if (channel == null) {
+                open();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write stock journal", e);
+        }
+        for (Entry entry : entries) {
+            current.add(entry);
+        }
+        return ++written;
+    }
+
+    /**
+     * Garante no disco tudo o que foi escrito até o ticket
+     * Um único fsync cobre todos os write() anteriores a ele.
+     */
+    void sync(long ticket) {
+        if (!fsync) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= ticket) {
+                return;
+            }
+            // Tudo até "target" já está no canal; rotate() sincroniza antes de fechar
+            long target = written;
+            channel.force(false);
+            synced = target;
+            syncs++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync stock journal", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Quantidade de fsyncs feitos (cada um pode cobrir vários appends)
+     */
+    long syncCount() {
+        syncLock.lock();
+        try {
+            return syncs;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        String id = String.format("%013d-%06d", System.currentTimeMillis(), sequence++);
+        Path path = directory.resolve(PREFIX + id + SUFFIX);
+        syncLock.lock();
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } finally {
+            syncLock.unlock();
+        }
+        current = new Segment(id, path);
+    }
+
+    int currentEvents() {
+        return current == null ? 0 : current.events;
+    }
+
+    /**
+     * Fecha o segmento atual e o devolve (null se não houver deltas)
+     */
+    Segment rotate() {
+        Segment segment = current;
+        syncLock.lock();
+        try {
+            if (channel != null) {
+                // Appenders ainda aguardando sync() deste segmento ficam cobertos aqui
+                if (fsync && synced < written) {
+                    channel.force(false);
+                    syncs++;
+                }
+                channel.close();
+                channel = null;
+            }
+            synced = written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close stock journal segment " + segment.path, e);
+        } finally {
+            syncLock.unlock();
+        }
+        current = null;
+        return segment;
+    }
+
+    /**
+     * Segmentos deixados no diretório (do mais antigo para o mais novo)
+     */
+    List<Segment> recover() {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list stock journal directory " + directory, e);
+        }
+        List<Segment> segments = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            Segment segment = read(path);
+            if (segment.events > 0) {
+                segments.add(segment);
+            } else {
+                delete(segment);
+            }
+        }
+        return segments;
+    }
+
+    static Segment read(Path path) {
+        String name = path.getFileName().toString();
+        Segment segment = new Segment(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), path);
+        String content;
+        try {
+            content = Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read stock journal segment " + path, e);
+        }
+        int start = 0;
+        int end;
+        int line = 1;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String[] fields = content.substring(start, end).split(";");
+            try {
+                segment.add(new Entry(Long.parseLong(fields[0]), StockMovementType.valueOf(fields[1]),
+                        new BigDecimal(fields[2])));
+            } catch (RuntimeException e) {
+                log.warn("Skipping malformed line {} of stock journal segment {}", line, path);
+            }
+            start = end + 1;
+            line++;
+        }
+        if (start < content.length()) {
+            log.warn("Ignoring incomplete last line of stock journal segment {}", path);
+        }
+        return segment;
+    }
+
+    void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete stock journal segment " + segment.path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        rotate();
+    }
+}
@@ -0,0 +1,245 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockAsOfDTO;
+import com.autoflex.inventory.dto.StockMovementDTO;
+import com.autoflex.inventory.entity.StockMovement;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import com.autoflex.inventory.repository.RawMaterialRepository;
+import com.autoflex.inventory.repository.StockMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service do RAZÃO DE ESTOQUE (append-only) e dos snapshots de saldo
+ *
+ * Toda alteração de estoque vira uma movimentação IMUTÁVEL em
+ * stock_movements (OPENING, RECEIPT, CONSUMPTION, ADJUSTMENT), gravada na
+ * MESMA transação que altera raw_materials.stock_quantity. A coluna continua
+ * sendo o saldo materializado lido pelo motor de produção; o razão é a
+ * fonte do histórico:
+ *
+ *   saldo(T) = snapshot mais recente <= T + SOMA(movimentações em (snapshot, T])
+ *
+ * - Gravação só com INSERT em lote (JDBC batch); nunca UPDATE/DELETE
+ * - Sem chave estrangeira para raw_materials: inserir no razão não disputa
+ *   trava com a linha do material
+ * - Snapshots periódicos (inventory.ledger.snapshot-interval-ms) só para os
+ *   materiais com movimentações novas; a cauda somada na consulta fica curta
+ * - O snapshot fecha em "agora - settle-seconds": transações ainda abertas
+ *   gravam occurred_at no início delas, e uma movimentação não pode cair
+ *   ANTES de um snapshot já gravado
+ *
+ * Materiais sem nenhuma movimentação (bases anteriores ao razão, cargas via
+ * DatabaseSeeder/DatasetGenerator) recebem um OPENING com o saldo atual na
+ * inicialização da aplicação.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedgerService {
+
+    private static final int MAX_MOVEMENTS_PAGE = 1_000;
+
+    private static final String INSERT_MOVEMENT = """
+            INSERT INTO stock_movements (id, raw_material_id, type, quantity, reference, occurred_at)
+            VALUES (nextval('stock_movements_id_seq'), ?, ?, ?, ?, LOCALTIMESTAMP)
+            """;
+
+    private static final String INSERT_OPENING_BALANCES = """
+            INSERT INTO stock_movements (id, raw_material_id, type, quantity, reference, occurred_at)
+            SELECT nextval('stock_movements_id_seq'), m.id, 'OPENING', m.stock_quantity, 'opening-balance', LOCALTIMESTAMP
+              FROM raw_materials m
+             WHERE NOT EXISTS (SELECT 1 FROM stock_movements mv WHERE mv.raw_material_id = m.id)
+             ORDER BY m.id
+            """;
+
+    private static final String INSERT_SNAPSHOTS = """
+            WITH cutoff AS (
+                SELECT LOCALTIMESTAMP - make_interval(secs => ?) AS at
+            ), latest AS (
+                SELECT DISTINCT ON (raw_material_id) raw_material_id, stock_quantity, taken_at
+                  FROM stock_snapshots
+                 ORDER BY raw_material_id, taken_at DESC
+            ), tail AS (
+                SELECT mv.raw_material_id, SUM(mv.quantity) AS total
+                  FROM stock_movements mv
+                  LEFT JOIN latest l ON l.raw_material_id = mv.raw_material_id
+                 CROSS JOIN cutoff c
+                 WHERE mv.occurred_at > COALESCE(l.taken_at, '-infinity'::timestamp)
+                   AND mv.occurred_at <= c.at
+                 GROUP BY mv.raw_material_id
+            )
+            INSERT INTO stock_snapshots (id, raw_material_id, stock_quantity, taken_at)
+            SELECT nextval('stock_snapshots_id_seq'), t.raw_material_id, COALESCE(l.stock_quantity, 0) + t.total, c.at
+              FROM tail t
+              LEFT JOIN latest l ON l.raw_material_id = t.raw_material_id
+             CROSS JOIN cutoff c
+            """;
+
+    private static final String STOCK_AS_OF = """
+            SELECT m.id, m.code, m.name, m.unit,
+                   COALESCE(s.stock_quantity, 0) + COALESCE(t.total, 0) AS stock, s.taken_at
+              FROM raw_materials m
+              LEFT JOIN LATERAL (
+                    SELECT ss.stock_quantity, ss.taken_at
+                      FROM stock_snapshots ss
+                     WHERE ss.raw_material_id = m.id AND ss.taken_at <= ?
+                     ORDER BY ss.taken_at DESC
+                     LIMIT 1) s ON TRUE
+              LEFT JOIN LATERAL (
+                    SELECT SUM(mv.quantity) AS total
+                      FROM stock_movements mv
+                     WHERE mv.raw_material_id = m.id
+                       AND mv.occurred_at > COALESCE(s.taken_at, '-infinity'::timestamp)
+                       AND mv.occurred_at <= ?) t ON TRUE
+             WHERE (s.taken_at IS NOT NULL OR t.total IS NOT NULL)
+               AND (?::bigint IS NULL OR m.id = ?::bigint)
+             ORDER BY m.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockMovementRepository stockMovementRepository;
+    private final RawMaterialRepository rawMaterialRepository;
+
+    @Value("${inventory.ledger.settle-seconds:300}")
+    private int settleSeconds;
+
+    /**
+     * Grava UMA movimentação (participa da transação corrente)
+     */
+    public void record(Long materialId, StockMovementType type, BigDecimal quantity, String reference) {
+        recordAll(List.of(movement(materialId, type, quantity, reference)));
+    }
+
+    /**
+     * Grava as movimentações em UM batch (participa da transação corrente)
+     * Quantidades zero são ignoradas, exceto OPENING
+     */
+    public void recordAll(Collection<StockMovement> movements) {
+        List<Object[]> batch = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            if (movement.getQuantity().signum() == 0 && movement.getType() != StockMovementType.OPENING) {
+                continue;
+            }
+            batch.add(new Object[] {
+                    movement.getRawMaterialId(), movement.getType().name(), movement.getQuantity(), movement.getReference()});
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MOVEMENT, batch);
+        }
+    }
+
+    public static StockMovement movement(Long materialId, StockMovementType type, BigDecimal quantity, String reference) {
+        return new StockMovement(null, materialId, type, quantity, reference, null);
+    }
+
+    /**
+     * OPENING com o saldo atual para materiais ainda fora do razão (idempotente)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public int recordOpeningBalances() {
+        int inserted = jdbcTemplate.update(INSERT_OPENING_BALANCES);
+        if (inserted > 0) {
+            log.info("Recorded opening balance for {} raw material(s) without ledger history", inserted);
+        }
+        return inserted;
+    }
+
+    /**
+     * Consolida o razão em snapshots até "agora - settle-seconds"
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshot-interval-ms:3600000}",
+               initialDelayString = "${inventory.ledger.snapshot-interval-ms:3600000}")
+    @Transactional
+    public int takeSnapshots() {
+        long start = System.nanoTime();
+        int taken = jdbcTemplate.update(INSERT_SNAPSHOTS, settleSeconds);
+        log.info("Stock snapshot taken for {} raw material(s) in {} ms", taken, (System.nanoTime() - start) / 1_000_000);
+        return taken;
+    }
+
+    /**
+     * Saldo de cada matéria-prima no instante informado
+     *
+     * @param asOf Instante (null = agora)
+     * @param materialId Só uma matéria-prima (null = todas)
+     */
+    @Transactional(readOnly = true)
+    public List<StockAsOfDTO> stockAsOf(LocalDateTime asOf, Long materialId) {
+        LocalDateTime at = asOf != null ? asOf : LocalDateTime.now();
+        if (materialId != null && !rawMaterialRepository.existsById(materialId)) {
+            throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+        }
+        log.info("Computing stock as of {} ({})", at, materialId != null ? "material " + materialId : "all materials");
+
+        Timestamp timestamp = Timestamp.valueOf(at);
+        return jdbcTemplate.query(STOCK_AS_OF,
+                (rs, rowNum) -> {
+                    Timestamp snapshotAt = rs.getTimestamp(6);
+                    return StockAsOfDTO.builder()
+                            .materialId(rs.getLong(1))
+                            .materialCode(rs.getString(2))
+                            .materialName(rs.getString(3))
+                            .unit(rs.getString(4))
+                            .stockQuantity(rs.getBigDecimal(5))
+                            .asOf(at)
+                            .snapshotAt(snapshotAt != null ? snapshotAt.toLocalDateTime() : null)
+                            .build();
+                },
+                timestamp, timestamp, materialId, materialId);
+    }
+
+    /**
+     * Movimentações de uma matéria-prima, da mais recente para a mais antiga
+     */
+    @Transactional(readOnly = true)
+    public List<StockMovementDTO> findMovements(Long materialId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit <= 0 || limit > MAX_MOVEMENTS_PAGE) {
+            throw new BusinessException("limit must be between 1 and " + MAX_MOVEMENTS_PAGE);
+        }
+        if (!rawMaterialRepository.existsById(materialId)) {
+            throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+        }
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (start.isAfter(end)) {
+            throw new BusinessException("from must not be after to");
+        }
+        return stockMovementRepository
+                .findByRawMaterialIdAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+                        materialId, start, end, PageRequest.of(0, limit))
+                .stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    private StockMovementDTO toDTO(StockMovement movement) {
+        return StockMovementDTO.builder()
+                .id(movement.getId())
+                .materialId(movement.getRawMaterialId())
+                .type(movement.getType().name())
+                .quantity(movement.getQuantity())
+                .reference(movement.getReference())
+                .occurredAt(movement.getOccurredAt())
+                .build();
+    }
+}
@@ -0,0 +1,378 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockLevelDTO;
+import com.autoflex.inventory.dto.StockStripesDTO;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service de ESTOQUE FATIADO (stripes) para matérias-primas QUENTES
+ *
+ * Materiais usados em quase toda BOM (parafusos, tinta...) recebem muitos
+ * consumos concorrentes, e todos disputariam a MESMA linha de raw_materials.
+ * Com N stripes, o saldo é dividido em N linhas de stock_stripes:
+ *
+ *   saldo = raw_materials.stock_quantity + SOMA(stripes)
+ *
+ * - Consumo/entrada: UMA stripe sorteada, UPDATE com guarda (nunca negativa).
+ *   Escritores concorrentes caem em stripes diferentes: a vazão sob disputa
+ *   cresce com N em vez de esperar por uma única trava de linha
+ * - Stripe sem saldo suficiente: REBALANCEAMENTO — trava todas as stripes do
+ *   material em ordem, junta o saldo (mais o que estiver na linha do
+ *   material), aplica o delta e redistribui igualmente. Falta de estoque só é
+ *   declarada contra o saldo TOTAL, então o saldo nunca fica negativo
+ * - Leitura: quem precisa do saldo soma as stripes com UMA consulta agrupada
+ *   (StockStripeRepository, LIST_ALL de RawMaterialService); a entidade
+ *   RawMaterial só traz a linha
+ *
+ * Ordem de travas por material: linha do material -> stripes (crescente).
+ * O rebalanceamento nunca ESPERA pela linha do material (SKIP LOCKED), então
+ * não fecha ciclo com quem grava saldo absoluto (edição, importação CSV).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockStripingService {
+
+    public static final int MAX_STRIPES = 64;
+    // numeric(10,3) em milésimos
+    private static final long MAX_UNITS = 9_999_999_999L;
+
+    private static final String TRY_STRIPE = """
+            UPDATE stock_stripes SET quantity = quantity + ?
+             WHERE raw_material_id = ? AND stripe = ? AND quantity + ? BETWEEN 0 AND 9999999.999
+            """;
+
+    private static final String LOCK_STRIPES = """
+            SELECT raw_material_id, stripe, quantity FROM stock_stripes
+             WHERE raw_material_id = ANY(?::bigint[])
+             ORDER BY raw_material_id, stripe
+               FOR UPDATE
+            """;
+
+    private static final String SET_STRIPE =
+            "UPDATE stock_stripes SET quantity = ? WHERE raw_material_id = ? AND stripe = ?";
+
+    private static final String STOCK_LEVELS = """
+            SELECT m.id, m.code, m.name, m.unit, m.stock_quantity + COALESCE(SUM(s.quantity), 0)
+              FROM raw_materials m
+              LEFT JOIN stock_stripes s ON s.raw_material_id = m.id
+             WHERE m.id = ANY(?::bigint[])
+             GROUP BY m.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Quantidade de stripes dos materiais fatiados (os demais não aparecem)
+     */
+    public Map<Long, Integer> stripeCounts(Collection<Long> materialIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (materialIds.isEmpty()) {
+            return counts;
+        }
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT raw_material_id, COUNT(*) FROM stock_stripes "
+                                    + "WHERE raw_material_id = ANY(?::bigint[]) GROUP BY raw_material_id");
+                    ps.setArray(1, con.createArrayOf("text", toText(materialIds)));
+                    return ps;
+                },
+                rs -> {
+                    counts.put(rs.getLong(1), rs.getInt(2));
+                });
+        return counts;
+    }
+
+    /**
+     * Aplica os deltas de materiais fatiados, em ordem de ID, na transação corrente
+     *
+     * @param deltas Delta por matéria-prima (somente materiais fatiados)
+     * @param stripes Quantidade de stripes por matéria-prima
+     * @param operation Nome da operação na mensagem de erro
+     * @return Saldo anterior e novo de cada matéria-prima
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StockLevelDTO> apply(TreeMap<Long, BigDecimal> deltas, Map<Long, Integer> stripes, String operation) {
+        int rebalanced = 0;
+        for (Map.Entry<Long, BigDecimal> entry : deltas.entrySet()) {
+            Long materialId = entry.getKey();
+            BigDecimal delta = entry.getValue();
+            int stripe = ThreadLocalRandom.current().nextInt(stripes.get(materialId));
+            if (jdbcTemplate.update(TRY_STRIPE, delta, materialId, stripe, delta) == 0) {
+                rebalance(materialId, delta, operation);
+                rebalanced++;
+            }
+        }
+        if (rebalanced > 0) {
+            log.debug("{} striped raw material(s) rebalanced", rebalanced);
+        }
+
+        List<StockLevelDTO> levels = new ArrayList<>(deltas.size());
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(STOCK_LEVELS);
+                    ps.setArray(1, con.createArrayOf("text", toText(deltas.keySet())));
+                    return ps;
+                },
+                rs -> {
+                    BigDecimal stock = rs.getBigDecimal(5);
+                    BigDecimal delta = deltas.get(rs.getLong(1));
+                    levels.add(StockLevelDTO.builder()
+                            .materialId(rs.getLong(1))
+                            .materialCode(rs.getString(2))
+                            .materialName(rs.getString(3))
+                            .unit(rs.getString(4))
+                            .delta(delta)
+                            .previousStock(stock.subtract(delta))
+                            .stockQuantity(stock)
+                            .build());
+                });
+        return levels;
+    }
+
+    /**
+     * Junta o saldo de todas as stripes (e da linha do material, se livre),
+     * aplica o delta e redistribui
+     */
+    private void rebalance(Long materialId, BigDecimal delta, String operation) {
+        List<Long> units = new ArrayList<>();
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(LOCK_STRIPES);
+                    ps.setArray(1, con.createArrayOf("text", new String[] {materialId.toString()}));
+                    return ps;
+                },
+                rs -> {
+                    units.add(BomMatrix.toUnits(rs.getBigDecimal(3), BomMatrix.QUANTITY_SCALE));
+                });
+
+        if (units.isEmpty()) {
+            // Fatiamento desligado depois da leitura: delta vai para a linha do material
+            int updated = jdbcTemplate.update("UPDATE raw_materials SET stock_quantity = stock_quantity + ?, "
+                    + "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND stock_quantity + ? BETWEEN 0 AND 9999999.999",
+                    delta, materialId, delta);
+            if (updated == 0) {
+                reject(materialId, null, delta, operation);
+            }
+            return;
+        }
+
+        // Saldo parado na linha do material: só entra se ninguém estiver com ela travada
+        List<BigDecimal> row = jdbcTemplate.queryForList("SELECT stock_quantity FROM raw_materials "
+                + "WHERE id = ? AND stock_quantity <> 0 FOR UPDATE SKIP LOCKED", BigDecimal.class, materialId);
+        long available = row.isEmpty() ? 0 : BomMatrix.toUnits(row.get(0), BomMatrix.QUANTITY_SCALE);
+        for (long stripeUnits : units) {
+            available += stripeUnits;
+        }
+        long pool = available + BomMatrix.toUnits(delta, BomMatrix.QUANTITY_SCALE);
+        if (pool < 0 || pool > MAX_UNITS * units.size()) {
+            reject(materialId, BomMatrix.toDecimal(available, BomMatrix.QUANTITY_SCALE), delta, operation);
+        }
+
+        writeStripes(materialId, split(pool, units.size()));
+        if (!row.isEmpty()) {
+            jdbcTemplate.update(
+                    "UPDATE raw_materials SET stock_quantity = 0, updated_at = CURRENT_TIMESTAMP WHERE id = ?", materialId);
+        }
+    }
+
+    private void writeStripes(Long materialId, long[] split) {
+        List<Object[]> batch = new ArrayList<>(split.length);
+        for (int s = 0; s < split.length; s++) {
+            batch.add(new Object[] {BomMatrix.toDecimal(split[s], BomMatrix.QUANTITY_SCALE), materialId, s});
+        }
+        jdbcTemplate.batchUpdate(SET_STRIPE, batch);
+    }
+
+    private void reject(Long materialId, BigDecimal available, BigDecimal delta, String operation) {
+        List<Map<String, Object>> material = jdbcTemplate.queryForList(
+                "SELECT code, stock_quantity FROM raw_materials WHERE id = ?", materialId);
+        if (material.isEmpty()) {
+            throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+        }
+        BigDecimal current = available != null ? available : (BigDecimal) material.get(0).get("stock_quantity");
+        String limit = current.add(delta).signum() < 0 ? "negative stock" : "stock above the column limit";
+        throw new BusinessException(operation + " rejected, no changes applied: " + material.get(0).get("code")
+                + " (current " + current.toPlainString() + ", delta " + delta.toPlainString() + ") would have " + limit);
+    }
+
+    /**
+     * Depois de gravar um saldo ABSOLUTO na linha do material (edição,
+     * importação), move esse saldo para as stripes e zera a linha
+     *
+     * A linha do material já deve estar travada pela transação corrente.
+     *
+     * @return Quanto as stripes tinham ANTES (só materiais fatiados)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, BigDecimal> absorb(Collection<Long> materialIds) {
+        Map<Long, List<Long>> stripesByMaterial = new LinkedHashMap<>();
+        if (!materialIds.isEmpty()) {
+            jdbcTemplate.query(
+                    con -> {
+                        PreparedStatement ps = con.prepareStatement(LOCK_STRIPES);
+                        ps.setArray(1, con.createArrayOf("text", toText(materialIds)));
+                        return ps;
+                    },
+                    rs -> {
+                        stripesByMaterial.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                                .add(BomMatrix.toUnits(rs.getBigDecimal(3), BomMatrix.QUANTITY_SCALE));
+                    });
+        }
+        Map<Long, BigDecimal> previous = new HashMap<>();
+        if (stripesByMaterial.isEmpty()) {
+            return previous;
+        }
+
+        Map<Long, BigDecimal> rows = new HashMap<>();
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "SELECT id, stock_quantity FROM raw_materials WHERE id = ANY(?::bigint[])");
+                    ps.setArray(1, con.createArrayOf("text", toText(stripesByMaterial.keySet())));
+                    return ps;
+                },
+                rs -> {
+                    rows.put(rs.getLong(1), rs.getBigDecimal(2));
+                });
+
+        for (Map.Entry<Long, List<Long>> entry : stripesByMaterial.entrySet()) {
+            long before = 0;
+            for (long stripeUnits : entry.getValue()) {
+                before += stripeUnits;
+            }
+            previous.put(entry.getKey(), BomMatrix.toDecimal(before, BomMatrix.QUANTITY_SCALE));
+            writeStripes(entry.getKey(), split(BomMatrix.toUnits(rows.get(entry.getKey()), BomMatrix.QUANTITY_SCALE),
+                    entry.getValue().size()));
+        }
+        jdbcTemplate.update(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "UPDATE raw_materials SET stock_quantity = 0 WHERE id = ANY(?::bigint[])");
+                    ps.setArray(1, con.createArrayOf("text", toText(stripesByMaterial.keySet())));
+                    return ps;
+                });
+        return previous;
+    }
+
+    /**
+     * Liga (stripes >= 2), muda ou desliga (stripes = 0) o fatiamento do material
+     *
+     * O saldo total não muda: linha + stripes são juntados e redistribuídos.
+     */
+    @Transactional
+    public StockStripesDTO configure(Long materialId, int stripes) {
+        if (stripes != 0 && (stripes < 2 || stripes > MAX_STRIPES)) {
+            throw new BusinessException("stripes must be 0 (disabled) or between 2 and " + MAX_STRIPES);
+        }
+        List<BigDecimal> row = jdbcTemplate.queryForList(
+                "SELECT stock_quantity FROM raw_materials WHERE id = ? FOR UPDATE", BigDecimal.class, materialId);
+        if (row.isEmpty()) {
+            throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+        }
+        BigDecimal striped = lockedStripeTotal(materialId);
+        long pool = BomMatrix.toUnits(row.get(0).add(striped), BomMatrix.QUANTITY_SCALE);
+
+        jdbcTemplate.update("DELETE FROM stock_stripes WHERE raw_material_id = ?", materialId);
+        if (stripes == 0) {
+            if (pool > MAX_UNITS) {
+                throw new BusinessException("Stock of raw material " + materialId + " exceeds the single-row limit; "
+                        + "consume some stock before disabling stripes");
+            }
+            jdbcTemplate.update("UPDATE raw_materials SET stock_quantity = ? WHERE id = ?",
+                    BomMatrix.toDecimal(pool, BomMatrix.QUANTITY_SCALE), materialId);
+        } else {
+            long[] split = split(pool, stripes);
+            List<Object[]> batch = new ArrayList<>(stripes);
+            for (int s = 0; s < stripes; s++) {
+                batch.add(new Object[] {materialId, s, BomMatrix.toDecimal(split[s], BomMatrix.QUANTITY_SCALE)});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO stock_stripes (id, raw_material_id, stripe, quantity) "
+                    + "VALUES (nextval('stock_stripes_id_seq'), ?, ?, ?)", batch);
+            jdbcTemplate.update("UPDATE raw_materials SET stock_quantity = 0 WHERE id = ?", materialId);
+        }
+        log.info("Raw material {} stock striping set to {} stripe(s)", materialId, stripes);
+        return describe(materialId);
+    }
+
+    private BigDecimal lockedStripeTotal(Long materialId) {
+        BigDecimal[] total = {BigDecimal.ZERO};
+        jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(LOCK_STRIPES);
+                    ps.setArray(1, con.createArrayOf("text", new String[] {materialId.toString()}));
+                    return ps;
+                },
+                rs -> {
+                    total[0] = total[0].add(rs.getBigDecimal(3));
+                });
+        return total[0];
+    }
+
+    @Transactional(readOnly = true)
+    public StockStripesDTO describe(Long materialId) {
+        List<Map<String, Object>> row = jdbcTemplate.queryForList(
+                "SELECT code, stock_quantity FROM raw_materials WHERE id = ?", materialId);
+        if (row.isEmpty()) {
+            throw new ResourceNotFoundException("Raw material not found with id: " + materialId);
+        }
+        List<BigDecimal> quantities = jdbcTemplate.queryForList(
+                "SELECT quantity FROM stock_stripes WHERE raw_material_id = ? ORDER BY stripe", BigDecimal.class, materialId);
+        BigDecimal rowQuantity = (BigDecimal) row.get(0).get("stock_quantity");
+        BigDecimal total = rowQuantity;
+        for (BigDecimal quantity : quantities) {
+            total = total.add(quantity);
+        }
+        return StockStripesDTO.builder()
+                .materialId(materialId)
+                .materialCode((String) row.get(0).get("code"))
+                .stripes(quantities.size())
+                .rowQuantity(rowQuantity)
+                .stripeQuantities(quantities)
+                .stockQuantity(total)
+                .build();
+    }
+
+    /**
+     * Remove as stripes de um material excluído
+     */
+    public void remove(Long materialId) {
+        jdbcTemplate.update("DELETE FROM stock_stripes WHERE raw_material_id = ?", materialId);
+    }
+
+    /**
+     * Divide total (milésimos) em partes iguais; o resto vai para as primeiras stripes
+     */
+    static long[] split(long total, int stripes) {
+        long[] parts = new long[stripes];
+        long base = total / stripes;
+        long remainder = total % stripes;
+        for (int s = 0; s < stripes; s++) {
+            parts[s] = base + (s < remainder ? 1 : 0);
+        }
+        return parts;
+    }
+
+    private static String[] toText(Collection<Long> ids) {
+        return ids.stream().map(String::valueOf).toArray(String[]::new);
+    }
+}
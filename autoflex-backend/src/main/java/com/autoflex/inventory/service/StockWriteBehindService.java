@@ -0,0 +1,431 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockAdjustmentRequestDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.dto.WriteBehindStatusDTO;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import com.autoflex.inventory.service.StockJournal.Entry;
+import com.autoflex.inventory.service.StockJournal.Segment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * WRITE-BEHIND de baixas de estoque (terminais de chão de fábrica)
+ *
+ * Cada baixa pequena virava uma transação com UPDATE na linha do material.
+ * Aqui a baixa é:
+ * 1. Gravada no journal local append-only (StockJournal, com fsync) — só
+ *    então o pedido é aceito. O fsync é feito FORA da trava do journal e
+ *    em grupo: pedidos concorrentes compartilham o mesmo fsync
+ * 2. Somada aos deltas pendentes (PendingStockDeltas): leituras de estoque
+ *    já enxergam a baixa
+ * 3. Acumulada por material no segmento atual do journal
+ *
+ * O FLUSH (a cada inventory.write-behind.flush-interval-ms, ou antes quando
+ * o segmento chega a max-batch-events baixas) fecha o segmento e grava os
+ * deltas somados em UMA transação pelo StockAdjustmentService.apply: um
+ * UPDATE em lote, movimentações no razão e evento para o ProductionEngine.
+ *
+ * Garantias:
+ * - Queda antes do flush: os segmentos que sobraram no diretório são
+ *   regravados na inicialização
+ * - Sem gravação dupla: cada gravação do flush registra a sua referência
+ *   ("write-behind <id>", ou "...:<TYPE>:<materialId>" um a um) em
+ *   stock_journal_applied, na mesma transação; um segmento com resultado
+ *   incerto (queda ou erro no commit) só grava o que ainda não está lá.
+ *   As linhas do segmento saem da tabela quando o arquivo é apagado
+ * - A existência dos materiais é checada no último estado publicado do
+ *   ProductionEngine (sem trava); o flush continua sendo a palavra final
+ * - Lote rejeitado (saldo negativo, material excluído): os deltas são
+ *   gravados um a um e os inválidos são descartados com log
+ *
+ * O ProductionEngine é atualizado no flush (atraso máximo = intervalo de flush).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockWriteBehindService {
+
+    private static final int MAX_EVENTS_PER_REQUEST = 10_000;
+    private static final String OPERATION = "Write-behind flush";
+
+    private static final String INSERT_APPLIED =
+            "INSERT INTO stock_journal_applied (reference, segment_id, applied_at) VALUES (?, ?, LOCALTIMESTAMP)";
+
+    private final StockAdjustmentService stockAdjustmentService;
+    private final PendingStockDeltas pendingStockDeltas;
+    private final ProductionEngine productionEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${inventory.write-behind.journal-dir:data/stock-journal}")
+    private String journalDir;
+
+    @Value("${inventory.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${inventory.write-behind.max-batch-events:1000}")
+    private int maxBatchEvents;
+
+    @Value("${inventory.write-behind.fsync:true}")
+    private boolean fsync;
+
+    // Journal e segmento atual: acesso só com a trava (exceto sync, ver StockJournal)
+    private final ReentrantLock lock = new ReentrantLock();
+    // Segmentos fechados aguardando flush (mais antigo primeiro)
+    private final ConcurrentLinkedDeque<PendingSegment> queued = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong rejectedDeltas = new AtomicLong();
+    private volatile LocalDateTime lastFlushAt;
+
+    private StockJournal journal;
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Segmento fechado e o que dele já foi resolvido (gravado ou descartado)
+     */
+    private static final class PendingSegment {
+        private final Segment segment;
+        private final Set<String> settled = new HashSet<>();
+        private boolean uncertain;
+
+        private PendingSegment(Segment segment, boolean uncertain) {
+            this.segment = segment;
+            this.uncertain = uncertain;
+        }
+
+        private String reference() {
+            return "write-behind " + segment.id();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        journal = new StockJournal(Path.of(journalDir), fsync);
+        // Segmentos de uma execução anterior: resultado incerto, visíveis nas leituras até o flush
+        for (Segment segment : journal.recover()) {
+            segment.deltas().values().forEach(deltas -> deltas.forEach(pendingStockDeltas::add));
+            queued.add(new PendingSegment(segment, true));
+        }
+        if (!queued.isEmpty()) {
+            log.info("Recovered {} stock journal segment(s) from {}", queued.size(), journalDir);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlushing() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, 0, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Aceita as baixas depois de gravadas no journal
+     *
+     * @param request Deltas por matéria-prima; tipo padrão CONSUMPTION
+     */
+    public WriteBehindStatusDTO enqueue(StockAdjustmentRequestDTO request) {
+        List<StockDeltaDTO> deltas = request.getAdjustments();
+        if (deltas.size() > MAX_EVENTS_PER_REQUEST) {
+            throw new BusinessException("At most " + MAX_EVENTS_PER_REQUEST + " stock movements can be posted per request");
+        }
+        StockMovementType type = request.getType() != null ? request.getType() : StockMovementType.CONSUMPTION;
+        if (type == StockMovementType.OPENING) {
+            throw new BusinessException("OPENING movements are recorded only when a raw material is created");
+        }
+        ProductionState state = productionEngine.latest();
+        List<Entry> entries = new ArrayList<>(deltas.size());
+        for (StockDeltaDTO delta : deltas) {
+            BigDecimal value = delta.getDelta();
+            if (value.stripTrailingZeros().scale() > 3) {
+                throw new BusinessException("Delta for raw material " + delta.getMaterialId()
+                        + " must have at most 3 decimal places");
+            }
+            if ((type == StockMovementType.RECEIPT && value.signum() <= 0)
+                    || (type == StockMovementType.CONSUMPTION && value.signum() >= 0)) {
+                throw new BusinessException(type + " delta for raw material " + delta.getMaterialId()
+                        + " must be " + (type == StockMovementType.RECEIPT ? "positive" : "negative"));
+            }
+            int ordinal = state.matrix().materialOrdinal(delta.getMaterialId());
+            if (ordinal < 0 && state.version() != productionEngine.version()) {
+                // Estado publicado defasado (material recém-criado): confirma no estado atual
+                state = productionEngine.current();
+                ordinal = state.matrix().materialOrdinal(delta.getMaterialId());
+            }
+            if (ordinal < 0) {
+                throw new ResourceNotFoundException("Raw material not found with id: " + delta.getMaterialId());
+            }
+            entries.add(new Entry(delta.getMaterialId(), type, value));
+        }
+
+        int events;
+        long ticket;
+        lock.lock();
+        try {
+            ticket = journal.write(entries);
+            for (Entry entry : entries) {
+                pendingStockDeltas.add(entry.materialId(), entry.delta());
+            }
+            events = journal.currentEvents();
+        } finally {
+            lock.unlock();
+        }
+        // Group commit: um fsync cobre este pedido e os que foram escritos antes dele
+        journal.sync(ticket);
+        if (events >= maxBatchEvents && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+
+        WriteBehindStatusDTO status = status();
+        status.setAccepted(entries.size());
+        return status;
+    }
+
+    /**
+     * Flush imediato (na thread de flush), aguardando o término
+     */
+    public WriteBehindStatusDTO flushNow() {
+        try {
+            flusher.submit(this::flush).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while flushing stock write-behind buffer", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stock write-behind flush failed", e.getCause());
+        }
+        return status();
+    }
+
+    public WriteBehindStatusDTO status() {
+        int events;
+        lock.lock();
+        try {
+            events = journal.currentEvents();
+        } finally {
+            lock.unlock();
+        }
+        for (PendingSegment pending : queued) {
+            events += pending.segment.events();
+        }
+        LocalDateTime flushedAt = lastFlushAt;
+        return WriteBehindStatusDTO.builder()
+                .pendingEvents(events)
+                .pendingMaterials(pendingStockDeltas.materialCount())
+                .queuedSegments(queued.size())
+                .flushedBatches(flushedBatches.get())
+                .rejectedDeltas(rejectedDeltas.get())
+                .lastFlushAt(flushedAt != null ? flushedAt.format(DateTimeFormatter.ISO_DATE_TIME) : null)
+                .build();
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Stock write-behind flush failed; segments kept for retry", e);
+        }
+    }
+
+    /**
+     * Fecha o segmento atual e grava os segmentos na fila, do mais antigo ao
+     * mais novo. Só roda na thread de flush (ou no encerramento).
+     */
+    private void flush() {
+        lock.lock();
+        try {
+            Segment segment = journal.rotate();
+            if (segment != null) {
+                queued.add(new PendingSegment(segment, false));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        PendingSegment pending;
+        while ((pending = queued.peek()) != null) {
+            if (!write(pending)) {
+                return;
+            }
+            queued.poll();
+            journal.delete(pending.segment);
+            forgetApplied(pending.segment);
+            flushedBatches.incrementAndGet();
+            lastFlushAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * @return false se o banco falhou (segmento fica na fila com resultado incerto)
+     */
+    private boolean write(PendingSegment pending) {
+        Map<StockMovementType, TreeMap<Long, BigDecimal>> deltas = pending.segment.deltas();
+        try {
+            Set<String> applied = pending.uncertain ? appliedReferences(pending.segment.id()) : Set.of();
+            if (applied.contains(pending.reference())) {
+                deltas.values().forEach(byMaterial -> byMaterial.forEach(pendingStockDeltas::subtract));
+                return true;
+            }
+
+            // 1. Segmento inteiro em uma transação
+            if (applied.isEmpty() && pending.settled.isEmpty()) {
+                try {
+                    inTransaction(pending, pending.reference(), sumByMaterial(deltas), () -> deltas.forEach((type, byMaterial) ->
+                            stockAdjustmentService.apply(byMaterial, type, pending.reference(), OPERATION)));
+                    log.debug("Stock write-behind segment {} flushed: {} event(s)", pending.segment.id(),
+                            pending.segment.events());
+                    return true;
+                } catch (BusinessException | ResourceNotFoundException e) {
+                    log.warn("Stock write-behind segment {} rejected as a batch ({}); applying deltas one by one",
+                            pending.segment.id(), e.getMessage());
+                }
+            }
+
+            // 2. Um material por vez; deltas inválidos são descartados
+            for (Map.Entry<StockMovementType, TreeMap<Long, BigDecimal>> byType : deltas.entrySet()) {
+                for (Map.Entry<Long, BigDecimal> delta : byType.getValue().entrySet()) {
+                    String reference = pending.reference() + ":" + byType.getKey() + ":" + delta.getKey();
+                    if (pending.settled.contains(reference)) {
+                        continue;
+                    }
+                    if (applied.contains(reference)) {
+                        pendingStockDeltas.subtract(delta.getKey(), delta.getValue());
+                        pending.settled.add(reference);
+                        continue;
+                    }
+                    TreeMap<Long, BigDecimal> single = new TreeMap<>(Map.of(delta.getKey(), delta.getValue()));
+                    try {
+                        inTransaction(pending, reference, single, () ->
+                                stockAdjustmentService.apply(single, byType.getKey(), reference, OPERATION));
+                    } catch (BusinessException | ResourceNotFoundException e) {
+                        log.warn("Dropping write-behind {} delta {} for raw material {}: {}", byType.getKey(),
+                                delta.getValue().toPlainString(), delta.getKey(), e.getMessage());
+                        pendingStockDeltas.subtract(delta.getKey(), delta.getValue());
+                        rejectedDeltas.incrementAndGet();
+                    }
+                    pending.settled.add(reference);
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            pending.uncertain = true;
+            log.error("Stock write-behind segment {} could not be written; will retry", pending.segment.id(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Executa work em uma transação e tira os deltas dos pendentes ANTES do
+     * commit (os eventos pós-commit já recarregam o estoque sem eles);
+     * devolve os deltas se o commit falhar depois de tirados
+     * 
+     * Rollback por exceção de work (lote rejeitado) não passa pelo
+     * beforeCommit: nada foi tirado, então nada é devolvido
+     * 
+     * A referência vai para stock_journal_applied no mesmo commit
+     */
+    private void inTransaction(PendingSegment pending, String reference, Map<Long, BigDecimal> settled,
+                               Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean subtracted;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    settled.forEach(pendingStockDeltas::subtract);
+                    subtracted = true;
+                }
+
+                @Override
+                public void afterCompletion(int completion) {
+                    if (subtracted && completion != STATUS_COMMITTED) {
+                        settled.forEach(pendingStockDeltas::add);
+                    }
+                }
+            });
+            work.run();
+            jdbcTemplate.update(INSERT_APPLIED, reference, pending.segment.id());
+        });
+    }
+
+    private static Map<Long, BigDecimal> sumByMaterial(Map<StockMovementType, TreeMap<Long, BigDecimal>> deltas) {
+        Map<Long, BigDecimal> sum = new HashMap<>();
+        deltas.values().forEach(byMaterial -> byMaterial.forEach((id, delta) -> sum.merge(id, delta, BigDecimal::add)));
+        return sum;
+    }
+
+    /**
+     * Referências do segmento já gravadas (busca pela chave em stock_journal_applied)
+     */
+    private Set<String> appliedReferences(String segmentId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT reference FROM stock_journal_applied WHERE segment_id = ?", String.class, segmentId));
+    }
+
+    /**
+     * Só depois de apagar o arquivo: antes disso a tabela protege o replay
+     */
+    private void forgetApplied(Segment segment) {
+        try {
+            jdbcTemplate.update("DELETE FROM stock_journal_applied WHERE segment_id = ?", segment.id());
+        } catch (RuntimeException e) {
+            log.warn("Cannot clean applied references of stock journal segment {}: {}", segment.id(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdown();
+        try {
+            if (flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Final stock write-behind flush failed; segments will be replayed on startup", e);
+        }
+        lock.lock();
+        try {
+            journal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.autoflex.inventory.service;
+
+/**
+ * Seleciona os K produtos de MAIOR chave sem ordenar o catálogo inteiro
+ *
+ * Heap mínimo limitado a K posições sobre arrays primitivos: a raiz é o
+ * pior produto mantido, e cada oferta custa O(log K). Em chaves iguais
+ * vence o menor ordinal (ordem do catálogo).
+ */
+final class TopKSelector {
+
+    private final long[] keys;
+    private final int[] ordinals;
+    private int size;
+
+    TopKSelector(int capacity) {
+        this.keys = new long[capacity];
+        this.ordinals = new int[capacity];
+    }
+
+    void offer(long key, int ordinal) {
+        if (keys.length == 0) {
+            return;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            ordinals[size] = ordinal;
+            siftUp(size++);
+        } else if (better(key, ordinal, keys[0], ordinals[0])) {
+            keys[0] = key;
+            ordinals[0] = ordinal;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Ordinais selecionados, do melhor para o pior (esvazia o heap)
+     */
+    int[] drainDescending() {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ordinals[0];
+            size--;
+            keys[0] = keys[size];
+            ordinals[0] = ordinals[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private static boolean better(long key, int ordinal, long otherKey, int otherOrdinal) {
+        return key > otherKey || (key == otherKey && ordinal < otherOrdinal);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(keys[parent], ordinals[parent], keys[i], ordinals[i])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && better(keys[worst], ordinals[worst], keys[left], ordinals[left])) {
+                worst = left;
+            }
+            if (right < size && better(keys[worst], ordinals[worst], keys[right], ordinals[right])) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+    }
+}
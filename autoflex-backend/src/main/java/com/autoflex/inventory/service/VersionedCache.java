@@ -0,0 +1,91 @@
+package com.autoflex.inventory.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Cache de UM valor associado à versão do inventário que ele reflete
+ *
+ * - Versão atual <= versão guardada => devolve o valor guardado
+ * - Caso contrário, apenas uma thread calcula (single-flight) e as demais
+ *   aguardam o mesmo resultado
+ * - Quem aguardou um cálculo iniciado antes de uma escrita mais recente
+ *   tenta de novo
+ */
+class VersionedCache<T> {
+
+    private final AtomicReference<Entry<T>> cache = new AtomicReference<>();
+    private final Object flightLock = new Object();
+    private CompletableFuture<Entry<T>> inFlight;
+
+    /**
+     * @param currentVersion versão atual do inventário
+     * @param compute cálculo do valor
+     * @param versionOf versão refletida por um valor calculado
+     */
+    T get(LongSupplier currentVersion, Supplier<T> compute, ToLongFunction<T> versionOf) {
+        while (true) {
+            long version = currentVersion.getAsLong();
+            Entry<T> cached = cache.get();
+            if (cached != null && cached.version >= version) {
+                return cached.value;
+            }
+
+            CompletableFuture<Entry<T>> flight;
+            boolean owner = false;
+            synchronized (flightLock) {
+                if (inFlight == null) {
+                    inFlight = new CompletableFuture<>();
+                    owner = true;
+                }
+                flight = inFlight;
+            }
+
+            if (owner) {
+                try {
+                    T value = compute.get();
+                    Entry<T> computed = new Entry<>(versionOf.applyAsLong(value), value);
+                    cache.accumulateAndGet(computed, (a, b) -> a == null || b.version >= a.version ? b : a);
+                    flight.complete(computed);
+                } catch (RuntimeException ex) {
+                    flight.completeExceptionally(ex);
+                    throw ex;
+                } finally {
+                    synchronized (flightLock) {
+                        inFlight = null;
+                    }
+                }
+            }
+
+            Entry<T> result = join(flight);
+            if (result.version >= version) {
+                return result.value;
+            }
+        }
+    }
+
+    private static <T> Entry<T> join(CompletableFuture<Entry<T>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static class Entry<T> {
+        final long version;
+        final T value;
+
+        Entry(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+-- ============================================================================
+-- Migração: IDENTITY -> SEQUENCE (allocationSize = 50, pooled-lo)
+--
+-- Executar UMA vez, antes de subir a versão com @SequenceGenerator, em bancos
+-- criados quando as entidades usavam GenerationType.IDENTITY:
+--   psql -d autoflex -f 001_sequence_ids.sql
+--
+-- - Os IDs existentes NÃO mudam: cada sequence recomeça em MAX(id) + 1
+-- - INCREMENT BY 50 precisa bater com o allocationSize das entidades
+--   (o Hibernate recusa a sequence com incremento diferente)
+-- - O DEFAULT nextval(...) continua valendo para INSERTs manuais (data.sql);
+--   com pooled-lo cada nextval reserva [valor, valor + 49], então INSERTs
+--   manuais e a aplicação nunca geram o mesmo ID
+-- - Executar com a aplicação PARADA (blocos de IDs já reservados são descartados)
+-- ============================================================================
+
+DO $$
+DECLARE
+    t TEXT;
+    seq TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['products', 'raw_materials', 'product_raw_materials', 'product_components'] LOOP
+        CONTINUE WHEN to_regclass(t) IS NULL;
+        seq := t || '_id_seq';
+
+        -- Coluna IDENTITY: a sequence interna é removida junto com a identidade
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema()
+                     AND table_name = t AND column_name = 'id' AND is_identity = 'YES') THEN
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY', t);
+        END IF;
+
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', seq);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50 OWNED BY %I.id', seq, t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', t, seq);
+        EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(id) FROM %I), 0) + 1, false)', seq, t);
+    END LOOP;
+END $$;
@@ -0,0 +1,30 @@
+-- ============================================================================
+-- Migração: índices das listagens paginadas (GET /api/products?limit=...,
+-- GET /api/raw-materials?limit=...)
+--
+-- Os índices simples ((name, id), (value, id), (unit, code)) são criados pelo
+-- Hibernate (@Index nas entidades). Estes aqui não podem ser declarados em JPA:
+--   psql -d autoflex -f 002_listing_indexes.sql
+--
+-- - Prefixo de código/nome sem diferenciar maiúsculas: lower(coluna) LIKE 'x%'
+--   só usa índice com text_pattern_ops (o banco não usa collation "C")
+-- - Estoque baixo: índice PARCIAL com o mesmo limite de
+--   RawMaterialService.LOW_STOCK_THRESHOLD (stock_quantity < 10); as stripes
+--   só somam saldo, então todo material com estoque baixo está no índice
+-- - CONCURRENTLY: não bloqueia escritas; roda fora de transação (sem -1)
+-- ============================================================================
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_code_prefix
+    ON products (lower(code) text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_name_prefix
+    ON products (lower(name) text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_raw_materials_code_prefix
+    ON raw_materials (lower(code) text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_raw_materials_name_prefix
+    ON raw_materials (lower(name) text_pattern_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_raw_materials_low_stock
+    ON raw_materials (code) WHERE stock_quantity < 10;
@@ -0,0 +1,51 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.ComponentLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BomExplosionTest {
+
+	private final MaterialEntry steel = new MaterialEntry(1L, "MP1", "Steel", "kg", new BigDecimal("100.000"));
+	private final MaterialEntry foam = new MaterialEntry(2L, "MP2", "Foam", "kg", new BigDecimal("50.000"));
+
+	@Test
+	void flattensSubAssembliesAndInvalidatesOnlyAncestors() {
+		// Banco (1) = 0.5 kg espuma + 1.5 x Estrutura (2); Estrutura = 1.333 kg aço; Parafuso (3) isolado
+		ProductEntry seat = new ProductEntry(1L, "P1", "Banco", new BigDecimal("300.00"),
+				List.of(new BomLine(foam, new BigDecimal("0.500"))),
+				List.of(new ComponentLine(2L, new BigDecimal("1.500"))));
+		ProductEntry frame = new ProductEntry(2L, "P2", "Estrutura", new BigDecimal("120.00"),
+				List.of(new BomLine(steel, new BigDecimal("1.333"))));
+		ProductEntry bolt = new ProductEntry(3L, "P3", "Parafuso", new BigDecimal("1.00"),
+				List.of(new BomLine(steel, new BigDecimal("0.010"))));
+		BomExplosion explosion = BomExplosion.of(new CatalogSnapshot(List.of(seat, frame, bolt), List.of(steel, foam)));
+
+		// 1.5 x 1.333 = 1.9995 -> arredondado para cima
+		assertThat(explosion.flatten(1L))
+				.extracting(line -> line.getMaterial().getId(), BomLine::getRequiredQuantity)
+				.containsExactly(
+						tuple(2L, new BigDecimal("0.500")),
+						tuple(1L, new BigDecimal("2.000")));
+
+		Set<Long> affected = explosion.replace(
+				Map.of(2L, List.of(new BomLine(steel, new BigDecimal("2.000")))), Map.of());
+		assertThat(affected).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(explosion.flatten(1L).get(1).getRequiredQuantity()).isEqualByComparingTo("3.000");
+
+		// Ciclo (Estrutura passa a usar Banco): aresta ignorada, sem recursão infinita
+		explosion.replace(Map.of(2L, List.of(new BomLine(steel, new BigDecimal("2.000")))),
+				Map.of(2L, List.of(new ComponentLine(1L, BigDecimal.ONE))));
+		assertThat(explosion.flatten(1L)).hasSize(2);
+	}
+}
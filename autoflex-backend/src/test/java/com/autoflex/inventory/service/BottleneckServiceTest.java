@@ -0,0 +1,44 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.BottleneckResponseDTO;
+import com.autoflex.inventory.dto.MaterialBottleneckDTO;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BottleneckServiceTest {
+
+	@Test
+	void ranksLimitingMaterialWithShadowPriceAndUnlockQuantity() {
+		MaterialEntry aluminium = new MaterialEntry(1L, "MP1", "Aluminium", "kg", new BigDecimal("2.500"));
+		MaterialEntry screws = new MaterialEntry(2L, "MP2", "Screws", "un", new BigDecimal("10.000"));
+		// A: limitado pelo alumínio (2 unidades), próximo limite nos parafusos (10)
+		ProductEntry a = new ProductEntry(1L, "A", "A", new BigDecimal("100.00"), List.of(
+				new BomLine(aluminium, new BigDecimal("1.000")), new BomLine(screws, new BigDecimal("1.000"))));
+		// B: só usa alumínio (5 unidades)
+		ProductEntry b = new ProductEntry(2L, "B", "B", new BigDecimal("50.00"), List.of(
+				new BomLine(aluminium, new BigDecimal("0.500"))));
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(new CatalogSnapshot(List.of(a, b), List.of(aluminium, screws)));
+
+		BottleneckResponseDTO response = new BottleneckService(
+				new ProductionEngine(loader, ProductionParallelism.sequential())).analyze(null);
+
+		assertThat(response.getBottlenecks()).hasSize(1);
+		MaterialBottleneckDTO bottleneck = response.getBottlenecks().get(0);
+		assertThat(bottleneck.getMaterialCode()).isEqualTo("MP1");
+		assertThat(bottleneck.getLimitedProducts()).isEqualTo(2);
+		assertThat(bottleneck.getBlockedValue()).isEqualByComparingTo("800.00");
+		assertThat(bottleneck.getShadowPrice()).isEqualByComparingTo("200.00");
+		assertThat(bottleneck.getUnitsToUnlockNext()).isEqualByComparingTo("0.500");
+		assertThat(bottleneck.getUnlocksProductCode()).isEqualTo("A");
+	}
+}
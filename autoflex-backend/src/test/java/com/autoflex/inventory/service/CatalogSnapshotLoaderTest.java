@@ -0,0 +1,113 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.entity.Product;
+import com.autoflex.inventory.entity.RawMaterial;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.repository.ProductComponentRepository;
+import com.autoflex.inventory.repository.ProductRawMaterialRepository;
+import com.autoflex.inventory.repository.ProductRawMaterialRepository.BomLineView;
+import com.autoflex.inventory.repository.ProductRepository;
+import com.autoflex.inventory.repository.RawMaterialRepository;
+import com.autoflex.inventory.repository.StockStripeRepository;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogSnapshotLoaderTest {
+
+	private ProductRepository productRepository;
+	private RawMaterialRepository rawMaterialRepository;
+	private ProductRawMaterialRepository productRawMaterialRepository;
+	private ApplicationEventPublisher eventPublisher;
+	private CatalogSnapshotLoader loader;
+
+	@BeforeEach
+	void setUp() {
+		productRepository = mock(ProductRepository.class);
+		rawMaterialRepository = mock(RawMaterialRepository.class);
+		productRawMaterialRepository = mock(ProductRawMaterialRepository.class);
+		StockStripeRepository stockStripeRepository = mock(StockStripeRepository.class);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		loader = new CatalogSnapshotLoader(productRepository, rawMaterialRepository, productRawMaterialRepository,
+				mock(ProductComponentRepository.class), stockStripeRepository, new PendingStockDeltas(), eventPublisher);
+		when(stockStripeRepository.sumQuantityByRawMaterial()).thenReturn(List.of());
+	}
+
+	@Test
+	void bomLineCommittedAfterTheMaterialsWereReadIsDroppedAndFlagged() {
+		when(productRepository.findAllByOrderByValueDesc()).thenReturn(List.of(product(1L), product(2L)));
+		when(rawMaterialRepository.findAll()).thenReturn(List.of(material(7L)));
+		// Material 9 e a linha que o usa foram confirmados entre as consultas
+		List<BomLineView> bomLines = List.of(line(1L, 7L), line(1L, 9L), line(2L, 7L));
+		when(productRawMaterialRepository.findAllBomLines()).thenReturn(bomLines);
+
+		CatalogSnapshot snapshot = loader.load();
+
+		assertThat(snapshot.getProducts().get(0).getLines())
+				.extracting(bomLine -> bomLine.getMaterial().getId())
+				.containsExactly(7L);
+		assertThat(snapshot.getProducts().get(1).getLines()).hasSize(1);
+		assertThat(BomMatrix.compile(snapshot).productCount()).isEqualTo(2);
+		assertThat(reloadRequests()).containsExactly(1L);
+	}
+
+	@Test
+	void bomRefreshDropsLinesWhoseMaterialIsGone() {
+		List<BomLineView> bomLines = List.of(line(1L, 7L), line(1L, 9L));
+		when(productRawMaterialRepository.findBomLinesByProductIds(anyCollection())).thenReturn(bomLines);
+		when(rawMaterialRepository.findAllById(anyCollection())).thenReturn(List.of(material(7L)));
+
+		Map<Long, List<BomLine>> lines = loader.loadBomLines(List.of(1L, 2L));
+
+		assertThat(lines.get(1L)).extracting(bomLine -> bomLine.getMaterial().getId()).containsExactly(7L);
+		assertThat(lines.get(2L)).isEmpty();
+		assertThat(reloadRequests()).containsExactly(1L);
+	}
+
+	private List<Long> reloadRequests() {
+		ArgumentCaptor<InventoryChangedEvent> event = ArgumentCaptor.forClass(InventoryChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getKind()).isEqualTo(Kind.BOM_CHANGED);
+		return event.getValue().getIds();
+	}
+
+	private static Product product(Long id) {
+		Product product = new Product();
+		product.setId(id);
+		product.setCode("P" + id);
+		product.setName("Product " + id);
+		product.setValue(new BigDecimal("10.00"));
+		return product;
+	}
+
+	private static RawMaterial material(Long id) {
+		RawMaterial material = new RawMaterial();
+		material.setId(id);
+		material.setCode("M" + id);
+		material.setName("Material " + id);
+		material.setUnit("kg");
+		material.setStockQuantity(new BigDecimal("5.000"));
+		return material;
+	}
+
+	private static BomLineView line(Long productId, Long materialId) {
+		BomLineView line = mock(BomLineView.class);
+		when(line.getProductId()).thenReturn(productId);
+		when(line.getRawMaterialId()).thenReturn(materialId);
+		when(line.getRequiredQuantity()).thenReturn(BigDecimal.ONE);
+		return line;
+	}
+}
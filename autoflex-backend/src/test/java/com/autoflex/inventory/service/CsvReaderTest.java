@@ -0,0 +1,46 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+	@Test
+	void readsQuotedFieldsAndTracksPhysicalLines() throws IOException {
+		String csv = "\uFEFFcode;name;unit;stock_quantity\r\n"
+				+ "MP001; Aço Inoxidável ;kg;500.000\r\n"
+				+ "\r\n"
+				+ "\"MP002\";\"Parafuso \"\"M8\"\"; caixa\";unidade;10\n"
+				+ "MP003;\"Vidro\nTemperado\" ;m²;5\n"
+				+ "MP004;Tinta;litro;";
+		CsvReader reader = new CsvReader(new StringReader(csv));
+
+		assertThat(reader.readHeader()).containsExactly("code", "name", "unit", "stock_quantity");
+		assertThat(reader.next()).containsExactly("MP001", "Aço Inoxidável", "kg", "500.000");
+		assertThat(reader.lineNumber()).isEqualTo(2);
+		assertThat(reader.next()).containsExactly("MP002", "Parafuso \"M8\"; caixa", "unidade", "10");
+		assertThat(reader.lineNumber()).isEqualTo(4);
+		assertThat(reader.next()).containsExactly("MP003", "Vidro\nTemperado", "m²", "5");
+		assertThat(reader.lineNumber()).isEqualTo(5);
+		assertThat(reader.next()).containsExactly("MP004", "Tinta", "litro", "");
+		assertThat(reader.lineNumber()).isEqualTo(7);
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void rejectsUnterminatedQuote() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("code,name,value\nP1,\"Capô,10\n"));
+
+		assertThat(reader.readHeader()).isEqualTo(List.of("code", "name", "value"));
+		assertThatThrownBy(reader::next)
+				.isInstanceOf(BusinessException.class)
+				.hasMessageContaining("Line 2");
+	}
+}
@@ -0,0 +1,23 @@
+package com.autoflex.inventory.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Contexto dos testes com dados CONFIRMADOS no PostgreSQL (InventoryTestData)
+ *
+ * Journal do write-behind fora de data/ e sem flush periódico: o teste
+ * decide quando gravar (flushNow), sem corrida com a thread de flush.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest(properties = {
+		"inventory.write-behind.journal-dir=target/stock-journal-test",
+		"inventory.write-behind.flush-interval-ms=3600000"
+})
+@interface InventoryDatabaseTest {
+}
@@ -0,0 +1,135 @@
+package com.autoflex.inventory.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dados CONFIRMADOS no PostgreSQL de teste, para testes que precisam de mais
+ * de uma transação (concorrência, flush em outra thread, commit por bloco)
+ *
+ * Cada instância usa um prefixo de código próprio; cleanUp() apaga as linhas
+ * com esse prefixo e as tabelas filhas (razão, stripes, BOM), então os testes
+ * não dependem da ordem.
+ */
+final class InventoryTestData {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final String prefix = "T" + UUID.randomUUID().toString().substring(0, 8).toUpperCase() + "-";
+
+	InventoryTestData(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Código único desta instância (materiais e produtos criados fora dela também entram no cleanUp)
+	 */
+	String code(String suffix) {
+		return prefix + suffix;
+	}
+
+	long material(String suffix, String stock) {
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO raw_materials (id, code, name, unit, stock_quantity, created_at, updated_at)
+				VALUES (nextval('raw_materials_id_seq'), ?, ?, 'kg', ?::numeric, LOCALTIMESTAMP, LOCALTIMESTAMP)
+				RETURNING id
+				""", Long.class, code(suffix), "Test " + suffix, stock);
+	}
+
+	long product(String suffix, String value) {
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO products (id, code, name, value, created_at, updated_at)
+				VALUES (nextval('products_id_seq'), ?, ?, ?::numeric, LOCALTIMESTAMP, LOCALTIMESTAMP)
+				RETURNING id
+				""", Long.class, code(suffix), "Test " + suffix, value);
+	}
+
+	/**
+	 * Saldo total: linha do material + stripes
+	 */
+	BigDecimal stock(long materialId) {
+		return jdbcTemplate.queryForObject("""
+				SELECT m.stock_quantity + COALESCE((SELECT SUM(quantity) FROM stock_stripes WHERE raw_material_id = m.id), 0)
+				  FROM raw_materials m WHERE m.id = ?
+				""", BigDecimal.class, materialId);
+	}
+
+	/**
+	 * Saldo só da linha de raw_materials (fora das stripes)
+	 */
+	BigDecimal row(long materialId) {
+		return jdbcTemplate.queryForObject(
+				"SELECT stock_quantity FROM raw_materials WHERE id = ?", BigDecimal.class, materialId);
+	}
+
+	/**
+	 * Saldo de cada stripe, em ordem de stripe
+	 */
+	List<BigDecimal> stripes(long materialId) {
+		return jdbcTemplate.queryForList(
+				"SELECT quantity FROM stock_stripes WHERE raw_material_id = ? ORDER BY stripe",
+				BigDecimal.class, materialId);
+	}
+
+	/**
+	 * Soma das movimentações do razão (deve fechar com stock)
+	 */
+	BigDecimal ledger(long materialId) {
+		return jdbcTemplate.queryForObject(
+				"SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE raw_material_id = ?",
+				BigDecimal.class, materialId);
+	}
+
+	void cleanUp() {
+		String materialCodes = "SELECT id FROM raw_materials WHERE code LIKE '" + prefix + "%'";
+		String productCodes = "SELECT id FROM products WHERE code LIKE '" + prefix + "%'";
+		jdbcTemplate.update("DELETE FROM product_components WHERE product_id IN (" + productCodes
+				+ ") OR component_id IN (" + productCodes + ")");
+		jdbcTemplate.update("DELETE FROM product_raw_materials WHERE product_id IN (" + productCodes
+				+ ") OR raw_material_id IN (" + materialCodes + ")");
+		jdbcTemplate.update("DELETE FROM stock_movements WHERE raw_material_id IN (" + materialCodes + ")");
+		jdbcTemplate.update("DELETE FROM stock_snapshots WHERE raw_material_id IN (" + materialCodes + ")");
+		jdbcTemplate.update("DELETE FROM stock_stripes WHERE raw_material_id IN (" + materialCodes + ")");
+		jdbcTemplate.update("DELETE FROM raw_materials WHERE code LIKE '" + prefix + "%'");
+		jdbcTemplate.update("DELETE FROM products WHERE code LIKE '" + prefix + "%'");
+	}
+
+	/**
+	 * Roda as tarefas ao mesmo tempo (cada uma na sua thread e transação)
+	 *
+	 * @return Exceção de cada tarefa, na ordem recebida (null = terminou bem)
+	 */
+	static List<Throwable> race(Runnable... tasks) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(tasks.length);
+		ExecutorService executor = Executors.newFixedThreadPool(tasks.length);
+		try {
+			List<Future<Throwable>> results = new ArrayList<>();
+			for (Runnable task : tasks) {
+				results.add(executor.submit(() -> {
+					start.await(10, TimeUnit.SECONDS);
+					try {
+						task.run();
+						return null;
+					} catch (RuntimeException ex) {
+						return ex;
+					}
+				}));
+			}
+			List<Throwable> errors = new ArrayList<>();
+			for (Future<Throwable> result : results) {
+				errors.add(result.get(30, TimeUnit.SECONDS));
+			}
+			return errors;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.CursorPageDTO;
+import com.autoflex.inventory.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeysetQueryTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void nextPageStartsAfterTheCursorWithFiltersAndOneExtraRow() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.query(any(String.class), any(RowMapper.class), any(Object[].class)))
+				.thenReturn(List.of(2L, 3L, 4L));
+		String cursor = KeysetQuery.encode(ListingSort.VALUE, 1L, "19.90");
+
+		CursorPageDTO<Long> page = new KeysetQuery()
+				.prefix("code", "Mp_1")
+				.where("value >= ?", new BigDecimal("5"))
+				.where("value <= ?", (BigDecimal) null)
+				.fetch(jdbcTemplate, "SELECT id FROM products", ListingSort.VALUE, cursor, 2,
+						(rs, row) -> rs.getLong(1), id -> id, id -> id + ".00");
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+		assertThat(sql.getValue()).isEqualTo("SELECT id FROM products WHERE lower(code) LIKE ? AND value >= ?"
+				+ " AND (value, id) < (?, ?) ORDER BY value DESC, id DESC LIMIT ?");
+		assertThat(args.getValue()).containsExactly("mp\\_1%", new BigDecimal("5"), new BigDecimal("19.90"), 1L, 3);
+
+		assertThat(page.getItems()).containsExactly(2L, 3L);
+		assertThat(page.getHasMore()).isTrue();
+		assertThat(KeysetQuery.decode(page.getNextCursor(), ListingSort.VALUE)).containsExactly("VALUE", "3", "3.00");
+	}
+
+	@Test
+	void rejectsCursorsFromAnotherSortOrMalformed() {
+		String byCode = KeysetQuery.encode(ListingSort.CODE, 9L, "MP:001");
+
+		assertThat(KeysetQuery.decode(byCode, ListingSort.CODE)).containsExactly("CODE", "9", "MP:001");
+		assertThatThrownBy(() -> KeysetQuery.decode(byCode, ListingSort.NAME)).isInstanceOf(BusinessException.class);
+		assertThatThrownBy(() -> KeysetQuery.decode("not base64!", ListingSort.CODE))
+				.isInstanceOf(BusinessException.class);
+		assertThatThrownBy(() -> KeysetQuery.decode(KeysetQuery.encode(ListingSort.VALUE, 1L, "abc"), ListingSort.VALUE))
+				.isInstanceOf(BusinessException.class);
+	}
+}
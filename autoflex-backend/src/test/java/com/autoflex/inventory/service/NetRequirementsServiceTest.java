@@ -0,0 +1,60 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.DemandLineDTO;
+import com.autoflex.inventory.dto.DemandRequestDTO;
+import com.autoflex.inventory.dto.NetRequirementDTO;
+import com.autoflex.inventory.dto.NetRequirementsResponseDTO;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NetRequirementsServiceTest {
+
+	@Test
+	void grossAndNetRequirementsMatchBigDecimalAggregation() {
+		Random random = new Random(9);
+		CatalogSnapshot snapshot = ProductionSuggestionServiceTest.randomCatalog(random, 200, 30);
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(snapshot);
+		NetRequirementsService service = new NetRequirementsService(new ProductionEngine(loader, ProductionParallelism.sequential()));
+
+		List<DemandLineDTO> lines = new ArrayList<>();
+		Map<Long, BigDecimal> expectedGross = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			ProductEntry product = snapshot.getProducts().get(random.nextInt(snapshot.getProducts().size()));
+			int quantity = 1 + random.nextInt(50);
+			lines.add(new DemandLineDTO(product.getCode(), quantity));
+			for (BomLine line : product.getLines()) {
+				expectedGross.merge(line.getMaterial().getId(),
+						line.getRequiredQuantity().multiply(BigDecimal.valueOf(quantity)), BigDecimal::add);
+			}
+		}
+
+		NetRequirementsResponseDTO response = service.calculate(new DemandRequestDTO(lines));
+
+		assertThat(response.getRequirements()).hasSize(expectedGross.size());
+		int shortfalls = 0;
+		for (NetRequirementDTO requirement : response.getRequirements()) {
+			MaterialEntry material = snapshot.getMaterials().get(requirement.getMaterialId().intValue() - 1);
+			BigDecimal gross = expectedGross.get(requirement.getMaterialId());
+			BigDecimal shortfall = gross.subtract(material.getStockQuantity()).max(BigDecimal.ZERO);
+			assertThat(requirement.getGrossRequirement()).isEqualByComparingTo(gross);
+			assertThat(requirement.getShortfall()).isEqualByComparingTo(shortfall);
+			shortfalls += shortfall.signum();
+		}
+		assertThat(response.getShortfallCount()).isEqualTo(shortfalls);
+		assertThat(response.getFeasible()).isEqualTo(shortfalls == 0);
+	}
+}
@@ -0,0 +1,130 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.ProductRawMaterialDTO;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Inclusão em lote na BOM contra o PostgreSQL configurado (tudo ou nada)
+ */
+@InventoryDatabaseTest
+class ProductRawMaterialServiceTest {
+
+	@Autowired
+	private ProductRawMaterialService service;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private InventoryTestData data;
+	private long door;
+	private long steel;
+	private long paint;
+	private long bolt;
+
+	@BeforeEach
+	void setUp() {
+		data = new InventoryTestData(jdbcTemplate);
+		door = data.product("DOOR", "100.00");
+		steel = data.material("STEEL", "10.000");
+		paint = data.material("PAINT", "5.000");
+		bolt = data.material("BOLT", "50.000");
+		eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.PRODUCT_CREATED, door));
+		eventPublisher.publishEvent(new InventoryChangedEvent(Kind.MATERIAL_CREATED, List.of(steel, paint, bolt)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		data.cleanUp();
+		eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.PRODUCT_DELETED, door));
+		eventPublisher.publishEvent(new InventoryChangedEvent(Kind.MATERIAL_DELETED, List.of(steel, paint, bolt)));
+	}
+
+	@Test
+	void addsAllMaterialsInRequestOrder() {
+		List<ProductRawMaterialDTO> added = service.addMaterialsToProduct(door, List.of(
+				line(paint, "0.500"), line(steel, "2.000"), line(bolt, "8.000")));
+
+		assertThat(added).extracting(ProductRawMaterialDTO::getRawMaterialId, ProductRawMaterialDTO::getProductId)
+				.containsExactly(tuple(paint, door), tuple(steel, door), tuple(bolt, door));
+		assertThat(added).allSatisfy(dto -> assertThat(dto.getId()).isNotNull());
+		assertThat(bom()).hasSize(3);
+		assertThat(service.findByProductId(door))
+				.filteredOn(dto -> dto.getRawMaterialId().equals(steel))
+				.singleElement()
+				.satisfies(dto -> assertThat(dto.getRequiredQuantity()).isEqualByComparingTo("2"));
+	}
+
+	@Test
+	void repeatedMaterialInTheRequestAddsNothing() {
+		assertThatThrownBy(() -> service.addMaterialsToProduct(door, List.of(
+				line(steel, "1"), line(paint, "1"), line(steel, "2"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("Raw material " + steel + " appears more than once in the request");
+		assertThat(bom()).isEmpty();
+	}
+
+	@Test
+	void missingMaterialAddsNothing() {
+		long missing = bolt + 1_000_000;
+
+		assertThatThrownBy(() -> service.addMaterialsToProduct(door, List.of(line(steel, "1"), line(missing, "1"))))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("Raw material not found with id: " + missing);
+		assertThat(bom()).isEmpty();
+	}
+
+	@Test
+	void materialAlreadyInTheBomAddsNothing() {
+		service.addMaterialToProduct(door, line(paint, "0.500"));
+
+		assertThatThrownBy(() -> service.addMaterialsToProduct(door, List.of(line(steel, "1"), line(paint, "1"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("Raw material " + paint + " is already associated with this product");
+		assertThat(bom()).containsExactly(paint);
+	}
+
+	@Test
+	void missingProductIsNotFound() {
+		long missing = door + 1_000_000;
+
+		assertThatThrownBy(() -> service.addMaterialsToProduct(missing, List.of(line(steel, "1"))))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("Product not found with id: " + missing);
+	}
+
+	private ProductRawMaterialDTO line(long materialId, String quantity) {
+		return ProductRawMaterialDTO.builder()
+				.productId(door)
+				.rawMaterialId(materialId)
+				.requiredQuantity(new BigDecimal(quantity))
+				.build();
+	}
+
+	/**
+	 * Materiais gravados na BOM do produto
+	 */
+	private List<Long> bom() {
+		return jdbcTemplate.queryForList(
+				"SELECT raw_material_id FROM product_raw_materials WHERE product_id = ? ORDER BY id",
+				Long.class, door);
+	}
+}
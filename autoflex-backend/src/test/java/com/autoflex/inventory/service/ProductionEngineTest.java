@@ -0,0 +1,68 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductionEngineTest {
+
+	@Test
+	void stockChangeRecalculatesOnlyByDeltaAndMatchesFullPass() {
+		Random random = new Random(7);
+		CatalogSnapshot snapshot = ProductionSuggestionServiceTest.randomCatalog(random, 300, 30);
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(snapshot);
+		ProductionEngine engine = new ProductionEngine(loader, ProductionParallelism.sequential());
+		engine.current();
+
+		List<MaterialEntry> changed = new ArrayList<>();
+		List<Long> changedIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			MaterialEntry material = snapshot.getMaterials().get(random.nextInt(snapshot.getMaterials().size()));
+			if (changedIds.contains(material.getId())) {
+				continue;
+			}
+			changedIds.add(material.getId());
+			changed.add(new MaterialEntry(material.getId(), material.getCode(), material.getName(),
+					material.getUnit(), BigDecimal.valueOf(random.nextInt(2_000_000), 3)));
+		}
+		when(loader.loadMaterials(anyCollection())).thenReturn(changed);
+		engine.onInventoryChanged(new InventoryChangedEvent(Kind.STOCK_CHANGED, changedIds));
+
+		ProductionState state = engine.current();
+		BomMatrix matrix = state.matrix();
+		long totalValue = 0;
+		int totalUnits = 0;
+		int producible = 0;
+		for (int p = 0; p < matrix.productCount(); p++) {
+			int expected = matrix.maxQuantity(p, state.stock());
+			assertThat(state.maxQuantity(p)).isEqualTo(expected);
+			if (expected > 0) {
+				totalValue += matrix.totalValue(p, expected);
+				totalUnits += expected;
+				producible++;
+			}
+		}
+		for (MaterialEntry material : changed) {
+			assertThat(state.stock()[matrix.materialOrdinal(material.getId())])
+					.isEqualTo(BomMatrix.toUnits(material.getStockQuantity(), BomMatrix.QUANTITY_SCALE));
+		}
+		assertThat(state.totalValue()).isEqualTo(totalValue);
+		assertThat(state.totalUnits()).isEqualTo(totalUnits);
+		assertThat(state.producibleCount()).isEqualTo(producible);
+		verify(loader, times(1)).load();
+	}
+}
@@ -0,0 +1,64 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductionMixSolverTest {
+
+	@Test
+	void beatsValueFirstGreedyWhenHighValueProductUsesBottleneck() {
+		// A (100) consome todo o M; B (60) usa metade: 2 x B = 120 > 1 x A
+		MaterialEntry bottleneck = new MaterialEntry(1L, "M", "Bottleneck", "kg", new BigDecimal("10.000"));
+		List<ProductEntry> products = List.of(
+				new ProductEntry(1L, "A", "A", new BigDecimal("100.00"), List.of(new BomLine(bottleneck, new BigDecimal("10.000")))),
+				new ProductEntry(2L, "B", "B", new BigDecimal("60.00"), List.of(new BomLine(bottleneck, new BigDecimal("5.000")))),
+				new ProductEntry(3L, "C", "C", new BigDecimal("60.00"), List.of(new BomLine(bottleneck, new BigDecimal("5.000")))));
+		BomMatrix matrix = BomMatrix.compile(new CatalogSnapshot(products, List.of(bottleneck)));
+
+		ProductionMixSolver.Solution solution = ProductionMixSolver.solve(matrix, matrix.copyStock(), TimeUnit.SECONDS.toNanos(1));
+
+		assertThat(solution.value()).isEqualTo(12000);
+		assertThat(solution.quantity(0)).isZero();
+		assertThat(solution.optimal()).isTrue();
+	}
+
+	@Test
+	void largeCatalogSolutionIsFeasibleAndBounded() {
+		BomMatrix matrix = BomMatrix.compile(ProductionSuggestionServiceTest.randomCatalog(new Random(11), 5000, 400));
+		long[] stock = matrix.copyStock();
+
+		long budget = TimeUnit.MILLISECONDS.toNanos(500);
+		ProductionMixSolver.Solution solution = ProductionMixSolver.solve(matrix, stock, budget);
+
+		long[] working = stock.clone();
+		long greedyValue = 0;
+		for (int p = 0; p < matrix.productCount(); p++) {
+			int quantity = matrix.maxQuantity(p, working);
+			if (quantity > 0) {
+				matrix.consume(p, quantity, working);
+				greedyValue += matrix.totalValue(p, quantity);
+			}
+		}
+		long[] consumed = stock.clone();
+		for (int p = 0; p < matrix.productCount(); p++) {
+			matrix.consume(p, solution.quantity(p), consumed);
+		}
+
+		assertThat(Arrays.stream(consumed).min().orElse(0)).isGreaterThanOrEqualTo(0);
+		assertThat(solution.value()).isGreaterThanOrEqualTo(greedyValue);
+		assertThat(solution.upperBound()).isGreaterThanOrEqualTo(solution.value());
+		assertThat(solution.gap()).isBetween(0.0, 1.0);
+		// Prazo checado entre rodadas: margem larga para uma rodada em máquina lenta
+		assertThat(solution.elapsedNanos()).isLessThan(budget * 4);
+	}
+}
@@ -0,0 +1,120 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.DemandLineDTO;
+import com.autoflex.inventory.dto.ProductionOrderRequestDTO;
+import com.autoflex.inventory.dto.ProductionOrderResponseDTO;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductionOrderServiceTest {
+
+	private StockAdjustmentService stockAdjustmentService;
+	private JdbcTemplate jdbcTemplate;
+	private CatalogSnapshotLoader loader;
+	private ProductionEngine engine;
+	private ProductionOrderService service;
+
+	@BeforeEach
+	void setUp() {
+		MaterialEntry steel = new MaterialEntry(7L, "MP-STEEL", "Steel", "kg", new BigDecimal("100.000"));
+		MaterialEntry paint = new MaterialEntry(3L, "MP-PAINT", "Paint", "l", new BigDecimal("5.000"));
+		ProductEntry frame = new ProductEntry(1L, "FRAME", "Frame", new BigDecimal("50.00"), List.of(
+				new BomLine(steel, new BigDecimal("12.500")), new BomLine(paint, new BigDecimal("0.250"))));
+		ProductEntry bracket = new ProductEntry(2L, "BRACKET", "Bracket", new BigDecimal("8.00"), List.of(
+				new BomLine(steel, new BigDecimal("1.000"))));
+		loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(new CatalogSnapshot(List.of(frame, bracket), List.of(steel, paint)));
+
+		stockAdjustmentService = mock(StockAdjustmentService.class);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		engine = new ProductionEngine(loader, ProductionParallelism.sequential());
+		service = new ProductionOrderService(engine, stockAdjustmentService, jdbcTemplate,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void consumesFlattenedBomInMaterialIdOrder() {
+		when(stockAdjustmentService.apply(any(), eq(StockMovementType.CONSUMPTION), eq("OP-1"), anyString()))
+				.thenReturn(List.of());
+
+		ProductionOrderResponseDTO response = service.execute(new ProductionOrderRequestDTO(List.of(
+				new DemandLineDTO("FRAME", 4), new DemandLineDTO("BRACKET", 10), new DemandLineDTO("FRAME", 2)), "OP-1"));
+
+		ArgumentCaptor<TreeMap<Long, BigDecimal>> deltas = ArgumentCaptor.forClass(TreeMap.class);
+		verify(stockAdjustmentService).apply(deltas.capture(), eq(StockMovementType.CONSUMPTION), eq("OP-1"), anyString());
+		assertThat(deltas.getValue()).containsExactly(
+				Map.entry(3L, new BigDecimal("-1.500")), Map.entry(7L, new BigDecimal("-85.000")));
+		assertThat(response.getTotalUnits()).isEqualTo(16);
+		assertThat(response.getTotalValue()).isEqualByComparingTo("380.00");
+	}
+
+	@Test
+	void rejectsInsufficientStockWithoutTouchingTheDatabase() {
+		ProductionOrderRequestDTO request = new ProductionOrderRequestDTO(List.of(new DemandLineDTO("FRAME", 21)), null);
+
+		assertThatThrownBy(() -> service.execute(request))
+				.isInstanceOf(BusinessException.class)
+				.hasMessageContaining("MP-STEEL (required 262.500, available 100.000)")
+				.hasMessageContaining("MP-PAINT (required 5.250, available 5.000)");
+		verifyNoInteractions(stockAdjustmentService, jdbcTemplate);
+	}
+
+	@Test
+	void acceptedOrderUsesPublishedStateWithoutApplyingPendingChanges() {
+		when(stockAdjustmentService.apply(any(), any(), anyString(), anyString())).thenReturn(List.of());
+		engine.current();
+		engine.onInventoryChanged(InventoryChangedEvent.of(Kind.STOCK_CHANGED, 7L));
+
+		service.execute(new ProductionOrderRequestDTO(List.of(new DemandLineDTO("BRACKET", 5)), null));
+
+		verify(loader, never()).loadMaterials(anySet());
+		verify(stockAdjustmentService).apply(any(), eq(StockMovementType.CONSUMPTION), anyString(), anyString());
+	}
+
+	@Test
+	void rejectionOnStalePublishedStateIsConfirmedAgainstCurrentState() {
+		when(stockAdjustmentService.apply(any(), any(), anyString(), anyString())).thenReturn(List.of());
+		when(loader.loadMaterials(anySet())).thenReturn(List.of(
+				new MaterialEntry(7L, "MP-STEEL", "Steel", "kg", new BigDecimal("300.000"))));
+		engine.current();
+		engine.onInventoryChanged(InventoryChangedEvent.of(Kind.STOCK_CHANGED, 7L));
+
+		// 10 FRAME = 125 kg: falta no estado publicado (100), sobra no atual (300)
+		ProductionOrderResponseDTO response = service.execute(
+				new ProductionOrderRequestDTO(List.of(new DemandLineDTO("FRAME", 10)), "OP-2"));
+
+		verify(loader, times(1)).loadMaterials(anySet());
+		assertThat(response.getInventoryVersion()).isEqualTo(1L);
+		assertThat(response.getTotalUnits()).isEqualTo(10);
+	}
+}
@@ -0,0 +1,170 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.MaterialRequirementDTO;
+import com.autoflex.inventory.dto.ProductionResponseDTO;
+import com.autoflex.inventory.dto.ProductionSuggestionDTO;
+import com.autoflex.inventory.service.CatalogSnapshot.BomLine;
+import com.autoflex.inventory.service.CatalogSnapshot.MaterialEntry;
+import com.autoflex.inventory.service.CatalogSnapshot.ProductEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductionSuggestionServiceTest {
+
+	// Pool do teste que exercita o caminho paralelo (fechado ao final)
+	private ProductionParallelism parallel;
+
+	@AfterEach
+	void shutdownPool() {
+		if (parallel != null) {
+			parallel.shutdown();
+		}
+	}
+
+	@Test
+	void fixedPointResultsMatchBigDecimalCalculation() {
+		CatalogSnapshot snapshot = randomCatalog(new Random(42), 200, 40);
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(snapshot);
+		// Blocos pequenos: exercita o caminho paralelo e a ordem do merge
+		parallel = new ProductionParallelism(4, 0, 16);
+
+		ProductionResponseDTO response = new ProductionSuggestionService(new ProductionEngine(loader, parallel), parallel).calculateProductionSuggestions();
+
+		List<ProductionSuggestionDTO> suggestions = response.getSuggestions();
+		BigDecimal expectedTotal = BigDecimal.ZERO;
+		int index = 0;
+		for (ProductEntry product : snapshot.getProducts()) {
+			int expectedMax = referenceMaxQuantity(product.getLines());
+			if (expectedMax <= 0) {
+				continue;
+			}
+			ProductionSuggestionDTO suggestion = suggestions.get(index++);
+			BigDecimal expectedValue = product.getValue()
+					.multiply(BigDecimal.valueOf(expectedMax))
+					.setScale(2, RoundingMode.HALF_UP);
+			expectedTotal = expectedTotal.add(expectedValue);
+
+			assertThat(suggestion.getProduct().getId()).isEqualTo(product.getId());
+			assertThat(suggestion.getMaxQuantity()).isEqualTo(expectedMax);
+			assertThat(suggestion.getTotalValue()).isEqualTo(expectedValue);
+
+			for (int i = 0; i < product.getLines().size(); i++) {
+				BomLine line = product.getLines().get(i);
+				MaterialRequirementDTO requirement = suggestion.getMaterialRequirements().get(i);
+				BigDecimal totalRequired = line.getRequiredQuantity()
+						.multiply(BigDecimal.valueOf(expectedMax))
+						.setScale(3, RoundingMode.HALF_UP);
+				assertThat(requirement.getRequiredPerUnit()).isEqualTo(line.getRequiredQuantity());
+				assertThat(requirement.getAvailableStock()).isEqualTo(line.getMaterial().getStockQuantity());
+				assertThat(requirement.getTotalRequired()).isEqualTo(totalRequired);
+				assertThat(requirement.getRemainingStock())
+						.isEqualTo(line.getMaterial().getStockQuantity().subtract(totalRequired).setScale(3, RoundingMode.HALF_UP));
+			}
+		}
+		assertThat(suggestions).hasSize(index);
+		assertThat(response.getTotalProductionValue()).isEqualTo(expectedTotal);
+	}
+
+	@Test
+	void streamedSuggestionsMatchMaterializedResponse() {
+		CatalogSnapshot snapshot = randomCatalog(new Random(11), 150, 25);
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(snapshot);
+		ProductionParallelism parallelism = ProductionParallelism.sequential();
+		ProductionSuggestionService service = new ProductionSuggestionService(new ProductionEngine(loader, parallelism), parallelism);
+
+		for (ProductionMode mode : List.of(ProductionMode.INDEPENDENT, ProductionMode.ALLOCATE)) {
+			ProductionResponseDTO response = service.calculateProductionSuggestions(mode, null);
+			List<ProductionSuggestionDTO> streamed = new ArrayList<>();
+			ProductionResponseDTO summary = service.streamProductionSuggestions(mode, 0, streamed::add);
+
+			assertThat(streamed).isEqualTo(response.getSuggestions());
+			assertThat(summary.getSuggestions()).isNull();
+			assertThat(summary.getTotalProductionValue()).isEqualTo(response.getTotalProductionValue());
+			assertThat(summary.getTotalUnits()).isEqualTo(response.getTotalUnits());
+			assertThat(summary.getRemainingStock()).isEqualTo(response.getRemainingStock());
+		}
+	}
+
+	@Test
+	void pageMatchesSortedSliceOfFullResponse() {
+		CatalogSnapshot snapshot = randomCatalog(new Random(5), 300, 30);
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(snapshot);
+		ProductionParallelism parallelism = ProductionParallelism.sequential();
+		ProductionSuggestionService service = new ProductionSuggestionService(new ProductionEngine(loader, parallelism), parallelism);
+
+		Map<ProductionSort, Comparator<ProductionSuggestionDTO>> orders = Map.of(
+				ProductionSort.VALUE, Comparator.comparing((ProductionSuggestionDTO s) -> s.getProduct().getValue()).reversed(),
+				ProductionSort.TOTAL_VALUE, Comparator.comparing(ProductionSuggestionDTO::getTotalValue).reversed(),
+				ProductionSort.MAX_QUANTITY, Comparator.comparing(ProductionSuggestionDTO::getMaxQuantity).reversed());
+
+		for (ProductionMode mode : List.of(ProductionMode.INDEPENDENT, ProductionMode.ALLOCATE)) {
+			ProductionResponseDTO full = service.calculateProductionSuggestions(mode, null);
+			for (Map.Entry<ProductionSort, Comparator<ProductionSuggestionDTO>> order : orders.entrySet()) {
+				// Ordenação estável: empates ficam na ordem do catálogo
+				List<ProductionSuggestionDTO> expected = new ArrayList<>(full.getSuggestions());
+				expected.sort(order.getValue());
+
+				ProductionResponseDTO page = service.calculateProductionSuggestions(mode, null, order.getKey(), 7, 20);
+
+				assertThat(page.getSuggestions()).isEqualTo(expected.subList(Math.min(7, expected.size()), Math.min(27, expected.size())));
+				assertThat(page.getTotalProductionValue()).isEqualTo(full.getTotalProductionValue());
+				assertThat(page.getTotalProductTypes()).isEqualTo(full.getTotalProductTypes());
+				assertThat(page.getTotalUnits()).isEqualTo(full.getTotalUnits());
+			}
+		}
+	}
+
+	private static int referenceMaxQuantity(List<BomLine> lines) {
+		int maxQuantity = Integer.MAX_VALUE;
+		for (BomLine line : lines) {
+			BigDecimal availableStock = line.getMaterial().getStockQuantity();
+			if (availableStock.compareTo(BigDecimal.ZERO) == 0) {
+				maxQuantity = 0;
+				continue;
+			}
+			int possibleUnits = availableStock.divide(line.getRequiredQuantity(), 0, RoundingMode.DOWN).intValue();
+			maxQuantity = Math.min(maxQuantity, possibleUnits);
+		}
+		return maxQuantity == Integer.MAX_VALUE ? 0 : maxQuantity;
+	}
+
+	static CatalogSnapshot randomCatalog(Random random, int productCount, int materialCount) {
+		List<MaterialEntry> materials = new ArrayList<>();
+		for (int m = 0; m < materialCount; m++) {
+			BigDecimal stock = random.nextInt(5) == 0
+					? new BigDecimal("0.000")
+					: BigDecimal.valueOf(random.nextInt(5_000_000), 3);
+			materials.add(new MaterialEntry((long) m + 1, "MP" + m, "Material " + m, "kg", stock));
+		}
+		List<ProductEntry> products = new ArrayList<>();
+		for (int p = 0; p < productCount; p++) {
+			List<BomLine> lines = new ArrayList<>();
+			int fanOut = random.nextInt(6);
+			int first = random.nextInt(materialCount);
+			for (int i = 0; i < Math.min(fanOut, materialCount); i++) {
+				// Materiais distintos por produto (unique product_id + raw_material_id)
+				MaterialEntry material = materials.get((first + i * 7) % materialCount);
+				lines.add(new BomLine(material, BigDecimal.valueOf(1 + random.nextInt(20_000), 3)));
+			}
+			BigDecimal value = BigDecimal.valueOf(100 + random.nextInt(500_000), 2);
+			products.add(new ProductEntry((long) p + 1, "PROD" + p, "Product " + p, value, lines));
+		}
+		products.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+		return new CatalogSnapshot(products, materials);
+	}
+}
@@ -0,0 +1,86 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.ScenarioDTO;
+import com.autoflex.inventory.dto.ScenarioRequestDTO;
+import com.autoflex.inventory.dto.ScenarioResponseDTO;
+import com.autoflex.inventory.dto.ScenarioResultDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.dto.ValueOverrideDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScenarioServiceTest {
+
+	// Cenários avaliados em paralelo (fechado ao final)
+	private final ProductionParallelism parallel = new ProductionParallelism(4, 0, 16);
+
+	@AfterEach
+	void shutdownPool() {
+		parallel.shutdown();
+	}
+
+	@Test
+	void scenarioTotalsMatchFullRecalculationWithoutTouchingLiveState() {
+		Random random = new Random(3);
+		CatalogSnapshot snapshot = ProductionSuggestionServiceTest.randomCatalog(random, 400, 40);
+		CatalogSnapshotLoader loader = mock(CatalogSnapshotLoader.class);
+		when(loader.load()).thenReturn(snapshot);
+		ProductionEngine engine = new ProductionEngine(loader, ProductionParallelism.sequential());
+		ProductionState state = engine.current();
+		BomMatrix matrix = state.matrix();
+
+		List<ScenarioDTO> scenarios = new ArrayList<>();
+		for (int s = 0; s < 20; s++) {
+			List<StockDeltaDTO> deltas = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				deltas.add(new StockDeltaDTO(matrix.materialId(random.nextInt(matrix.materialCount())),
+						BigDecimal.valueOf(random.nextInt(1_000_000), 3)));
+			}
+			List<ValueOverrideDTO> overrides = List.of(new ValueOverrideDTO(
+					matrix.productId(random.nextInt(matrix.productCount())), BigDecimal.valueOf(random.nextInt(100_000), 2)));
+			scenarios.add(new ScenarioDTO("s" + s, deltas, overrides));
+		}
+
+		ScenarioResponseDTO response = new ScenarioService(engine, parallel)
+				.evaluate(new ScenarioRequestDTO(scenarios));
+
+		for (int s = 0; s < scenarios.size(); s++) {
+			ScenarioDTO scenario = scenarios.get(s);
+			long[] stock = state.stock().clone();
+			for (StockDeltaDTO delta : scenario.getStockDeltas()) {
+				stock[matrix.materialOrdinal(delta.getMaterialId())] +=
+						BomMatrix.toUnits(delta.getDelta(), BomMatrix.QUANTITY_SCALE);
+			}
+			ValueOverrideDTO override = scenario.getValueOverrides().get(0);
+			int overridden = matrix.productOrdinal(override.getProductId());
+
+			long totalValue = 0;
+			int totalUnits = 0;
+			for (int p = 0; p < matrix.productCount(); p++) {
+				int quantity = matrix.maxQuantity(p, stock);
+				long value = p == overridden
+						? BomMatrix.toUnits(override.getValue(), BomMatrix.VALUE_SCALE)
+						: matrix.productValue(p);
+				totalValue += value * Math.max(0, quantity);
+				totalUnits += Math.max(0, quantity);
+			}
+
+			ScenarioResultDTO result = response.getScenarios().get(s);
+			assertThat(result.getName()).isEqualTo("s" + s);
+			assertThat(result.getTotalProductionValue())
+					.isEqualByComparingTo(BomMatrix.toDecimal(totalValue, BomMatrix.VALUE_SCALE));
+			assertThat(result.getTotalUnits()).isEqualTo(totalUnits);
+		}
+		assertThat(engine.current().totalValue()).isEqualTo(state.totalValue());
+		assertThat(response.getBaseline().getTotalUnits()).isEqualTo(state.totalUnits());
+	}
+}
@@ -0,0 +1,70 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.service.SearchIndex.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+	private SearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new SearchIndex();
+		index.put(SearchType.MATERIAL, 1, "MP-ALU", "Chapa de Alumínio");
+		index.put(SearchType.MATERIAL, 2, "MP-AÇO", "Aço Carbono");
+		index.put(SearchType.PRODUCT, 1, "P-CAPO", "Capô Dianteiro");
+		index.put(SearchType.PRODUCT, 2, "P-PARA", "Para-choque de alumínio");
+	}
+
+	@Test
+	void foldsAccentsAndMatchesInsideWords() {
+		assertThat(ids(index.search("ALUMINIO", null, 10))).containsExactly("MATERIAL:1", "PRODUCT:2");
+		assertThat(ids(index.search("capo", null, 10))).containsExactly("PRODUCT:1");
+		assertThat(ids(index.search("umín", SearchType.PRODUCT, 10))).containsExactly("PRODUCT:2");
+		assertThat(ids(index.search("aco carb", null, 10))).containsExactly("MATERIAL:2");
+	}
+
+	@Test
+	void ranksCodeMatchesFirstAndShortTermsAsWordPrefix() {
+		index.put(SearchType.PRODUCT, 3, "CA", "Cabo de aço");
+
+		assertThat(ids(index.search("ca", null, 10))).startsWith("PRODUCT:3");
+		// Termo curto só casa no início da palavra ("ap" está no meio de "Chapa" e "Capô")
+		assertThat(ids(index.search("ap", null, 10))).isEmpty();
+		assertThat(index.search("p", SearchType.PRODUCT, 2)).hasSize(2);
+	}
+
+	@Test
+	void shortTermScanStopsNearLimitWithExactWordFirst() {
+		for (int i = 10; i < 2000; i++) {
+			index.put(SearchType.MATERIAL, i, "PX-" + i, "Parafuso " + i);
+		}
+		index.put(SearchType.PRODUCT, 3, "P", "Pino");
+
+		List<Document> found = index.search("p", null, 3);
+
+		assertThat(found).hasSize(3);
+		assertThat(found.get(0).code()).isEqualTo("P");
+		assertThat(index.search("p", SearchType.MATERIAL, 50)).hasSize(50);
+	}
+
+	@Test
+	void updatesAndRemovalsReplaceThePostings() {
+		index.put(SearchType.PRODUCT, 1, "P-CAPO", "Tampa Traseira");
+		index.remove(SearchType.MATERIAL, 1);
+
+		assertThat(index.search("capô dianteiro", null, 10)).isEmpty();
+		assertThat(ids(index.search("traseira", null, 10))).containsExactly("PRODUCT:1");
+		assertThat(ids(index.search("aluminio", null, 10))).containsExactly("PRODUCT:2");
+		assertThat(index.size()).isEqualTo(3);
+	}
+
+	private static List<String> ids(List<Document> documents) {
+		return documents.stream().map(document -> document.type() + ":" + document.id()).toList();
+	}
+}
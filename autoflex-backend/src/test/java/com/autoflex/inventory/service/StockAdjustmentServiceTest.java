@@ -0,0 +1,179 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockAdjustmentRequestDTO;
+import com.autoflex.inventory.dto.StockAdjustmentResponseDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.dto.StockLevelDTO;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Ajuste em lote contra o PostgreSQL configurado: o UPDATE com guarda, a
+ * trava em ordem de ID e o rollback rodam de verdade (dados confirmados,
+ * apagados ao final)
+ */
+@InventoryDatabaseTest
+class StockAdjustmentServiceTest {
+
+	@Autowired
+	private StockAdjustmentService service;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private InventoryTestData data;
+	private long steel;
+	private long paint;
+	private long bolt;
+
+	@BeforeEach
+	void setUp() {
+		data = new InventoryTestData(jdbcTemplate);
+		steel = data.material("STEEL", "10.000");
+		paint = data.material("PAINT", "0.500");
+		bolt = data.material("BOLT", "9999999.500");
+		eventPublisher.publishEvent(new InventoryChangedEvent(Kind.MATERIAL_CREATED, List.of(steel, paint, bolt)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		data.cleanUp();
+		eventPublisher.publishEvent(new InventoryChangedEvent(Kind.MATERIAL_DELETED, List.of(steel, paint, bolt)));
+	}
+
+	@Test
+	void rejectsDeltaWithMoreThanThreeDecimalPlaces() {
+		assertThatThrownBy(() -> service.adjust(request(StockMovementType.ADJUSTMENT, delta(steel, "1.2345"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("Delta for raw material " + steel + " must have at most 3 decimal places");
+		assertThat(data.stock(steel)).isEqualByComparingTo("10");
+	}
+
+	@Test
+	void receiptMustBePositiveConsumptionNegativeAndOpeningIsRefused() {
+		assertThatThrownBy(() -> service.adjust(request(StockMovementType.RECEIPT, delta(steel, "0"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("RECEIPT delta for raw material " + steel + " must be positive");
+		assertThatThrownBy(() -> service.adjust(request(StockMovementType.CONSUMPTION, delta(steel, "2.5"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("CONSUMPTION delta for raw material " + steel + " must be negative");
+		assertThatThrownBy(() -> service.adjust(request(StockMovementType.OPENING, delta(steel, "10"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("OPENING movements are recorded only when a raw material is created");
+		assertThat(data.stock(steel)).isEqualByComparingTo("10");
+		assertThat(data.ledger(steel)).isZero();
+	}
+
+	@Test
+	void mergesDuplicateMaterialsAndRecordsOneMovementEach() {
+		StockAdjustmentResponseDTO response = service.adjust(request(StockMovementType.ADJUSTMENT,
+				delta(paint, "1"), delta(steel, "2"), delta(paint, "0.500"), delta(steel, "-0.5000")));
+
+		assertThat(response.getAdjustedCount()).isEqualTo(2);
+		assertThat(response.getMaterials())
+				.extracting(StockLevelDTO::getMaterialId, level -> level.getPreviousStock().setScale(3).toPlainString(),
+						level -> level.getStockQuantity().toPlainString())
+				.containsExactly(
+						tuple(steel, "10.000", "11.500"),
+						tuple(paint, "0.500", "2.000"));
+		assertThat(data.stock(steel)).isEqualByComparingTo("11.5");
+		assertThat(data.stock(paint)).isEqualByComparingTo("2");
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM stock_movements WHERE raw_material_id IN (?, ?)", Integer.class, steel, paint))
+				.isEqualTo(2);
+		assertThat(data.ledger(steel)).isEqualByComparingTo("1.5");
+	}
+
+	@Test
+	void guardedRowsRollBackTheWholeBatch() {
+		assertThatThrownBy(() -> service.adjust(request(StockMovementType.ADJUSTMENT,
+				delta(steel, "-2.000"), delta(paint, "-1"), delta(bolt, "1"))))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("Stock adjustment rejected, no changes applied: "
+						+ data.code("PAINT") + " (current 0.500, delta -1) would have negative stock; "
+						+ data.code("BOLT") + " (current 9999999.500, delta 1) would have stock above 9999999.999");
+
+		// O aço passou pelo UPDATE, mas o rollback desfez
+		assertThat(data.stock(steel)).isEqualByComparingTo("10");
+		assertThat(data.stock(paint)).isEqualByComparingTo("0.5");
+		assertThat(data.ledger(steel)).isZero();
+	}
+
+	@Test
+	void missingMaterialIsNotFoundAndNothingIsApplied() {
+		long missing = bolt + 1_000_000;
+
+		assertThatThrownBy(() -> service.adjust(request(StockMovementType.CONSUMPTION,
+				delta(steel, "-2.000"), delta(missing, "-1"))))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("Raw material not found with id: " + missing);
+		assertThat(data.stock(steel)).isEqualByComparingTo("10");
+		assertThat(data.ledger(steel)).isZero();
+	}
+
+	@Test
+	void concurrentBatchesAddUpWithoutLostUpdatesOrDeadlocks() throws Exception {
+		int rounds = 25;
+		// Mesmos materiais em ordens opostas: a trava em ordem de ID evita o deadlock
+		List<Throwable> errors = InventoryTestData.race(
+				() -> {
+					for (int i = 0; i < rounds; i++) {
+						service.adjust(request(StockMovementType.RECEIPT, delta(steel, "0.500"), delta(bolt, "0.001")));
+					}
+				},
+				() -> {
+					for (int i = 0; i < rounds; i++) {
+						service.adjust(request(StockMovementType.ADJUSTMENT, delta(bolt, "-0.002"), delta(steel, "0.250")));
+					}
+				});
+
+		assertThat(errors).containsOnlyNulls();
+		assertThat(data.stock(steel)).isEqualByComparingTo("28.75");
+		assertThat(data.stock(bolt)).isEqualByComparingTo("9999999.475");
+		assertThat(data.ledger(steel)).isEqualByComparingTo("18.75");
+		assertThat(data.ledger(bolt)).isEqualByComparingTo("-0.025");
+	}
+
+	@Test
+	void concurrentConsumptionsNeverTakeStockBelowZero() throws Exception {
+		List<Throwable> errors = InventoryTestData.race(
+				() -> service.adjust(request(StockMovementType.CONSUMPTION, delta(paint, "-0.300"))),
+				() -> service.adjust(request(StockMovementType.CONSUMPTION, delta(paint, "-0.300"))));
+
+		// Só um cabe no saldo: o segundo vê o saldo já baixado e é rejeitado inteiro
+		assertThat(errors).filteredOn(error -> error == null).hasSize(1);
+		assertThat(errors).filteredOn(error -> error != null).singleElement()
+				.isInstanceOf(BusinessException.class)
+				.extracting(Throwable::getMessage).asString()
+				.contains(data.code("PAINT") + " (current 0.200, delta -0.300) would have negative stock");
+		assertThat(data.stock(paint)).isEqualByComparingTo("0.2");
+		assertThat(data.ledger(paint)).isEqualByComparingTo("-0.3");
+	}
+
+	private static StockAdjustmentRequestDTO request(StockMovementType type, StockDeltaDTO... deltas) {
+		return new StockAdjustmentRequestDTO(List.of(deltas), type, "test");
+	}
+
+	private static StockDeltaDTO delta(Long materialId, String delta) {
+		return new StockDeltaDTO(materialId, new BigDecimal(delta));
+	}
+}
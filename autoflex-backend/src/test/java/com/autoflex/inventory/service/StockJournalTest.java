@@ -0,0 +1,91 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.service.StockJournal.Entry;
+import com.autoflex.inventory.service.StockJournal.Segment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockJournalTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rotatedSegmentCoalescesDeltasPerTypeAndMaterial() {
+		try (StockJournal journal = new StockJournal(dir, false)) {
+			journal.append(List.of(
+					new Entry(1, StockMovementType.CONSUMPTION, new BigDecimal("-1.500")),
+					new Entry(2, StockMovementType.CONSUMPTION, new BigDecimal("-2"))));
+			journal.append(List.of(
+					new Entry(1, StockMovementType.CONSUMPTION, new BigDecimal("-0.500")),
+					new Entry(1, StockMovementType.RECEIPT, new BigDecimal("10"))));
+
+			Segment segment = journal.rotate();
+
+			assertThat(segment.events()).isEqualTo(4);
+			assertThat(segment.deltas().get(StockMovementType.CONSUMPTION))
+					.containsExactlyInAnyOrderEntriesOf(Map.of(1L, new BigDecimal("-2.000"), 2L, new BigDecimal("-2")));
+			assertThat(segment.deltas().get(StockMovementType.RECEIPT))
+					.containsExactlyInAnyOrderEntriesOf(Map.of(1L, new BigDecimal("10")));
+			assertThat(journal.rotate()).isNull();
+		}
+	}
+
+	@Test
+	void recoverReplaysLeftoverSegmentsAndIgnoresATornLastLine() throws Exception {
+		try (StockJournal journal = new StockJournal(dir, true)) {
+			journal.append(List.of(new Entry(7, StockMovementType.CONSUMPTION, new BigDecimal("-3.250"))));
+		}
+		// Queda no meio da gravação da linha seguinte
+		try (var files = Files.list(dir)) {
+			Path segmentFile = files.findFirst().orElseThrow();
+			Files.writeString(segmentFile, "7;CONSUMPTION;-9", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		}
+
+		List<Segment> segments = new StockJournal(dir, false).recover();
+
+		assertThat(segments).hasSize(1);
+		assertThat(segments.get(0).events()).isEqualTo(1);
+		assertThat(segments.get(0).deltas().get(StockMovementType.CONSUMPTION))
+				.containsExactlyInAnyOrderEntriesOf(Map.of(7L, new BigDecimal("-3.250")));
+	}
+
+	@Test
+	void oneSyncCoversEveryWriteBeforeIt() {
+		try (StockJournal journal = new StockJournal(dir, true)) {
+			long first = journal.write(List.of(new Entry(1, StockMovementType.CONSUMPTION, new BigDecimal("-1"))));
+			long second = journal.write(List.of(new Entry(2, StockMovementType.CONSUMPTION, new BigDecimal("-1"))));
+			long third = journal.write(List.of(new Entry(3, StockMovementType.CONSUMPTION, new BigDecimal("-1"))));
+
+			journal.sync(second);
+			journal.sync(first);
+			journal.sync(third);
+
+			assertThat(journal.syncCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void rotateSyncsWritesStillWaitingForSync() {
+		try (StockJournal journal = new StockJournal(dir, true)) {
+			long ticket = journal.write(List.of(new Entry(1, StockMovementType.CONSUMPTION, new BigDecimal("-1"))));
+
+			Segment segment = journal.rotate();
+			journal.sync(ticket);
+
+			assertThat(segment.events()).isEqualTo(1);
+			assertThat(journal.syncCount()).isEqualTo(1);
+		}
+	}
+}
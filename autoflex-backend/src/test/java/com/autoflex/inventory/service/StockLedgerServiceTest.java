@@ -0,0 +1,132 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockAsOfDTO;
+import com.autoflex.inventory.entity.RawMaterial;
+import com.autoflex.inventory.repository.RawMaterialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL do razão contra o PostgreSQL configurado (mesmo banco de InventoryApplicationTests)
+ * Cada teste roda numa transação desfeita ao final; LOCALTIMESTAMP é fixo nela,
+ * então as movimentações são datadas relativas a ele
+ */
+@SpringBootTest(properties = "inventory.ledger.settle-seconds=0")
+@Transactional
+class StockLedgerServiceTest {
+
+	@Autowired
+	private StockLedgerService stockLedgerService;
+
+	@Autowired
+	private RawMaterialRepository rawMaterialRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long materialId;
+
+	@BeforeEach
+	void setUp() {
+		String code = "LEDGER-" + UUID.randomUUID().toString().substring(0, 8);
+		RawMaterial material = new RawMaterial(null, code, "Ledger test", new BigDecimal("12.000"), "kg",
+				new HashSet<>(), null, null);
+		materialId = rawMaterialRepository.saveAndFlush(material).getId();
+	}
+
+	@Test
+	void openingBalanceIsRecordedOnceWithCurrentStock() {
+		assertThat(stockLedgerService.recordOpeningBalances()).isGreaterThanOrEqualTo(1);
+		assertThat(stockLedgerService.recordOpeningBalances()).isZero();
+
+		List<BigDecimal> openings = jdbcTemplate.queryForList(
+				"SELECT quantity FROM stock_movements WHERE raw_material_id = ? AND type = 'OPENING'",
+				BigDecimal.class, materialId);
+		assertThat(openings).containsExactly(new BigDecimal("12.000"));
+	}
+
+	@Test
+	void stockAsOfSumsMovementsUpToTheInstant() {
+		movement("OPENING", "10.000", "3 hours");
+		movement("RECEIPT", "5.000", "2 hours");
+		movement("CONSUMPTION", "-3.000", "1 hour");
+
+		assertThat(stockAt("150 minutes")).isEqualByComparingTo("10");
+		assertThat(stockAt("90 minutes")).isEqualByComparingTo("15");
+		assertThat(stockAt("0 minutes")).isEqualByComparingTo("12");
+		// Antes da primeira movimentação o material não aparece
+		assertThat(stockLedgerService.stockAsOf(dbTime("4 hours"), materialId)).isEmpty();
+	}
+
+	@Test
+	void snapshotFoldsTailAndLaterMovementsStillCount() {
+		movement("OPENING", "10.000", "3 hours");
+		movement("RECEIPT", "5.000", "2 hours");
+
+		stockLedgerService.takeSnapshots();
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT stock_quantity FROM stock_snapshots WHERE raw_material_id = ?", BigDecimal.class, materialId))
+				.isEqualByComparingTo("15");
+
+		// Depois do snapshot: a consulta soma snapshot + cauda
+		movement("CONSUMPTION", "-4.000", "-1 second");
+		StockAsOfDTO now = stockLedgerService.stockAsOf(dbTime("-2 seconds"), materialId).get(0);
+		assertThat(now.getStockQuantity()).isEqualByComparingTo("11");
+		assertThat(now.getSnapshotAt()).isNotNull();
+
+		// Antes do snapshot: ignora o snapshot e soma só o razão
+		assertThat(stockAt("150 minutes")).isEqualByComparingTo("10");
+
+		// Movimentação depois do corte não entra no próximo snapshot
+		stockLedgerService.takeSnapshots();
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM stock_snapshots WHERE raw_material_id = ?", Integer.class, materialId))
+				.isEqualTo(1);
+	}
+
+	@Test
+	void snapshotIsIncrementalOverThePreviousOne() {
+		movement("OPENING", "10.000", "3 hours");
+		jdbcTemplate.update("""
+				INSERT INTO stock_snapshots (id, raw_material_id, stock_quantity, taken_at)
+				VALUES (nextval('stock_snapshots_id_seq'), ?, 10, LOCALTIMESTAMP - interval '2 hours')
+				""", materialId);
+		movement("RECEIPT", "2.500", "1 hour");
+
+		stockLedgerService.takeSnapshots();
+
+		assertThat(jdbcTemplate.queryForObject("""
+				SELECT stock_quantity FROM stock_snapshots
+				 WHERE raw_material_id = ? ORDER BY taken_at DESC LIMIT 1
+				""", BigDecimal.class, materialId)).isEqualByComparingTo("12.5");
+	}
+
+	private void movement(String type, String quantity, String ago) {
+		jdbcTemplate.update("""
+				INSERT INTO stock_movements (id, raw_material_id, type, quantity, reference, occurred_at)
+				VALUES (nextval('stock_movements_id_seq'), ?, ?, ?::numeric, 'test', LOCALTIMESTAMP - ?::interval)
+				""", materialId, type, quantity, ago);
+	}
+
+	private BigDecimal stockAt(String ago) {
+		return stockLedgerService.stockAsOf(dbTime(ago), materialId).get(0).getStockQuantity();
+	}
+
+	private LocalDateTime dbTime(String ago) {
+		return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP - ?::interval", Timestamp.class, ago)
+				.toLocalDateTime();
+	}
+}
@@ -0,0 +1,238 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.StockAdjustmentRequestDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.dto.StockStripesDTO;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import com.autoflex.inventory.exception.BusinessException;
+import com.autoflex.inventory.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Estoque fatiado contra o PostgreSQL configurado: consumo por stripe,
+ * rebalanceamento, guarda de saldo e transações concorrentes no MESMO
+ * material (dados confirmados, apagados ao final)
+ */
+@InventoryDatabaseTest
+class StockStripingServiceTest {
+
+	@Autowired
+	private StockStripingService service;
+
+	@Autowired
+	private StockAdjustmentService stockAdjustmentService;
+
+	@Autowired
+	private RawMaterialService rawMaterialService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private InventoryTestData data;
+	private long bolt;
+
+	@BeforeEach
+	void setUp() {
+		data = new InventoryTestData(jdbcTemplate);
+		bolt = data.material("BOLT", "10.000");
+		eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.MATERIAL_CREATED, bolt));
+	}
+
+	@AfterEach
+	void tearDown() {
+		data.cleanUp();
+		eventPublisher.publishEvent(InventoryChangedEvent.of(Kind.MATERIAL_DELETED, bolt));
+	}
+
+	@Test
+	void splitKeepsTheTotalAndDiffersByAtMostOneUnit() {
+		for (long total : new long[] {0, 1, 7, 1_000, 123_457, 9_999_999_999L}) {
+			for (int stripes = 2; stripes <= StockStripingService.MAX_STRIPES; stripes++) {
+				long[] parts = StockStripingService.split(total, stripes);
+
+				assertThat(parts).hasSize(stripes);
+				assertThat(Arrays.stream(parts).sum()).isEqualTo(total);
+				assertThat(parts[0] - parts[stripes - 1]).isBetween(0L, 1L);
+			}
+		}
+	}
+
+	@Test
+	void configureMovesTheRowIntoStripesAndZeroMovesItBack() {
+		StockStripesDTO striped = service.configure(bolt, 3);
+
+		assertThat(striped.getStripes()).isEqualTo(3);
+		assertThat(striped.getMaterialCode()).isEqualTo(data.code("BOLT"));
+		assertThat(data.stripes(bolt)).extracting(BigDecimal::toPlainString).containsExactly("3.334", "3.333", "3.333");
+		assertThat(data.row(bolt)).isZero();
+		assertThat(data.stock(bolt)).isEqualByComparingTo("10");
+
+		service.configure(bolt, 0);
+
+		assertThat(data.stripes(bolt)).isEmpty();
+		assertThat(data.row(bolt)).isEqualByComparingTo("10");
+	}
+
+	@Test
+	void configureRejectsInvalidStripeCountsAndMissingMaterials() {
+		for (int stripes : new int[] {-1, 1, StockStripingService.MAX_STRIPES + 1}) {
+			assertThatThrownBy(() -> service.configure(bolt, stripes))
+					.isInstanceOf(BusinessException.class)
+					.hasMessage("stripes must be 0 (disabled) or between 2 and " + StockStripingService.MAX_STRIPES);
+		}
+		long missing = bolt + 1_000_000;
+		assertThatThrownBy(() -> service.configure(missing, 4))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("Raw material not found with id: " + missing);
+		assertThat(data.stripes(bolt)).isEmpty();
+	}
+
+	@Test
+	void consumptionThatFitsTakesFromOneStripeOnly() {
+		service.configure(bolt, 4);
+
+		consume("-1.500");
+
+		assertThat(data.stripes(bolt)).extracting(BigDecimal::toPlainString)
+				.containsExactlyInAnyOrder("1.000", "2.500", "2.500", "2.500");
+		assertThat(data.stock(bolt)).isEqualByComparingTo("8.5");
+		assertThat(data.ledger(bolt)).isEqualByComparingTo("-1.5");
+	}
+
+	@Test
+	void dryStripeRebalancesFromTheOthers() {
+		service.configure(bolt, 2);
+
+		// Nenhuma stripe tem 7 sozinha: junta 5 + 5, baixa e redistribui
+		consume("-7");
+
+		assertThat(data.stripes(bolt)).extracting(BigDecimal::toPlainString).containsExactly("1.500", "1.500");
+		assertThat(data.stock(bolt)).isEqualByComparingTo("3");
+		assertThat(data.ledger(bolt)).isEqualByComparingTo("-7");
+	}
+
+	@Test
+	void shortageIsDeclaredOnlyAgainstTheTotalAndStockNeverGoesNegative() {
+		service.configure(bolt, 2);
+		consume("-8.500");
+
+		assertThatThrownBy(() -> consume("-2"))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("Stock adjustment rejected, no changes applied: " + data.code("BOLT")
+						+ " (current 1.500, delta -2) would have negative stock");
+		assertThat(data.stock(bolt)).isEqualByComparingTo("1.5");
+
+		// Exatamente o total: cabe, e nenhuma stripe fica negativa
+		consume("-1.500");
+		assertThat(data.stripes(bolt)).allSatisfy(quantity -> assertThat(quantity).isZero());
+		assertThat(data.ledger(bolt)).isEqualByComparingTo("-10");
+	}
+
+	@Test
+	void rebalanceDoesNotWaitForAMaterialRowLockedElsewhere() throws Exception {
+		service.configure(bolt, 2);
+		jdbcTemplate.update("UPDATE raw_materials SET stock_quantity = 2 WHERE id = ?", bolt);
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.update("UPDATE raw_materials SET updated_at = CURRENT_TIMESTAMP WHERE id = ?", bolt);
+			locked.countDown();
+			await(release);
+		}));
+		try {
+			assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+			// 5 + 5 nas stripes; os 2 da linha travada ficam de fora
+			consume("-6");
+
+			assertThat(data.stripes(bolt)).extracting(BigDecimal::toPlainString).containsExactly("2.000", "2.000");
+		} finally {
+			release.countDown();
+			holder.get(10, TimeUnit.SECONDS);
+		}
+		assertThat(data.row(bolt)).isEqualByComparingTo("2");
+	}
+
+	@Test
+	void concurrentConsumersOnOneMaterialAddUpAndNeverGoNegative() throws Exception {
+		service.configure(bolt, 4);
+		int rounds = 20;
+		Runnable consumer = () -> {
+			for (int i = 0; i < rounds; i++) {
+				consume("-0.200");
+			}
+		};
+
+		List<Throwable> errors = InventoryTestData.race(consumer, consumer);
+
+		assertThat(errors).containsOnlyNulls();
+		assertThat(data.stock(bolt)).isEqualByComparingTo("2");
+		assertThat(data.ledger(bolt)).isEqualByComparingTo("-8");
+		assertThat(data.stripes(bolt)).allSatisfy(quantity -> assertThat(quantity).isNotNegative());
+	}
+
+	@Test
+	void concurrentRebalancesRejectTheConsumptionThatNoLongerFits() throws Exception {
+		service.configure(bolt, 2);
+
+		// As duas precisam rebalancear (6 > 5 em cada stripe); só uma cabe no total
+		List<Throwable> errors = InventoryTestData.race(() -> consume("-6"), () -> consume("-6"));
+
+		assertThat(errors).filteredOn(error -> error == null).hasSize(1);
+		assertThat(errors).filteredOn(error -> error != null).singleElement()
+				.isInstanceOf(BusinessException.class)
+				.extracting(Throwable::getMessage).asString()
+				.contains(data.code("BOLT") + " (current 4.000, delta -6) would have negative stock");
+		assertThat(data.stock(bolt)).isEqualByComparingTo("4");
+		assertThat(data.stripes(bolt)).extracting(BigDecimal::toPlainString).containsExactly("2.000", "2.000");
+	}
+
+	@Test
+	void absoluteStockUpdateIsAbsorbedIntoStripesAndLedgerGetsTheDifference() {
+		service.configure(bolt, 2);
+		consume("-7");
+
+		rawMaterialService.updateStock(bolt, new BigDecimal("12.000"));
+
+		assertThat(data.stripes(bolt)).extracting(BigDecimal::toPlainString).containsExactly("6.000", "6.000");
+		assertThat(data.row(bolt)).isZero();
+		assertThat(data.ledger(bolt)).isEqualByComparingTo("2");
+	}
+
+	private void consume(String delta) {
+		stockAdjustmentService.adjust(new StockAdjustmentRequestDTO(
+				List.of(new StockDeltaDTO(bolt, new BigDecimal(delta))), StockMovementType.CONSUMPTION, "test"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
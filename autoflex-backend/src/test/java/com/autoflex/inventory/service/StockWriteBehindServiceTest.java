@@ -0,0 +1,103 @@
+package com.autoflex.inventory.service;
+
+import com.autoflex.inventory.dto.RawMaterialDTO;
+import com.autoflex.inventory.dto.StockAdjustmentRequestDTO;
+import com.autoflex.inventory.dto.StockDeltaDTO;
+import com.autoflex.inventory.entity.StockMovementType;
+import com.autoflex.inventory.event.InventoryChangedEvent;
+import com.autoflex.inventory.event.InventoryChangedEvent.Kind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flush do write-behind contra o PostgreSQL configurado (o flush roda na
+ * thread do serviço e confirma no banco; os dados são apagados ao final)
+ */
+@InventoryDatabaseTest
+class StockWriteBehindServiceTest {
+
+	@Autowired
+	private StockWriteBehindService writeBehind;
+
+	@Autowired
+	private PendingStockDeltas pendingStockDeltas;
+
+	@Autowired
+	private RawMaterialService rawMaterialService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private InventoryTestData data;
+	private long steel;
+	private long paint;
+
+	@BeforeEach
+	void setUp() {
+		data = new InventoryTestData(jdbcTemplate);
+		steel = data.material("STEEL", "10.000");
+		paint = data.material("PAINT", "1.000");
+		// Materiais inseridos por SQL: o ProductionEngine passa a conhecê-los
+		eventPublisher.publishEvent(new InventoryChangedEvent(Kind.MATERIAL_CREATED, List.of(steel, paint)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		data.cleanUp();
+		eventPublisher.publishEvent(new InventoryChangedEvent(Kind.MATERIAL_DELETED, List.of(steel, paint)));
+	}
+
+	@Test
+	void rejectedBatchDropsOnlyTheInvalidDeltaAndClearsPending() {
+		long rejectedBefore = writeBehind.status().getRejectedDeltas();
+
+		writeBehind.enqueue(new StockAdjustmentRequestDTO(List.of(
+				new StockDeltaDTO(steel, new BigDecimal("-2.000")),
+				new StockDeltaDTO(paint, new BigDecimal("-5.000"))), StockMovementType.CONSUMPTION, "test"));
+		writeBehind.flushNow();
+
+		// Lote rejeitado (tinta ficaria negativa), aço gravado sozinho, tinta descartada
+		assertThat(data.stock(steel)).isEqualByComparingTo("8");
+		assertThat(data.stock(paint)).isEqualByComparingTo("1");
+		assertThat(data.ledger(steel)).isEqualByComparingTo("-2");
+		assertThat(data.ledger(paint)).isZero();
+		assertThat(writeBehind.status().getRejectedDeltas()).isEqualTo(rejectedBefore + 1);
+		// Nada pendente: nem o lote rejeitado nem o delta descartado voltam aos pendentes
+		assertThat(pendingStockDeltas.withPending(steel, BigDecimal.ZERO)).isZero();
+		assertThat(pendingStockDeltas.withPending(paint, BigDecimal.ZERO)).isZero();
+	}
+
+	@Test
+	void savingTheShownStockBackDoesNotCountAPendingConsumptionTwice() {
+		writeBehind.enqueue(new StockAdjustmentRequestDTO(List.of(
+				new StockDeltaDTO(steel, new BigDecimal("-2.000"))), StockMovementType.CONSUMPTION, "test"));
+
+		// Ainda não gravada: o disponível mostra a baixa, o saldo editável não
+		RawMaterialDTO shown = rawMaterialService.findById(steel);
+		assertThat(shown.getAvailableStock()).isEqualByComparingTo("8");
+		assertThat(shown.getStockQuantity()).isEqualByComparingTo("10");
+		assertThat(shown.getPendingStockDelta()).isEqualByComparingTo("-2");
+
+		// Cliente devolve o saldo editável sem alterar
+		rawMaterialService.update(steel, shown);
+		writeBehind.flushNow();
+
+		assertThat(data.stock(steel)).isEqualByComparingTo("8");
+		assertThat(data.ledger(steel)).isEqualByComparingTo("-2");
+		RawMaterialDTO flushed = rawMaterialService.findById(steel);
+		assertThat(flushed.getStockQuantity()).isEqualByComparingTo("8");
+		assertThat(flushed.getPendingStockDelta()).isNull();
+	}
+}